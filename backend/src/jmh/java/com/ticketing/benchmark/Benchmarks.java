@@ -0,0 +1,149 @@
+package com.ticketing.benchmark;
+
+import com.ticketing.EventTicketingApplication;
+import com.ticketing.entity.Event;
+import com.ticketing.entity.Seat;
+import com.ticketing.repository.EventRepository;
+import com.ticketing.repository.SeatRepository;
+import com.ticketing.service.BookingWriteBehind;
+import com.ticketing.service.EventCatalog;
+import com.ticketing.service.SeatAvailabilityIndex;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Shared setup for the benchmarks: starts the application without a web
+ * server against the chosen database and creates events of any size.
+ *
+ * Databases:
+ *   h2          - in-memory H2
+ *   h2-postgres - in-memory H2 in PostgreSQL compatibility mode
+ *   postgres    - a real PostgreSQL, from -Dbenchmark.postgres.url (plus
+ *                 .username / .password); its tables are dropped afterwards
+ */
+final class Benchmarks {
+
+    private static final int INSERT_CHUNK = 1000;
+
+    private Benchmarks() {}
+
+    static ConfigurableApplicationContext start(String database) {
+        return start(database, WebApplicationType.NONE, List.of());
+    }
+
+    /**
+     * @param web        SERVLET to also start Tomcat (on a random port)
+     * @param extra      additional application properties, "key=value", overriding the defaults
+     * @param sources    additional configuration classes or beans
+     */
+    static ConfigurableApplicationContext start(String database, WebApplicationType web, List<String> extra,
+            Class<?>... sources) {
+        List<String> properties = new ArrayList<>(List.of(
+                "spring.jpa.hibernate.ddl-auto=create-drop",
+                "spring.jpa.show-sql=false",
+                "spring.jpa.properties.hibernate.format_sql=false",
+                "logging.level.root=WARN",
+                // Measure the booking path itself, not the on-sale waiting room
+                "ticketing.waiting-room.enabled=false",
+                // Hibernate logs every lost optimistic-lock batch at ERROR; writing
+                // that to the console would dominate the load-then-save numbers
+                "logging.level.org.hibernate.orm.jdbc.batch=OFF"));
+        switch (database) {
+            case "h2" -> properties.addAll(h2("jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1"));
+            case "h2-postgres" -> properties.addAll(h2(
+                    "jdbc:h2:mem:bench;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1"));
+            case "postgres" -> properties.addAll(List.of(
+                    "spring.datasource.url=" + System.getProperty("benchmark.postgres.url",
+                            "jdbc:postgresql://localhost:5432/ticketing_bench?reWriteBatchedInserts=true"),
+                    "spring.datasource.username=" + System.getProperty("benchmark.postgres.username", "postgres"),
+                    "spring.datasource.password=" + System.getProperty("benchmark.postgres.password", "1234")));
+            default -> throw new IllegalArgumentException("Unknown database: " + database);
+        }
+        properties.add("server.port=0");
+        properties.addAll(extra);
+
+        // Later settings replace earlier ones: a repeated --key would be joined, not overridden
+        Map<String, String> arguments = new LinkedHashMap<>();
+        for (String property : properties) {
+            arguments.put(property.substring(0, property.indexOf('=')), "--" + property);
+        }
+        // As arguments, so they win over application.properties
+        return new SpringApplicationBuilder(EventTicketingApplication.class)
+                .sources(sources)
+                .web(web)
+                .run(arguments.values().toArray(String[]::new));
+    }
+
+    private static List<String> h2(String url) {
+        return List.of(
+                "spring.datasource.url=" + url,
+                "spring.datasource.driver-class-name=org.h2.Driver",
+                "spring.datasource.username=sa",
+                "spring.datasource.password=",
+                "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect");
+    }
+
+    /**
+     * Creates an event with the given number of free seats and indexes it.
+     *
+     * @return the seat ids, ascending
+     */
+    static long[] createEvent(ConfigurableApplicationContext context, int seatCount) {
+        EventRepository eventRepository = context.getBean(EventRepository.class);
+        SeatRepository seatRepository = context.getBean(SeatRepository.class);
+        TransactionTemplate tx = context.getBean(TransactionTemplate.class);
+
+        Event event = eventRepository.save(new Event(
+                "Benchmark " + seatCount, LocalDateTime.now().plusMonths(1), "Benchmark Arena"));
+        long[] seatIds = new long[seatCount];
+        for (int start = 0; start < seatCount; start += INSERT_CHUNK) {
+            int first = start;
+            int end = Math.min(start + INSERT_CHUNK, seatCount);
+            tx.executeWithoutResult(status -> {
+                List<Seat> chunk = new ArrayList<>(end - first);
+                for (int i = first; i < end; i++) {
+                    chunk.add(new Seat(null, "R" + (i / 100 + 1), i % 100 + 1, event));
+                }
+                List<Seat> saved = seatRepository.saveAll(chunk);
+                for (int i = 0; i < saved.size(); i++) {
+                    seatIds[first + i] = saved.get(i).getId();
+                }
+            });
+        }
+
+        context.getBean(SeatAvailabilityIndex.class).load(event.getId());
+        context.getBean(EventCatalog.class).refresh();
+        return seatIds;
+    }
+
+    /**
+     * Puts every seat of the event back to free (or booked, for sold-out
+     * runs), drops its bookings and loads it into the index afresh.
+     */
+    static void resetEvent(ConfigurableApplicationContext context, long firstSeatId, boolean booked) {
+        // Let bookings decided in memory reach the database first, or they would land after the reset
+        BookingWriteBehind writeBehind = context.getBean(BookingWriteBehind.class);
+        while (writeBehind.pending() > 0) {
+            Thread.onSpinWait();
+        }
+
+        SeatAvailabilityIndex index = context.getBean(SeatAvailabilityIndex.class);
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        Long eventId = index.eventIdOf(firstSeatId);
+
+        jdbc.update("delete from bookings where seat_id in (select id from seats where event_id = ?)", eventId);
+        jdbc.update("update seats set booked = ?, hold_token = null, hold_expires_at = null where event_id = ?",
+                booked, eventId);
+        index.forget(eventId);
+        index.load(eventId);
+    }
+}
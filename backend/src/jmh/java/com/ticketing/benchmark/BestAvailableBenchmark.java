@@ -0,0 +1,149 @@
+package com.ticketing.benchmark;
+
+import com.ticketing.exception.ConcurrentBookingException;
+import com.ticketing.exception.SeatAlreadyBookedException;
+import com.ticketing.service.BookingService;
+import com.ticketing.service.SeatAvailabilityIndex;
+import com.ticketing.service.SeatAvailabilityIndex.SeatClaim;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Groups of customers booking seats together during an on-sale.
+ *
+ *   pickSeats     - each customer looks at the seat map and books the first
+ *                   block of free seats from the front, the way people pick
+ *                   off a map: everyone goes for the same block
+ *   bestAvailable - BookingService.reserveBestAvailable hands each customer
+ *                   a block nobody else has claimed
+ *   findBlock     - just the index search and claim for a block, released
+ *                   again straight away (average time, not throughput)
+ *
+ * The booked and conflicts counters show how many calls got seats and how
+ * many lost a race for them. The event has rows of 100 seats and is reset
+ * every iteration. Run with -t to change the number of customers (default 8).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class BestAvailableBenchmark {
+
+    @Param({"h2"})
+    public String database;
+
+    @Param("100000")
+    public int seats;
+
+    @Param("4")
+    public int quantity;
+
+    private ConfigurableApplicationContext context;
+    private BookingService bookingService;
+    private SeatAvailabilityIndex index;
+    private long[] seatIds;
+    private Long eventId;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = Benchmarks.start(database, WebApplicationType.NONE, List.of());
+        bookingService = context.getBean(BookingService.class);
+        index = context.getBean(SeatAvailabilityIndex.class);
+        seatIds = Benchmarks.createEvent(context, seats);
+        eventId = index.eventIdOf(seatIds[0]);
+    }
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        Benchmarks.resetEvent(context, seatIds[0], false);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Outcomes {
+        public long booked;
+        public long conflicts;
+
+        // Where this customer's view of the map starts; seats only ever get booked
+        int from;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            booked = 0;
+            conflicts = 0;
+            from = 0;
+        }
+    }
+
+    @Benchmark
+    public Object pickSeats(Outcomes outcomes) {
+        int start = firstFreeBlock(outcomes.from);
+        if (start < 0) {
+            return null;
+        }
+        outcomes.from = start;
+        List<Long> cart = new ArrayList<>(quantity);
+        for (int i = start; i < start + quantity; i++) {
+            cart.add(seatIds[i]);
+        }
+        return book(outcomes, () -> bookingService.reserveSeats(cart, "benchmark"));
+    }
+
+    @Benchmark
+    public Object bestAvailable(Outcomes outcomes) {
+        return book(outcomes, () -> bookingService.reserveBestAvailable(eventId, quantity, "benchmark"));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Object findBlock() {
+        List<SeatClaim> claims = index.beginBestAvailable(eventId, quantity);
+        claims.forEach(SeatClaim::abort);
+        return claims;
+    }
+
+    /**
+     * The first block of quantity seats in one row that the seat map shows as free.
+     */
+    private int firstFreeBlock(int from) {
+        for (int start = from; start + quantity <= seatIds.length; start++) {
+            if (start % 100 + quantity > 100) {
+                continue;
+            }
+            boolean free = true;
+            for (int i = start; i < start + quantity && free; i++) {
+                free = !index.isBooked(seatIds[i]);
+            }
+            if (free) {
+                return start;
+            }
+        }
+        return -1;
+    }
+
+    private static Object book(Outcomes outcomes, Supplier<Object> booking) {
+        try {
+            Object booked = booking.get();
+            outcomes.booked++;
+            return booked;
+        } catch (SeatAlreadyBookedException | ConcurrentBookingException ex) {
+            outcomes.conflicts++;
+            return ex;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.ticketing.benchmark;
+
+import com.ticketing.entity.Booking;
+import com.ticketing.entity.Seat;
+import com.ticketing.repository.BookingRepository;
+import com.ticketing.repository.SeatRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The two ways of deciding who gets a seat, head to head on one hot seat at
+ * 1, 8 and 64 concurrent bookers. The availability index is bypassed so
+ * every attempt reaches the database.
+ *
+ *   conditionalUpdate - SeatRepository.claimSeat: one UPDATE ... WHERE
+ *                       booked = false, losers just see 0 rows
+ *   loadThenSave      - the original path: load the seat, flip booked and let
+ *                       the @Version check fail with an exception on a loss
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public abstract class ClaimPathBenchmark {
+
+    @Threads(1)
+    public static class Bookers1 extends ClaimPathBenchmark {}
+
+    @Threads(8)
+    public static class Bookers8 extends ClaimPathBenchmark {}
+
+    @Threads(64)
+    public static class Bookers64 extends ClaimPathBenchmark {}
+
+    @Param({"h2", "h2-postgres"})
+    public String database;
+
+    @Param("200000")
+    public int seats;
+
+    private ConfigurableApplicationContext context;
+    private SeatRepository seatRepository;
+    private BookingRepository bookingRepository;
+    private TransactionTemplate tx;
+    private long[] seatIds;
+    private final AtomicInteger hotSeat = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = Benchmarks.start(database);
+        seatRepository = context.getBean(SeatRepository.class);
+        bookingRepository = context.getBean(BookingRepository.class);
+        tx = context.getBean(TransactionTemplate.class);
+        seatIds = Benchmarks.createEvent(context, seats);
+    }
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        Benchmarks.resetEvent(context, seatIds[0], false);
+        hotSeat.set(0);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public boolean conditionalUpdate() {
+        int ordinal = hotSeat.get() % seatIds.length;
+        Boolean won = tx.execute(status -> {
+            if (seatRepository.claimSeat(seatIds[ordinal], LocalDateTime.now()) == 0) {
+                return false;
+            }
+            Seat seat = seatRepository.findById(seatIds[ordinal]).orElseThrow();
+            bookingRepository.save(new Booking("benchmark", seat));
+            return true;
+        });
+        return advance(ordinal, won);
+    }
+
+    @Benchmark
+    public boolean loadThenSave() {
+        int ordinal = hotSeat.get() % seatIds.length;
+        boolean won;
+        try {
+            won = tx.execute(status -> {
+                Seat seat = seatRepository.findById(seatIds[ordinal]).orElseThrow();
+                if (seat.isBooked()) {
+                    return false;
+                }
+                seat.setBooked(true);
+                seatRepository.saveAndFlush(seat);
+                bookingRepository.save(new Booking("benchmark", seat));
+                return true;
+            });
+        } catch (ObjectOptimisticLockingFailureException ex) {
+            won = false;
+        }
+        return advance(ordinal, won);
+    }
+
+    private boolean advance(int ordinal, boolean won) {
+        if (won) {
+            hotSeat.compareAndSet(ordinal, ordinal + 1);
+        }
+        return won;
+    }
+}
@@ -0,0 +1,152 @@
+package com.ticketing.benchmark;
+
+import com.ticketing.repository.EventRepository;
+import com.ticketing.service.BookingWriteBehind;
+import com.ticketing.service.EventCatalog;
+import com.ticketing.service.EventOwnership;
+import com.ticketing.service.SeatAvailabilityIndex;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Several instances of the application in one JVM, each on its own port and
+ * all sharing one database - a local stand-in for a multi-node deployment.
+ *
+ *   partitioned  - ticketing.cluster.* set on every node: each event has an
+ *                  owner, other nodes redirect to it, and the owner books
+ *                  in memory and writes behind
+ *   shared       - independent instances that all claim seats in the shared
+ *                  database, the way the application scales out otherwise
+ *
+ * The first node creates the schema (and drops it on close); the others use
+ * it as they find it.
+ *
+ * To poke at a cluster by hand:
+ *
+ *   mvn -Pbenchmark test-compile exec:exec -Djmh.main=com.ticketing.benchmark.ClusterHarness -Djmh.args="3 partitioned"
+ */
+final class ClusterHarness implements AutoCloseable {
+
+    private final List<ConfigurableApplicationContext> nodes = new ArrayList<>();
+    private final List<String> urls = new ArrayList<>();
+
+    private ClusterHarness() {}
+
+    /**
+     * @param database as for Benchmarks.start, shared by every node
+     */
+    static ClusterHarness start(int nodeCount, boolean partitioned, String database) {
+        ClusterHarness cluster = new ClusterHarness();
+        List<Integer> ports = new ArrayList<>();
+        for (int i = 0; i < nodeCount; i++) {
+            ports.add(freePort());
+            cluster.urls.add("http://localhost:" + ports.get(i));
+        }
+
+        try {
+            for (int i = 0; i < nodeCount; i++) {
+                List<String> properties = new ArrayList<>(List.of(
+                        "server.port=" + ports.get(i),
+                        "spring.jpa.hibernate.ddl-auto=" + (i == 0 ? "create-drop" : "none"),
+                        "ticketing.cluster.enabled=" + partitioned,
+                        "ticketing.cluster.nodes=" + String.join(",", cluster.urls),
+                        "ticketing.cluster.self=" + cluster.urls.get(i)));
+                cluster.nodes.add(Benchmarks.start(database, WebApplicationType.SERVLET, properties));
+            }
+        } catch (RuntimeException ex) {
+            cluster.close();
+            throw ex;
+        }
+        return cluster;
+    }
+
+    List<String> urls() {
+        return urls;
+    }
+
+    ConfigurableApplicationContext node(int i) {
+        return nodes.get(i);
+    }
+
+    /**
+     * Creates an event with the given number of free seats and makes every
+     * node aware of it.
+     *
+     * @return the seat ids, ascending
+     */
+    long[] createEvent(int seatCount) {
+        long[] seatIds = Benchmarks.createEvent(nodes.get(0), seatCount);
+        Long eventId = nodes.get(0).getBean(SeatAvailabilityIndex.class).eventIdOf(seatIds[0]);
+        for (ConfigurableApplicationContext node : nodes.subList(1, nodes.size())) {
+            node.getBean(SeatAvailabilityIndex.class).load(eventId);
+            node.getBean(EventCatalog.class).refresh();
+        }
+        return seatIds;
+    }
+
+    /**
+     * @return the base URL of the node that owns the event
+     */
+    String ownerOf(Long eventId) {
+        return nodes.get(0).getBean(EventOwnership.class).ownerOf(eventId);
+    }
+
+    /**
+     * Blocks until every booking confirmed so far has reached the database.
+     */
+    void awaitWritten() throws InterruptedException {
+        for (ConfigurableApplicationContext node : nodes) {
+            BookingWriteBehind writeBehind = node.getBean(BookingWriteBehind.class);
+            while (writeBehind.pending() > 0) {
+                Thread.sleep(10);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        // The first node owns the schema, so it goes last
+        for (int i = nodes.size() - 1; i >= 0; i--) {
+            nodes.get(i).close();
+        }
+        nodes.clear();
+    }
+
+    private static int freePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Starts a cluster on H2 and keeps it running until the JVM is stopped.
+     *
+     * @param args node count (default 3), "partitioned" or "shared" (default partitioned)
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int nodeCount = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        boolean partitioned = args.length < 2 || args[1].equals("partitioned");
+
+        // Each node closes itself on Ctrl-C (Spring's shutdown hook)
+        ClusterHarness cluster = start(nodeCount, partitioned, "h2");
+        System.out.println((partitioned ? "Partitioned" : "Shared") + " cluster of " + nodeCount + " nodes:");
+        for (String url : cluster.urls()) {
+            System.out.println("  " + url);
+        }
+        if (partitioned) {
+            for (Long eventId : cluster.node(0).getBean(EventRepository.class).findAllIds()) {
+                System.out.println("  event " + eventId + " -> " + cluster.ownerOf(eventId));
+            }
+        }
+        System.out.println("Ctrl-C to stop");
+        Thread.currentThread().join();
+    }
+}
@@ -0,0 +1,90 @@
+package com.ticketing.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ticketing.exception.GlobalExceptionHandler;
+import com.ticketing.exception.SeatAlreadyBookedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of turning a lost seat into a 409 body - the most common response
+ * during an on-sale. Run with the GC profiler to see bytes per response:
+ *
+ *   mvn -Pbenchmark test-compile exec:exec -Djmh.args="ConflictResponse -prof gc"
+ *
+ * and compare gc.alloc.rate.norm between:
+ *
+ *   mapBody       - how 409s used to be made: an exception with a full stack
+ *                   trace, a HashMap body and a fresh timestamp, serialized
+ *                   by Jackson
+ *   preparedBody  - GlobalExceptionHandler today: the shared stackless
+ *                   exception and a pre-serialized body
+ *
+ * The exception is thrown from {@code depth} frames down, since filling in a
+ * stack trace costs in proportion to the stack; a request thread in Tomcat
+ * and Spring MVC is well over 100 frames deep by the time it reaches a
+ * service.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConflictResponseBenchmark {
+
+    @Param({"20", "150"})
+    public int depth;
+
+    private final GlobalExceptionHandler handler = new GlobalExceptionHandler(new SimpleMeterRegistry());
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private long seatId = 1;
+
+    @Benchmark
+    public byte[] mapBody() throws Exception {
+        try {
+            throwAt(depth, true);
+            return null;
+        } catch (LegacySeatAlreadyBookedException ex) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("status", 409);
+            error.put("error", "Seat Unavailable");
+            error.put("message", ex.getMessage());
+            error.put("timestamp", LocalDateTime.now().toString());
+            return objectMapper.writeValueAsBytes(error);
+        }
+    }
+
+    @Benchmark
+    public byte[] preparedBody() throws Exception {
+        try {
+            throwAt(depth, false);
+            return null;
+        } catch (SeatAlreadyBookedException ex) {
+            return handler.handleSeatAlreadyBooked(ex).getBody();
+        }
+    }
+
+    private void throwAt(int frames, boolean legacy) {
+        if (frames > 0) {
+            throwAt(frames - 1, legacy);
+            return;
+        }
+        throw legacy ? new LegacySeatAlreadyBookedException(seatId++) : SeatAlreadyBookedException.BOOKED;
+    }
+
+    /**
+     * SeatAlreadyBookedException as it was: a plain RuntimeException.
+     */
+    static class LegacySeatAlreadyBookedException extends RuntimeException {
+
+        LegacySeatAlreadyBookedException(Long seatId) {
+            super("Seat " + seatId + " is already booked");
+        }
+    }
+}
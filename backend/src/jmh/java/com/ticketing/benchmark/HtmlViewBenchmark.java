@@ -0,0 +1,65 @@
+package com.ticketing.benchmark;
+
+import com.ticketing.service.SeatAvailabilityIndex;
+import com.ticketing.service.SeatMapCache;
+import com.ticketing.service.SeatMapPageCache;
+import com.ticketing.util.HtmlJsonRenderer;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a /view seat map page, at the demo size (30), a theatre (5k) and
+ * a stadium (60k).
+ *
+ *   renderedPage - HtmlJsonRenderer writing the page from the seat map
+ *                  cache to a null stream, as on a page cache miss
+ *   cachedPage   - GET /view/events/{id}/seats while nothing changed:
+ *                  SeatMapPageCache hands back the page rendered last time
+ *
+ * Run with -prof gc to compare bytes allocated per page.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HtmlViewBenchmark {
+
+    @Param({"30", "5000", "60000"})
+    public int seats;
+
+    private ConfigurableApplicationContext context;
+    private SeatMapCache seatMapCache;
+    private SeatMapPageCache seatMapPages;
+    private Long eventId;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = Benchmarks.start("h2");
+        seatMapCache = context.getBean(SeatMapCache.class);
+        seatMapPages = context.getBean(SeatMapPageCache.class);
+        long[] seatIds = Benchmarks.createEvent(context, seats);
+        eventId = context.getBean(SeatAvailabilityIndex.class).eventIdOf(seatIds[0]);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public void renderedPage() throws IOException {
+        HtmlJsonRenderer.write("Seats for Event " + eventId, seatMapCache.getSeats(eventId),
+                OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public byte[] cachedPage() {
+        return seatMapPages.getPage(eventId, seatMapPages.version(eventId));
+    }
+}
@@ -0,0 +1,97 @@
+package com.ticketing.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test for the web layer: 1,000 concurrent clients booking random seats
+ * over HTTP, against Tomcat's default 200-thread pool.
+ *
+ * Every JDBC round trip is delayed by dbLatencyMs (see
+ * SimulatedNetworkLatency) so requests block the way they would against a
+ * remote Postgres. Compare throughput and the p99 of the sample-time
+ * results across ticketing.db.* settings. The Responses counters show how
+ * many requests were booked (200), lost the seat (409) or turned away by
+ * the database bulkhead (503).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+@Threads(1000)
+public class HttpLoadBenchmark {
+
+    @Param("2")
+    public int dbLatencyMs;
+
+    @Param("200000")
+    public int seats;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private String baseUrl;
+    private long[] seatIds;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Responses {
+        public long booked;
+        public long conflict;
+        public long busy;
+        public long other;
+
+        @Setup(Level.Iteration)
+        public void clear() {
+            booked = conflict = busy = other = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = Benchmarks.start("h2", WebApplicationType.SERVLET,
+                List.of("benchmark.db-latency-ms=" + dbLatencyMs),
+                SimulatedNetworkLatency.class);
+        baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        seatIds = Benchmarks.createEvent(context, seats);
+        client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+    }
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        Benchmarks.resetEvent(context, seatIds[0], false);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public int bookRandomSeat(Responses responses) throws Exception {
+        long seatId = seatIds[ThreadLocalRandom.current().nextInt(seatIds.length)];
+        HttpRequest request = HttpRequest.newBuilder(
+                        URI.create(baseUrl + "/api/seats/" + seatId + "/book?customerName=load"))
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build();
+        int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        switch (status) {
+            case 200 -> responses.booked++;
+            case 409 -> responses.conflict++;
+            case 503 -> responses.busy++;
+            default -> responses.other++;
+        }
+        return status;
+    }
+}
@@ -0,0 +1,61 @@
+package com.ticketing.benchmark;
+
+import com.ticketing.controller.BookingController;
+import com.ticketing.exception.SeatAlreadyBookedException;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a client retrying a booking that already went through, e.g.
+ * after its first response timed out.
+ *
+ *   retryWithKey    - same Idempotency-Key: the original booking comes back
+ *                     from the IdempotencyStore
+ *   retryWithoutKey - no key: the retry is a new booking attempt and ends
+ *                     in a 409 for the customer's own seat
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class IdempotentRetryBenchmark {
+
+    @Param({"h2"})
+    public String database;
+
+    private ConfigurableApplicationContext context;
+    private BookingController bookingController;
+    private long seatId;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = Benchmarks.start(database);
+        bookingController = context.getBean(BookingController.class);
+        seatId = Benchmarks.createEvent(context, 100)[0];
+        bookingController.bookSeat(seatId, "benchmark", "retry-key");
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object retryWithKey() {
+        return bookingController.bookSeat(seatId, "benchmark", "retry-key");
+    }
+
+    @Benchmark
+    public Object retryWithoutKey() {
+        try {
+            return bookingController.bookSeat(seatId, "benchmark", null);
+        } catch (SeatAlreadyBookedException ex) {
+            return ex;
+        }
+    }
+}
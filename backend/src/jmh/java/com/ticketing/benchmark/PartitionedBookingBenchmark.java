@@ -0,0 +1,116 @@
+package com.ticketing.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Booking throughput of a local cluster (see ClusterHarness), shared vs.
+ * partitioned, with clients sending each request to a random node.
+ *
+ * In shared mode every node claims seats in the common database. In
+ * partitioned mode a request that lands on the wrong node is redirected
+ * (the client follows the 307), and the owner books in memory and writes
+ * behind. After each trial the database is checked: every booked seat must
+ * have exactly one booking.
+ *
+ * All nodes run in this JVM, so this compares the code paths, not the
+ * hardware scaling; point -p database=postgres at a real server for
+ * numbers closer to production.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@Threads(32)
+public class PartitionedBookingBenchmark {
+
+    @Param({"shared", "partitioned"})
+    public String mode;
+
+    @Param({"h2"})
+    public String database;
+
+    @Param("3")
+    public int nodes;
+
+    @Param("6")
+    public int events;
+
+    @Param("20000")
+    public int seatsPerEvent;
+
+    private ClusterHarness cluster;
+    private HttpClient client;
+    private long[][] seatIds;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Responses {
+        public long booked;
+        public long conflict;
+        public long other;
+
+        @Setup(Level.Iteration)
+        public void clear() {
+            booked = conflict = other = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void start() {
+        cluster = ClusterHarness.start(nodes, mode.equals("partitioned"), database);
+        seatIds = new long[events][];
+        for (int i = 0; i < events; i++) {
+            seatIds[i] = cluster.createEvent(seatsPerEvent);
+        }
+        client = HttpClient.newBuilder()
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws InterruptedException {
+        try {
+            cluster.awaitWritten();
+            JdbcTemplate jdbc = cluster.node(0).getBean(JdbcTemplate.class);
+            Integer booked = jdbc.queryForObject("select count(*) from seats where booked = true", Integer.class);
+            Integer bookings = jdbc.queryForObject("select count(*) from bookings", Integer.class);
+            if (!booked.equals(bookings)) {
+                throw new IllegalStateException(booked + " seats booked but " + bookings + " bookings written");
+            }
+        } finally {
+            cluster.close();
+        }
+    }
+
+    @Benchmark
+    public int bookRandomSeat(Responses responses) throws Exception {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long[] event = seatIds[random.nextInt(events)];
+        long seatId = event[random.nextInt(event.length)];
+        List<String> urls = cluster.urls();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(
+                        urls.get(random.nextInt(urls.size())) + "/api/seats/" + seatId + "/book?customerName=load"))
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build();
+        int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        switch (status) {
+            case 200 -> responses.booked++;
+            case 409 -> responses.conflict++;
+            default -> responses.other++;
+        }
+        return status;
+    }
+}
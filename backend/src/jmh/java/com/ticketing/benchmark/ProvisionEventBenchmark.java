@@ -0,0 +1,90 @@
+package com.ticketing.benchmark;
+
+import com.ticketing.dto.VenueLayout;
+import com.ticketing.entity.Event;
+import com.ticketing.entity.Seat;
+import com.ticketing.repository.EventRepository;
+import com.ticketing.service.EventProvisioner;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to create one event with a large seat map:
+ *
+ *   cascadeSave  - how DataInitializer used to do it: addSeat() for every
+ *                  seat, then one cascading eventRepository.save
+ *   provision    - EventProvisioner: sequence ids and chunked JDBC batches
+ *
+ * Each layout is 100 seats per row, 50 rows per section. Every JDBC round
+ * trip is delayed by dbLatencyMs (see SimulatedNetworkLatency); at 0, H2
+ * answers in microseconds and the difference is mostly the persistence
+ * context.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class ProvisionEventBenchmark {
+
+    @Param({"h2"})
+    public String database;
+
+    @Param({"100000"})
+    public int seats;
+
+    @Param({"0", "1"})
+    public int dbLatencyMs;
+
+    private ConfigurableApplicationContext context;
+    private VenueLayout layout;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = Benchmarks.start(database, WebApplicationType.NONE,
+                List.of("benchmark.db-latency-ms=" + dbLatencyMs), SimulatedNetworkLatency.class);
+        List<VenueLayout.Section> sections = new ArrayList<>();
+        for (int row = 0; row < seats / 100; row++) {
+            if (row % 50 == 0) {
+                sections.add(new VenueLayout.Section("S" + (row / 50 + 1), new ArrayList<>()));
+            }
+            sections.get(sections.size() - 1).rows().add(new VenueLayout.Row("R" + (row % 50 + 1), 1, 100));
+        }
+        layout = new VenueLayout("Benchmark " + seats, LocalDateTime.now().plusMonths(1), "Benchmark Arena",
+                sections);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public Long cascadeSave() {
+        EventRepository eventRepository = context.getBean(EventRepository.class);
+        return context.getBean(TransactionTemplate.class).execute(status -> {
+            Event event = new Event(layout.name(), layout.eventDate(), layout.venue());
+            for (VenueLayout.Section section : layout.sections()) {
+                for (VenueLayout.Row row : section.rows()) {
+                    for (int number = row.firstSeat(); number <= row.lastSeat(); number++) {
+                        event.addSeat(new Seat(section.name(), row.label(), number, event));
+                    }
+                }
+            }
+            return eventRepository.save(event).getId();
+        });
+    }
+
+    @Benchmark
+    public Long provision() {
+        return context.getBean(EventProvisioner.class).provision(layout);
+    }
+}
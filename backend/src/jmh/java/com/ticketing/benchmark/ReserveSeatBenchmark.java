@@ -0,0 +1,106 @@
+package com.ticketing.benchmark;
+
+import com.ticketing.exception.ConcurrentBookingException;
+import com.ticketing.exception.SeatAlreadyBookedException;
+import com.ticketing.service.BookingService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Throughput of BookingService.reserveSeat, end to end: availability index,
+ * conditional UPDATE, booking insert, cache and push updates.
+ *
+ * Scenarios:
+ *   hotSeat - every thread goes for the same seat; whoever wins moves
+ *             everyone on to the next one, so each call is a real race
+ *   uniform - each call picks a random seat (the event is reset every
+ *             iteration, so most of them are still free)
+ *   soldOut - every seat is already booked; measures the rejection path
+ *
+ * Modes:
+ *   direct  - every booking commits its own transaction (the default)
+ *   journal - bookings are decided in memory, group-committed to a local
+ *             journal and written to the database in batches
+ *             (-p mode=direct,journal to compare)
+ *
+ * Run with -t to change the number of concurrent bookers (default 8).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class ReserveSeatBenchmark {
+
+    @Param({"h2", "h2-postgres"})
+    public String database;
+
+    @Param({"hotSeat", "uniform", "soldOut"})
+    public String scenario;
+
+    @Param("200000")
+    public int seats;
+
+    @Param("direct")
+    public String mode;
+
+    private Path journalDir;
+    private ConfigurableApplicationContext context;
+    private BookingService bookingService;
+    private long[] seatIds;
+    private final AtomicInteger hotSeat = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void start() throws IOException {
+        journalDir = Files.createTempDirectory("booking-journal");
+        context = Benchmarks.start(database, WebApplicationType.NONE, List.of(
+                "ticketing.booking.mode=" + mode,
+                "ticketing.booking.journal.dir=" + journalDir));
+        bookingService = context.getBean(BookingService.class);
+        seatIds = Benchmarks.createEvent(context, seats);
+    }
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        Benchmarks.resetEvent(context, seatIds[0], scenario.equals("soldOut"));
+        hotSeat.set(0);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws IOException {
+        context.close();
+        try (Stream<Path> files = Files.list(journalDir)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(journalDir);
+    }
+
+    @Benchmark
+    public Object reserveSeat() {
+        boolean hot = scenario.equals("hotSeat");
+        int ordinal = hot ? hotSeat.get() % seatIds.length : ThreadLocalRandom.current().nextInt(seatIds.length);
+        try {
+            Object booking = bookingService.reserveSeat(seatIds[ordinal], "benchmark");
+            if (hot) {
+                hotSeat.compareAndSet(ordinal, ordinal + 1);
+            }
+            return booking;
+        } catch (SeatAlreadyBookedException | ConcurrentBookingException ex) {
+            return ex;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.ticketing.benchmark;
+
+import com.ticketing.dto.SeatView;
+import com.ticketing.entity.Seat;
+import com.ticketing.repository.SeatRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.jpa.HibernateHints;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading a whole seat map from the database, the way the index and the
+ * seat map cache do on a miss:
+ *
+ *   managedEntities   - Seat entities in a read-write transaction, as with
+ *                       open-session-in-view: every row is snapshotted and
+ *                       dirty-checked again at commit
+ *   readOnlyEntities  - the same with Hibernate's read-only hint: no
+ *                       snapshots, but still one managed entity per row
+ *   projection        - SeatRepository.findViewsByEventId: SeatView records,
+ *                       nothing managed
+ *
+ * Run with -prof gc to compare bytes allocated per read.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SeatMapReadBenchmark {
+
+    private static final String SEATS_OF_EVENT = "select s from Seat s where s.event.id = :eventId order by s.id";
+
+    @Param({"h2"})
+    public String database;
+
+    @Param({"60000"})
+    public int seats;
+
+    private ConfigurableApplicationContext context;
+    private EntityManagerFactory entityManagerFactory;
+    private SeatRepository seatRepository;
+    private Long eventId;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = Benchmarks.start(database);
+        entityManagerFactory = context.getBean(EntityManagerFactory.class);
+        seatRepository = context.getBean(SeatRepository.class);
+        long[] seatIds = Benchmarks.createEvent(context, seats);
+        eventId = seatRepository.findById(seatIds[0]).orElseThrow().getEvent().getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Seat> managedEntities() {
+        return readEntities(false);
+    }
+
+    @Benchmark
+    public List<Seat> readOnlyEntities() {
+        return readEntities(true);
+    }
+
+    @Benchmark
+    public List<SeatView> projection() {
+        return seatRepository.findViewsByEventId(eventId, LocalDateTime.now());
+    }
+
+    private List<Seat> readEntities(boolean readOnly) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            entityManager.getTransaction().begin();
+            List<Seat> result = entityManager.createQuery(SEATS_OF_EVENT, Seat.class)
+                    .setParameter("eventId", eventId)
+                    .setHint(HibernateHints.HINT_READ_ONLY, readOnly)
+                    .getResultList();
+            entityManager.getTransaction().commit();
+            return result;
+        } finally {
+            entityManager.close();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.ticketing.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ticketing.controller.EventController;
+import com.ticketing.repository.SeatRepository;
+import com.ticketing.service.SeatStreamWriter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of serving an event's seat map, at the demo size (30), a theatre (5k)
+ * and a stadium (60k).
+ *
+ *   cachedSeatMap       - EventController.getSeatsForEvent (seat map cache)
+ *                         serialized to JSON, i.e. GET /api/events/{id}/seats
+ *   notModifiedSeatMap  - the same GET polled with the ETag of the last
+ *                         response in If-None-Match while nothing changed (304)
+ *   uncachedSeatMap     - the same JSON straight from the database query
+ *   streamedSeatMap     - GET /api/events/{id}/seats/stream: the query read
+ *                         through a cursor and written out seat by seat
+ *                         (to a null stream; run with -prof gc to compare
+ *                         bytes allocated per request with uncachedSeatMap)
+ *   availabilityBitmap  - GET /api/events/{id}/seats/availability
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SeatMapSerializationBenchmark {
+
+    @Param({"30", "5000", "60000"})
+    public int seats;
+
+    private ConfigurableApplicationContext context;
+    private EventController eventController;
+    private SeatRepository seatRepository;
+    private SeatStreamWriter seatStreamWriter;
+    private ObjectMapper objectMapper;
+    private Long eventId;
+    private String etag;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = Benchmarks.start("h2");
+        eventController = context.getBean(EventController.class);
+        seatRepository = context.getBean(SeatRepository.class);
+        seatStreamWriter = context.getBean(SeatStreamWriter.class);
+        objectMapper = context.getBean(ObjectMapper.class);
+        long[] seatIds = Benchmarks.createEvent(context, seats);
+        eventId = seatRepository.findById(seatIds[0]).orElseThrow().getEvent().getId();
+        etag = eventController.getSeatsForEvent(eventId, request(null)).getHeaders().getETag();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] cachedSeatMap() throws Exception {
+        return objectMapper.writeValueAsBytes(eventController.getSeatsForEvent(eventId, request(null)).getBody());
+    }
+
+    @Benchmark
+    public Object notModifiedSeatMap() {
+        return eventController.getSeatsForEvent(eventId, request(etag));
+    }
+
+    @Benchmark
+    public byte[] uncachedSeatMap() throws Exception {
+        return objectMapper.writeValueAsBytes(seatRepository.findViewsByEventId(eventId, LocalDateTime.now()));
+    }
+
+    @Benchmark
+    public void streamedSeatMap() {
+        seatStreamWriter.write(eventId, OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public byte[] availabilityBitmap() {
+        return eventController.getSeatAvailability(eventId, -1).getBody();
+    }
+
+    private static WebRequest request(String ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return new ServletWebRequest(request, new MockHttpServletResponse());
+    }
+}
@@ -0,0 +1,66 @@
+package com.ticketing.benchmark;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.Set;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Makes an in-memory database behave like one across the network: every
+ * statement execution, commit and rollback waits benchmark.db-latency-ms
+ * first. Without it H2 answers in microseconds and requests never block,
+ * which hides exactly the cost the thread-model comparison is about.
+ *
+ * Registered as an extra source by the benchmarks that need it.
+ */
+class SimulatedNetworkLatency implements BeanPostProcessor, EnvironmentAware {
+
+    private static final Set<String> ROUND_TRIPS = Set.of(
+            "execute", "executeQuery", "executeUpdate", "executeLargeUpdate",
+            "executeBatch", "executeLargeBatch", "commit", "rollback");
+
+    private long latencyNanos;
+
+    @Override
+    public void setEnvironment(Environment environment) {
+        latencyNanos = environment.getProperty("benchmark.db-latency-ms", Long.class, 0L) * 1_000_000;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource && latencyNanos > 0) {
+            return proxy(DataSource.class, dataSource);
+        }
+        return bean;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T proxy(Class<T> type, T target) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (ROUND_TRIPS.contains(method.getName())) {
+                LockSupport.parkNanos(latencyNanos);
+            }
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException ex) {
+                throw ex.getCause();
+            }
+            // Follow the JDBC objects that talk to the database
+            Class<?> returned = method.getReturnType();
+            if (result != null && (returned == Connection.class || Statement.class.isAssignableFrom(returned))) {
+                return proxy((Class<Object>) returned, result);
+            }
+            return result;
+        };
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, handler);
+    }
+}
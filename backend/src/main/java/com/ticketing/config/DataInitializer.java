@@ -1,12 +1,16 @@
 package com.ticketing.config;
 
-import com.ticketing.entity.Event;
+import com.ticketing.dto.VenueLayout;
 import com.ticketing.entity.Seat;
 import com.ticketing.repository.EventRepository;
+import com.ticketing.repository.SeatRepository;
+import com.ticketing.service.EventProvisioner;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Seeds the database with sample data on application startup.
@@ -16,32 +20,33 @@ import java.time.LocalDateTime;
 public class DataInitializer implements CommandLineRunner {
 
     private final EventRepository eventRepository;
+    private final SeatRepository seatRepository;
+    private final EventProvisioner eventProvisioner;
 
-    public DataInitializer(EventRepository eventRepository) {
+    public DataInitializer(EventRepository eventRepository, SeatRepository seatRepository,
+            EventProvisioner eventProvisioner) {
         this.eventRepository = eventRepository;
+        this.seatRepository = seatRepository;
+        this.eventProvisioner = eventProvisioner;
     }
 
     @Override
     public void run(String... args) {
         // If database is empty, seed it
         if (eventRepository.count() == 0) {
-            // Create a sample event
-            Event concert = new Event(
+            // Create a sample event with a 5x6 grid of seats (30 seats total)
+            List<VenueLayout.Row> rows = new ArrayList<>();
+            for (String row : new String[] { "A", "B", "C", "D", "E" }) {
+                rows.add(new VenueLayout.Row(row, 1, 6));
+            }
+            VenueLayout concert = new VenueLayout(
                     "A Knight of the Seven Kingdoms",
                     LocalDateTime.of(2026, 3, 15, 19, 0),
-                    "HBO Max Theater");
-
-            // Create a 5x6 grid of seats (30 seats total)
-            String[] rows = { "A", "B", "C", "D", "E" };
-            for (String row : rows) {
-                for (int num = 1; num <= 6; num++) {
-                    Seat seat = new Seat(row + num, concert);
-                    concert.addSeat(seat);
-                }
-            }
+                    "HBO Max Theater",
+                    List.of(new VenueLayout.Section(null, rows)));
 
-            eventRepository.save(concert);
-            System.out.println("✅ Database seeded with event: " + concert.getName());
+            eventProvisioner.provision(concert);
+            System.out.println("✅ Database seeded with event: " + concert.name());
         } else {
             // Update existing event for the demo if it's the old name
             eventRepository.findAll().stream().findFirst().ifPresent(event -> {
@@ -52,6 +57,11 @@ public class DataInitializer implements CommandLineRunner {
                     System.out.println("✅ Updated existing event to: " + event.getName());
                 }
             });
+
+            // Seats created before rows and numbers were stored
+            List<Seat> unparsed = seatRepository.findByRowLabelIsNull();
+            unparsed.forEach(Seat::parseSeatNumber);
+            seatRepository.saveAll(unparsed);
         }
     }
 }
@@ -0,0 +1,52 @@
+package com.ticketing.config;
+
+import com.ticketing.service.EventOwnership;
+import com.ticketing.service.SeatAvailabilityIndex;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.cors.CorsUtils;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Partitioned mode: sends every request for an event to the node that owns
+ * it (see EventOwnership).
+ *
+ * A load balancer that routes on event id gets requests to the right node
+ * directly. Anything that lands elsewhere gets a 307 Temporary Redirect to
+ * the same URL on the owner - 307 keeps the method and body, so a POST to
+ * book a seat is replayed as a POST. The owner is also named in the
+ * X-Event-Owner header so clients can go straight there next time.
+ */
+public class EventRoutingInterceptor implements HandlerInterceptor {
+
+    public static final String EVENT_OWNER_HEADER = "X-Event-Owner";
+
+    private final EventOwnership ownership;
+    private final SeatAvailabilityIndex availabilityIndex;
+
+    public EventRoutingInterceptor(EventOwnership ownership, SeatAvailabilityIndex availabilityIndex) {
+        this.ownership = ownership;
+        this.availabilityIndex = availabilityIndex;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (CorsUtils.isPreFlightRequest(request)) {
+            return true;
+        }
+        Long eventId = WaitingRoomInterceptor.eventIdOf(request, availabilityIndex);
+        // Unknown events and seats are left to the controller to reject
+        if (eventId == null || ownership.isLocal(eventId)) {
+            return true;
+        }
+
+        String owner = ownership.ownerOf(eventId);
+        String query = request.getQueryString();
+        response.setStatus(HttpStatus.TEMPORARY_REDIRECT.value());
+        response.setHeader(HttpHeaders.LOCATION, owner + request.getRequestURI() + (query != null ? "?" + query : ""));
+        response.setHeader(EVENT_OWNER_HEADER, owner);
+        return false;
+    }
+}
@@ -0,0 +1,149 @@
+package com.ticketing.config;
+
+import com.ticketing.util.ReadRouting;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides which requests may read from the replica, and makes sure a
+ * customer sees their own booking straight after making it.
+ *
+ * KEY CONCEPT: Read-your-writes with a session token. Every write request
+ * (anything but GET, HEAD and OPTIONS) gets a cookie carrying the primary's
+ * write position once the request's writes have committed (see
+ * ReplicationPosition). A GET of /api/events/** or /view/** reads from the
+ * replica only when it carries no such cookie, or the replica has replayed
+ * up to that position; until then it reads from the primary. Other
+ * customers don't pay for it - they keep reading from the replica, a
+ * moment behind.
+ *
+ * The cookie also carries now + ticketing.datasource.replica.max-lag-ms,
+ * used only when a position can't be read on either side: then the request
+ * reads from the primary until that time has passed. Time is all there is
+ * with write-behind on, where a booking reaches the primary a batch after
+ * the request that made it, so max-lag-ms has to cover the flush interval
+ * as well as the replica's lag.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    public static final String READ_PRIMARY_COOKIE = "ticketing-read-primary";
+
+    // Long enough for any replica that is replicating at all to catch up
+    private static final int POSITION_COOKIE_MAX_AGE = (int) TimeUnit.HOURS.toSeconds(1);
+
+    private final ReplicationPosition positions;
+    private final long maxLagMillis;
+
+    /**
+     * @param positions null to go by max-lag-ms alone
+     */
+    public ReadYourWritesFilter(ReplicationPosition positions, long maxLagMillis) {
+        this.positions = positions;
+        this.maxLagMillis = maxLagMillis;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String method = request.getMethod();
+        boolean read = "GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method);
+        if (!read) {
+            write(request, response, chain);
+            return;
+        }
+        if (!isPageView(request) || mustReadPrimary(request)) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        Boolean previous = ReadRouting.allowReplica(true);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ReadRouting.restore(previous);
+        }
+    }
+
+    private void write(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long until = System.currentTimeMillis() + maxLagMillis;
+        if (positions == null) {
+            // Before the chain: the response may be committed by the time it returns
+            response.addCookie(cookie(Long.toString(until), (int) Math.max(1, (maxLagMillis + 999) / 1000)));
+            chain.doFilter(request, response);
+            return;
+        }
+
+        // The position is only known once the writes have committed, so hold
+        // the response back until the cookie is on it
+        ContentCachingResponseWrapper held = new ContentCachingResponseWrapper(response);
+        try {
+            chain.doFilter(request, held);
+        } finally {
+            long position = positions.afterWrite();
+            if (position == ReplicationPosition.UNKNOWN) {
+                held.addCookie(cookie(Long.toString(until), (int) Math.max(1, (maxLagMillis + 999) / 1000)));
+            } else {
+                held.addCookie(cookie(until + "." + position, POSITION_COOKIE_MAX_AGE));
+            }
+            held.copyBodyToResponse();
+        }
+    }
+
+    private static Cookie cookie(String value, int maxAgeSeconds) {
+        Cookie cookie = new Cookie(READ_PRIMARY_COOKIE, value);
+        cookie.setPath("/");
+        cookie.setMaxAge(maxAgeSeconds);
+        cookie.setHttpOnly(true);
+        return cookie;
+    }
+
+    private static boolean isPageView(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return path.startsWith("/api/events") || path.startsWith("/view/");
+    }
+
+    private boolean mustReadPrimary(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return false;
+        }
+        for (Cookie cookie : cookies) {
+            if (READ_PRIMARY_COOKIE.equals(cookie.getName())) {
+                return mustReadPrimary(cookie.getValue());
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param value "until" or "until.position"
+     */
+    private boolean mustReadPrimary(String value) {
+        long until;
+        long position;
+        try {
+            int dot = value.indexOf('.');
+            until = Long.parseLong(dot < 0 ? value : value.substring(0, dot));
+            position = dot < 0 ? ReplicationPosition.UNKNOWN : Long.parseLong(value.substring(dot + 1));
+        } catch (NumberFormatException ex) {
+            // Not ours; play safe
+            return true;
+        }
+        if (position != ReplicationPosition.UNKNOWN && positions != null) {
+            Boolean reached = positions.replicaHasReached(position);
+            if (reached != null) {
+                return !reached;
+            }
+        }
+        return until > System.currentTimeMillis();
+    }
+}
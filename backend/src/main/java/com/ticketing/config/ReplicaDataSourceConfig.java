@@ -0,0 +1,100 @@
+package com.ticketing.config;
+
+import com.ticketing.service.BookingWriteBehind;
+import com.ticketing.util.ReadRouting;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Sends read-only transactions of seat and event page views to a read
+ * replica when ticketing.datasource.replica.url is set. Without it the
+ * application keeps Spring Boot's single data source.
+ *
+ * KEY CONCEPT: The connection is picked per transaction, not per query. A
+ * transaction goes to the replica only if it is read-only AND the
+ * ReadYourWritesFilter allowed it (ReadRouting); everything else - bookings,
+ * holds, the write-behind flusher, and the loads behind the index and the
+ * caches (ReadRouting.onPrimary) - uses the primary. The lazy proxy holds
+ * off fetching a connection until the first statement, by which time the
+ * transaction's read-only flag is known.
+ *
+ * Both pools take their settings from spring.datasource.hikari; the
+ * replica's connections are marked read-only as well.
+ */
+@Configuration
+@ConditionalOnProperty("ticketing.datasource.replica.url")
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource replicaDataSource(
+            @Value("${ticketing.datasource.replica.url}") String url,
+            @Value("${ticketing.datasource.replica.username:${spring.datasource.username:}}") String username,
+            @Value("${ticketing.datasource.replica.password:${spring.datasource.password:}}") String password) {
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(url)
+                .username(username)
+                .password(password)
+                .build();
+        dataSource.setPoolName("replica");
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+            @Qualifier("replicaDataSource") DataSource replica) {
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource();
+        routing.setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        routing.setDefaultTargetDataSource(primary);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    @Bean
+    public ReadYourWritesFilter readYourWritesFilter(@Qualifier("primaryDataSource") DataSource primary,
+            @Qualifier("replicaDataSource") DataSource replica, BookingWriteBehind writeBehind,
+            @Value("${ticketing.datasource.replica.max-lag-ms:2000}") long maxLagMillis) {
+        // With write-behind the position after a request doesn't cover its booking yet
+        ReplicationPosition positions = writeBehind.isEnabled() ? null : new ReplicationPosition(primary, replica);
+        return new ReadYourWritesFilter(positions, maxLagMillis);
+    }
+
+    private enum Target {
+        PRIMARY, REPLICA
+    }
+
+    private static final class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+        @Override
+        protected Object determineCurrentLookupKey() {
+            return TransactionSynchronizationManager.isCurrentTransactionReadOnly() && ReadRouting.isReplicaAllowed()
+                    ? Target.REPLICA
+                    : Target.PRIMARY;
+        }
+    }
+}
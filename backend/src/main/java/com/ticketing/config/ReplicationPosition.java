@@ -0,0 +1,128 @@
+package com.ticketing.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * How far the primary has written and how far the replica has replayed,
+ * as numbers that can be compared: a write is visible on the replica once
+ * the replica's position has reached the primary's position after it.
+ *
+ * On PostgreSQL these are WAL positions (pg_current_wal_lsn() on the
+ * primary, pg_last_wal_replay_lsn() on the standby). Other databases get
+ * the write_positions counter instead: afterWrite() moves it on the primary
+ * and the replica's copy of the row arrives with everything written before
+ * it. That costs every write request an UPDATE of the same row, so it is
+ * for development and tests rather than load.
+ *
+ * A position that can't be read comes back as UNKNOWN, and the caller
+ * falls back to waiting out ticketing.datasource.replica.max-lag-ms.
+ */
+public class ReplicationPosition {
+
+    public static final long UNKNOWN = -1;
+
+    static final int COUNTER_ID = 1;
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicationPosition.class);
+
+    private final JdbcTemplate primary;
+    private final JdbcTemplate replica;
+
+    // Decided on first use; the database isn't up when this is built
+    private volatile Boolean postgres;
+    // Replay only moves forward, so a position seen once stays reached
+    private final AtomicLong replicaReached = new AtomicLong(UNKNOWN);
+
+    public ReplicationPosition(DataSource primary, DataSource replica) {
+        this.primary = new JdbcTemplate(primary);
+        this.replica = new JdbcTemplate(replica);
+    }
+
+    /**
+     * @return the primary's position once the current request's writes
+     *         have committed; UNKNOWN if it can't be read
+     */
+    public long afterWrite() {
+        try {
+            if (isPostgres()) {
+                return lsn(primary.queryForObject("select pg_current_wal_lsn()::text", String.class));
+            }
+            if (primary.update("update write_positions set position = position + 1 where id = ?", COUNTER_ID) == 0) {
+                try {
+                    primary.update("insert into write_positions (id, position) values (?, 1)", COUNTER_ID);
+                } catch (DataIntegrityViolationException ex) {
+                    // Another request created it first
+                    primary.update("update write_positions set position = position + 1 where id = ?", COUNTER_ID);
+                }
+            }
+            // Never behind our own increment; may include later ones, which only makes the client wait longer
+            return counter(primary);
+        } catch (DataAccessException | MetaDataAccessException ex) {
+            log.debug("Could not read the primary's write position", ex);
+            return UNKNOWN;
+        }
+    }
+
+    /**
+     * @return whether the replica has replayed position; null if its
+     *         position can't be read
+     */
+    public Boolean replicaHasReached(long position) {
+        if (position <= replicaReached.get()) {
+            return true;
+        }
+        long reached;
+        try {
+            reached = isPostgres()
+                    ? lsn(replica.queryForObject("select pg_last_wal_replay_lsn()::text", String.class))
+                    : counter(replica);
+        } catch (DataAccessException | MetaDataAccessException ex) {
+            log.debug("Could not read the replica's replay position", ex);
+            return null;
+        }
+        if (reached == UNKNOWN) {
+            // Not a standby, or nothing replicated yet
+            return null;
+        }
+        return position <= replicaReached.accumulateAndGet(reached, Math::max);
+    }
+
+    private boolean isPostgres() throws MetaDataAccessException {
+        Boolean result = postgres;
+        if (result == null) {
+            String product = JdbcUtils.extractDatabaseMetaData(primary.getDataSource(),
+                    DatabaseMetaData::getDatabaseProductName);
+            result = "PostgreSQL".equals(product);
+            postgres = result;
+        }
+        return result;
+    }
+
+    private static long counter(JdbcTemplate database) {
+        List<Long> positions = database.queryForList("select position from write_positions where id = ?",
+                Long.class, COUNTER_ID);
+        return positions.isEmpty() ? UNKNOWN : positions.get(0);
+    }
+
+    /**
+     * "16/B374D848" as one number: the part before the slash is the high 32 bits.
+     */
+    static long lsn(String text) {
+        if (text == null) {
+            return UNKNOWN;
+        }
+        int slash = text.indexOf('/');
+        return (Long.parseLong(text.substring(0, slash), 16) << 32) | Long.parseLong(text.substring(slash + 1), 16);
+    }
+}
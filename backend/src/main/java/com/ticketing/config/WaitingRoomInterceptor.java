@@ -0,0 +1,89 @@
+package com.ticketing.config;
+
+import com.ticketing.repository.SeatRepository;
+import com.ticketing.service.SeatAvailabilityIndex;
+import com.ticketing.service.WaitingRoom;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Map;
+
+/**
+ * Checks the waiting room before a booking or hold request reaches the
+ * controller. Works out the event from the path, or from the seat id in
+ * memory, so requests that aren't admitted yet are turned away without
+ * touching the database. A seat the index doesn't know is looked up, and a
+ * request naming no known seat is rejected: nothing gets past unchecked.
+ */
+public class WaitingRoomInterceptor implements HandlerInterceptor {
+
+    private final WaitingRoom waitingRoom;
+    private final SeatAvailabilityIndex availabilityIndex;
+    private final SeatRepository seatRepository;
+
+    public WaitingRoomInterceptor(WaitingRoom waitingRoom, SeatAvailabilityIndex availabilityIndex,
+            SeatRepository seatRepository) {
+        this.waitingRoom = waitingRoom;
+        this.availabilityIndex = availabilityIndex;
+        this.seatRepository = seatRepository;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!"POST".equals(request.getMethod())) {
+            return true;
+        }
+        Long eventId = eventIdOf(request, availabilityIndex);
+        if (eventId == null) {
+            Long seatId = seatIdOf(request);
+            if (seatId == null) {
+                throw new IllegalArgumentException("No seat given");
+            }
+            // Not in the index yet (or at all)
+            eventId = seatRepository.findEventIdById(seatId)
+                    .orElseThrow(() -> new IllegalArgumentException("No such seat: " + seatId));
+        }
+        waitingRoom.admit(eventId, request.getHeader(WaitingRoom.QUEUE_TOKEN_HEADER));
+        return true;
+    }
+
+    /**
+     * The event from the path, or the event of the seat in the path or cart.
+     */
+    @SuppressWarnings("unchecked")
+    static Long eventIdOf(HttpServletRequest request, SeatAvailabilityIndex availabilityIndex) {
+        Map<String, String> pathVariables =
+                (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        String eventId = pathVariables != null ? pathVariables.get("eventId") : null;
+        if (eventId != null) {
+            try {
+                return Long.valueOf(eventId);
+            } catch (NumberFormatException ex) {
+                return null;
+            }
+        }
+        Long seatId = seatIdOf(request);
+        return seatId != null ? availabilityIndex.eventIdOf(seatId) : null;
+    }
+
+    /**
+     * The seat from the path, or the first seat of a cart (?seatIds=4,5,6).
+     */
+    @SuppressWarnings("unchecked")
+    static Long seatIdOf(HttpServletRequest request) {
+        Map<String, String> pathVariables =
+                (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        String seatId = pathVariables != null ? pathVariables.get("seatId") : null;
+        if (seatId == null) {
+            String seatIds = request.getParameter("seatIds");
+            seatId = seatIds != null ? seatIds.split(",")[0].trim() : null;
+        }
+        try {
+            return seatId != null ? Long.valueOf(seatId) : null;
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+}
@@ -1,18 +1,26 @@
 package com.ticketing.config;
 
+import com.ticketing.repository.SeatRepository;
+import com.ticketing.service.EventOwnership;
+import com.ticketing.service.SeatAvailabilityIndex;
+import com.ticketing.service.WaitingRoom;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 /**
- * Configures CORS to allow the React frontend to make API calls.
+ * Configures CORS to allow the React frontend to make API calls, routes
+ * event requests to their owner in partitioned mode, and puts the waiting
+ * room in front of the booking endpoints.
  */
 @Configuration
 public class WebConfig {
 
     @Bean
-    public WebMvcConfigurer corsConfigurer() {
+    public WebMvcConfigurer corsConfigurer(WaitingRoom waitingRoom, EventOwnership ownership,
+            SeatAvailabilityIndex availabilityIndex, SeatRepository seatRepository) {
         return new WebMvcConfigurer() {
             @Override
             public void addCorsMappings(CorsRegistry registry) {
@@ -22,6 +30,20 @@ public class WebConfig {
                         .allowedHeaders("*")
                         .allowCredentials(true);
             }
+
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                // First, so a request is admitted by the owner's waiting room, not ours
+                if (ownership.isEnabled()) {
+                    registry.addInterceptor(new EventRoutingInterceptor(ownership, availabilityIndex))
+                            .addPathPatterns("/api/events/*/**", "/api/seats/**", "/view/events/*/**");
+                }
+                if (waitingRoom.isEnabled()) {
+                    registry.addInterceptor(new WaitingRoomInterceptor(waitingRoom, availabilityIndex, seatRepository))
+                            .addPathPatterns("/api/seats/book", "/api/seats/*/book", "/api/seats/*/hold",
+                                    "/api/events/*/best-available");
+                }
+            }
         };
     }
 }
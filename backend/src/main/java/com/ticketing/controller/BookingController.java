@@ -1,25 +1,39 @@
 package com.ticketing.controller;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.ticketing.dto.SeatHold;
 import com.ticketing.entity.Booking;
 import com.ticketing.service.BookingService;
+import com.ticketing.service.IdempotencyStore;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 /**
  * REST controller for booking operations.
  * 
  * The key endpoint is POST /api/seats/{seatId}/book
  * This triggers the optimistic locking logic in BookingService.
+ * 
+ * Bookings can be sent with an Idempotency-Key header: a retry with the
+ * same key gets the original booking back instead of booking again (see
+ * IdempotencyStore).
  */
 @RestController
 @RequestMapping("/api/seats")
 @CrossOrigin(origins = "http://localhost:5173")
 public class BookingController {
 
+    static final TypeReference<Booking> BOOKING = new TypeReference<>() {};
+    static final TypeReference<List<Booking>> BOOKINGS = new TypeReference<>() {};
+
     private final BookingService bookingService;
+    private final IdempotencyStore idempotencyStore;
 
-    public BookingController(BookingService bookingService) {
+    public BookingController(BookingService bookingService, IdempotencyStore idempotencyStore) {
         this.bookingService = bookingService;
+        this.idempotencyStore = idempotencyStore;
     }
 
     /**
@@ -29,16 +43,89 @@ public class BookingController {
      * - One will succeed (returns 200 with booking details)
      * - One will fail (returns 409 Conflict)
      * 
-     * @param seatId       The seat to book
-     * @param customerName The customer's name
+     * @param seatId         The seat to book
+     * @param customerName   The customer's name
+     * @param idempotencyKey Optional; retries with the same key get the same booking
      * @return The booking details, or a 409 error
      */
     @PostMapping("/{seatId}/book")
     public ResponseEntity<Booking> bookSeat(
             @PathVariable Long seatId,
-            @RequestParam String customerName) {
+            @RequestParam String customerName,
+            @RequestHeader(value = IdempotencyStore.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+
+        Booking booking = idempotencyStore.execute(idempotencyKey, "book " + seatId + " for " + customerName,
+                BOOKING, () -> bookingService.reserveSeat(seatId, customerName));
+        return ResponseEntity.ok(booking);
+    }
+
+    /**
+     * Book several seats in one go (a cart of up to 8 seats).
+     * 
+     * Either every seat is booked, or none is and the response is a 409
+     * naming the seats that were already taken.
+     * 
+     * @param seatIds      The seats to book, e.g. ?seatIds=4,5,6
+     * @param customerName The customer's name
+     * @return One booking per seat, or a 409 error
+     */
+    @PostMapping("/book")
+    public ResponseEntity<List<Booking>> bookSeats(
+            @RequestParam List<Long> seatIds,
+            @RequestParam String customerName,
+            @RequestHeader(value = IdempotencyStore.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+
+        List<Booking> bookings = idempotencyStore.execute(idempotencyKey, "book " + seatIds + " for " + customerName,
+                BOOKINGS, () -> bookingService.reserveSeats(seatIds, customerName));
+        return ResponseEntity.ok(bookings);
+    }
+
+    /**
+     * Hold a seat while the customer checks out.
+     * 
+     * The seat can't be booked by anyone else until the hold is confirmed,
+     * released, or runs out.
+     * 
+     * @param seatId  The seat to hold
+     * @param minutes How long to hold it
+     * @return The hold token and its expiry time, or a 409 error
+     */
+    @PostMapping("/{seatId}/hold")
+    public ResponseEntity<SeatHold> holdSeat(
+            @PathVariable Long seatId,
+            @RequestParam(defaultValue = "10") int minutes) {
 
-        Booking booking = bookingService.reserveSeat(seatId, customerName);
+        SeatHold hold = bookingService.holdSeat(seatId, minutes);
+        return ResponseEntity.ok(hold);
+    }
+
+    /**
+     * Confirm a hold, booking the seat.
+     * 
+     * @return The booking details, or a 410 error if the hold ran out
+     */
+    @PostMapping("/{seatId}/hold/{holdToken}/confirm")
+    public ResponseEntity<Booking> confirmHold(
+            @PathVariable Long seatId,
+            @PathVariable String holdToken,
+            @RequestParam String customerName,
+            @RequestHeader(value = IdempotencyStore.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+
+        Booking booking = idempotencyStore.execute(idempotencyKey,
+                "confirm " + seatId + " hold " + holdToken + " for " + customerName,
+                BOOKING, () -> bookingService.confirmHold(seatId, holdToken, customerName));
         return ResponseEntity.ok(booking);
     }
+
+    /**
+     * Release a hold early, e.g. when the customer abandons checkout.
+     */
+    @DeleteMapping("/{seatId}/hold/{holdToken}")
+    public ResponseEntity<Void> releaseHold(
+            @PathVariable Long seatId,
+            @PathVariable String holdToken) {
+
+        bookingService.releaseHold(seatId, holdToken);
+        return ResponseEntity.noContent().build();
+    }
 }
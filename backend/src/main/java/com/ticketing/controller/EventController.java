@@ -1,12 +1,29 @@
 package com.ticketing.controller;
 
-import com.ticketing.entity.Event;
-import com.ticketing.entity.Seat;
-import com.ticketing.repository.EventRepository;
+import com.ticketing.dto.EventSummary;
+import com.ticketing.dto.SeatFilter;
+import com.ticketing.dto.SeatPage;
+import com.ticketing.dto.SeatView;
+import com.ticketing.entity.Booking;
 import com.ticketing.repository.SeatRepository;
+import com.ticketing.service.BookingService;
+import com.ticketing.service.EventCatalog;
+import com.ticketing.service.IdempotencyStore;
+import com.ticketing.service.SeatAvailabilityIndex;
+import com.ticketing.service.SeatMapCache;
+import com.ticketing.service.SeatStreamWriter;
+import com.ticketing.service.SeatUpdatePublisher;
+import com.ticketing.util.ReadRouting;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -14,28 +31,180 @@ import java.util.List;
 @CrossOrigin(origins = "http://localhost:5173") // Allow React dev server
 public class EventController {
 
-    private final EventRepository eventRepository;
+    static final int MAX_SEAT_PAGE_SIZE = 1000;
+
+    private final EventCatalog eventCatalog;
     private final SeatRepository seatRepository;
+    private final SeatMapCache seatMapCache;
+    private final SeatAvailabilityIndex availabilityIndex;
+    private final SeatUpdatePublisher seatUpdatePublisher;
+    private final SeatStreamWriter seatStreamWriter;
+    private final BookingService bookingService;
+    private final IdempotencyStore idempotencyStore;
+    private final Timer seatMapTimer;
+    private final Timer seatPageTimer;
 
-    public EventController(EventRepository eventRepository, SeatRepository seatRepository) {
-        this.eventRepository = eventRepository;
+    public EventController(EventCatalog eventCatalog, SeatRepository seatRepository,
+            SeatMapCache seatMapCache, SeatAvailabilityIndex availabilityIndex,
+            SeatUpdatePublisher seatUpdatePublisher, SeatStreamWriter seatStreamWriter,
+            BookingService bookingService, IdempotencyStore idempotencyStore, MeterRegistry meterRegistry) {
+        this.eventCatalog = eventCatalog;
         this.seatRepository = seatRepository;
+        this.seatMapCache = seatMapCache;
+        this.availabilityIndex = availabilityIndex;
+        this.seatUpdatePublisher = seatUpdatePublisher;
+        this.seatStreamWriter = seatStreamWriter;
+        this.bookingService = bookingService;
+        this.idempotencyStore = idempotencyStore;
+        // Only the lookups, not serializing the response (http.server.requests covers that)
+        this.seatMapTimer = seatMapTimer(meterRegistry, "full");
+        this.seatPageTimer = seatMapTimer(meterRegistry, "page");
+    }
+
+    private static Timer seatMapTimer(MeterRegistry registry, String query) {
+        return Timer.builder("ticketing.seatmap")
+                .description("Seat map lookups")
+                .tag("query", query)
+                .register(registry);
     }
 
     @GetMapping
-    public List<Event> getAllEvents() {
-        return eventRepository.findAll();
+    public List<EventSummary> getAllEvents() {
+        return eventCatalog.getSummaries();
     }
 
     @GetMapping("/{eventId}")
-    public ResponseEntity<Event> getEvent(@PathVariable Long eventId) {
-        return eventRepository.findById(eventId)
+    public ResponseEntity<EventSummary> getEvent(@PathVariable Long eventId) {
+        return eventCatalog.getSummary(eventId)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    /**
+     * The whole seat map, with the seat map cache version as a strong ETag.
+     * Pollers sending it back in If-None-Match get a 304 until a seat of the
+     * event is booked, held or released, without the seats being read or
+     * serialized. The version is derived from the seats, so the tag holds
+     * across restarts and instances.
+     */
     @GetMapping("/{eventId}/seats")
-    public List<Seat> getSeatsForEvent(@PathVariable Long eventId) {
-        return seatRepository.findByEventId(eventId);
+    public ResponseEntity<List<SeatView>> getSeatsForEvent(@PathVariable Long eventId, WebRequest request) {
+        // Before the seats: they are at least this new, so the tag never claims more than was sent
+        long version = seatMapCache.version(eventId);
+        String etag = "\"" + eventId + "-" + Long.toHexString(version) + "\"";
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        List<SeatView> seats = seatMapTimer.record(() -> seatMapCache.getSeats(eventId));
+        return ResponseEntity.ok().eTag(etag).body(seats);
+    }
+
+    /**
+     * The whole seat map, like /seats, but streamed from the database as it
+     * is read instead of built in memory first (see SeatStreamWriter).
+     * 503 while ticketing.seat-stream.max-concurrent streams are running.
+     */
+    @GetMapping("/{eventId}/seats/stream")
+    public ResponseEntity<StreamingResponseBody> streamSeatsForEvent(@PathVariable Long eventId) {
+        if (eventCatalog.getEvent(eventId) == null) {
+            return ResponseEntity.notFound().build();
+        }
+        // Turned away here, while a 503 can still be sent
+        seatStreamWriter.reserve();
+        // Written on another thread; take this request's choice of database along
+        boolean replica = ReadRouting.isReplicaAllowed();
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> {
+                    Boolean previous = ReadRouting.allowReplica(replica);
+                    try {
+                        seatStreamWriter.write(eventId, out);
+                    } finally {
+                        ReadRouting.restore(previous);
+                    }
+                });
+    }
+
+    /**
+     * One page of seats, for venues too large to load in one go. Start
+     * without "after", then pass each response's nextCursor until it is null.
+     * Optional filters: section, row, seat number range (from/to, inclusive)
+     * and availableOnly.
+     */
+    @GetMapping("/{eventId}/seats/page")
+    public SeatPage getSeatPage(
+            @PathVariable Long eventId,
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "200") int limit,
+            @RequestParam(required = false) String section,
+            @RequestParam(required = false) String row,
+            @RequestParam(required = false) Integer from,
+            @RequestParam(required = false) Integer to,
+            @RequestParam(defaultValue = "false") boolean availableOnly) {
+
+        if (limit < 1 || limit > MAX_SEAT_PAGE_SIZE) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_SEAT_PAGE_SIZE);
+        }
+        SeatFilter filter = new SeatFilter(section, row, from, to, availableOnly);
+        // Ask for one extra row to find out whether another page follows
+        List<SeatView> seats = seatPageTimer.record(() ->
+                seatRepository.findPage(eventId, filter, after, limit + 1, LocalDateTime.now()));
+        if (seats.size() <= limit) {
+            return new SeatPage(seats, null);
+        }
+        List<SeatView> page = seats.subList(0, limit);
+        return new SeatPage(page, page.get(limit - 1).id());
+    }
+
+    /**
+     * Seat availability as a run-length encoded bitmap (see SeatBitmapWriter).
+     * Pass the version from the previous response as "since" to get only
+     * the changes made after it.
+     */
+    @GetMapping(value = "/{eventId}/seats/availability", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<byte[]> getSeatAvailability(
+            @PathVariable Long eventId,
+            @RequestParam(defaultValue = "-1") long since) {
+
+        byte[] availability = availabilityIndex.encodeAvailability(eventId, since);
+        return availability != null
+                ? ResponseEntity.ok(availability)
+                : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * Book the best seats still available, side by side in one row, instead
+     * of picking them off the seat map.
+     * 
+     * @param quantity       How many seats (1 to 8)
+     * @param customerName   The customer's name
+     * @param idempotencyKey Optional; retries with the same key get the same bookings
+     * @return One booking per seat, or a 409 error if no row has that many
+     *         seats together
+     */
+    @PostMapping("/{eventId}/best-available")
+    public ResponseEntity<List<Booking>> bookBestAvailable(
+            @PathVariable Long eventId,
+            @RequestParam(defaultValue = "2") int quantity,
+            @RequestParam String customerName,
+            @RequestHeader(value = IdempotencyStore.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+
+        List<Booking> bookings = idempotencyStore.execute(idempotencyKey,
+                "book best " + quantity + " at event " + eventId + " for " + customerName,
+                BookingController.BOOKINGS, () -> bookingService.reserveBestAvailable(eventId, quantity, customerName));
+        return ResponseEntity.ok(bookings);
+    }
+
+    /**
+     * Live seat changes for an event as Server-Sent Events. Each "seats"
+     * event carries a JSON array of {id, booked, held} to merge into the
+     * seat map. Subscribe before fetching the seat list so nothing is missed.
+     */
+    @GetMapping(value = "/{eventId}/seats/updates", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamSeatUpdates(@PathVariable Long eventId) {
+        if (eventCatalog.getEvent(eventId) == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(seatUpdatePublisher.subscribe(eventId));
     }
 }
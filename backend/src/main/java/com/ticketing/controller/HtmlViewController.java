@@ -1,52 +1,70 @@
 package com.ticketing.controller;
 
-import com.ticketing.entity.Event;
-import com.ticketing.entity.Seat;
-import com.ticketing.repository.EventRepository;
-import com.ticketing.repository.SeatRepository;
+import com.ticketing.dto.EventSummary;
+import com.ticketing.service.EventCatalog;
+import com.ticketing.service.SeatMapPageCache;
 import com.ticketing.util.HtmlJsonRenderer;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
 import java.util.List;
 
 /**
  * Provides styled HTML views of API data for browser access.
  * The actual API endpoints in EventController continue to return JSON for
  * applications.
+ *
+ * Event pages are written straight to the response. Seat map pages come
+ * from the SeatMapPageCache with an ETag, so an unchanged seat map is
+ * neither rendered nor sent twice.
  */
 @Controller
 @RequestMapping("/view")
 public class HtmlViewController {
 
-    private final EventRepository eventRepository;
-    private final SeatRepository seatRepository;
+    private static final String TEXT_HTML_UTF8 = MediaType.TEXT_HTML_VALUE + ";charset=UTF-8";
 
-    public HtmlViewController(EventRepository eventRepository, SeatRepository seatRepository) {
-        this.eventRepository = eventRepository;
-        this.seatRepository = seatRepository;
+    private final EventCatalog eventCatalog;
+    private final SeatMapPageCache seatMapPages;
+
+    public HtmlViewController(EventCatalog eventCatalog, SeatMapPageCache seatMapPages) {
+        this.eventCatalog = eventCatalog;
+        this.seatMapPages = seatMapPages;
     }
 
     @GetMapping(value = "/events", produces = MediaType.TEXT_HTML_VALUE)
-    @ResponseBody
-    public String viewAllEvents() {
-        List<Event> events = eventRepository.findAll();
-        return HtmlJsonRenderer.render("All Events", events);
+    public void viewAllEvents(HttpServletResponse response) throws IOException {
+        List<EventSummary> events = eventCatalog.getSummaries();
+        response.setContentType(TEXT_HTML_UTF8);
+        HtmlJsonRenderer.write("All Events", events, response.getOutputStream());
     }
 
     @GetMapping(value = "/events/{eventId}", produces = MediaType.TEXT_HTML_VALUE)
-    @ResponseBody
-    public String viewEvent(@PathVariable Long eventId) {
-        return eventRepository.findById(eventId)
-                .map(event -> HtmlJsonRenderer.render("Event: " + event.getName(), event))
-                .orElse(HtmlJsonRenderer.render("Error", "Event not found"));
+    public void viewEvent(@PathVariable Long eventId, HttpServletResponse response) throws IOException {
+        response.setContentType(TEXT_HTML_UTF8);
+        EventSummary event = eventCatalog.getSummary(eventId).orElse(null);
+        if (event != null) {
+            HtmlJsonRenderer.write("Event: " + event.name(), event, response.getOutputStream());
+        } else {
+            HtmlJsonRenderer.write("Error", "Event not found", response.getOutputStream());
+        }
     }
 
     @GetMapping(value = "/events/{eventId}/seats", produces = MediaType.TEXT_HTML_VALUE)
-    @ResponseBody
-    public String viewSeatsForEvent(@PathVariable Long eventId) {
-        List<Seat> seats = seatRepository.findByEventId(eventId);
-        return HtmlJsonRenderer.render("Seats for Event " + eventId, seats);
+    public ResponseEntity<byte[]> viewSeatsForEvent(@PathVariable Long eventId, WebRequest request) {
+        long version = seatMapPages.version(eventId);
+        String etag = "\"" + eventId + "-" + Long.toHexString(version) + "\"";
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(TEXT_HTML_UTF8))
+                .eTag(etag)
+                .body(seatMapPages.getPage(eventId, version));
     }
 }
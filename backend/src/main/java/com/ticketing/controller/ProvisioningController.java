@@ -0,0 +1,42 @@
+package com.ticketing.controller;
+
+import com.ticketing.dto.ProvisioningStatus;
+import com.ticketing.dto.VenueLayout;
+import com.ticketing.service.EventProvisioner;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.URI;
+
+/**
+ * Bulk creation of events from a venue layout.
+ *
+ * POST the layout to start a job, then poll the URL in the Location header
+ * until its state is DONE (the new eventId is set) or FAILED.
+ */
+@RestController
+@RequestMapping("/api/provisioning")
+@CrossOrigin(origins = "http://localhost:5173")
+public class ProvisioningController {
+
+    private final EventProvisioner provisioner;
+
+    public ProvisioningController(EventProvisioner provisioner) {
+        this.provisioner = provisioner;
+    }
+
+    @PostMapping("/events")
+    public ResponseEntity<ProvisioningStatus> provision(@RequestBody VenueLayout layout) {
+        ProvisioningStatus job = provisioner.submit(layout);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/provisioning/jobs/" + job.jobId()))
+                .body(job);
+    }
+
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<ProvisioningStatus> status(@PathVariable String jobId) {
+        return provisioner.status(jobId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
@@ -0,0 +1,41 @@
+package com.ticketing.controller;
+
+import com.ticketing.dto.QueueTicket;
+import com.ticketing.service.WaitingRoom;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * The waiting room for an event's on-sale.
+ *
+ * Join once, then poll with the token until "admitted" is true. From then
+ * on send the token as X-Queue-Token with every booking or hold request.
+ * Joining again with a token that is still good keeps its place.
+ */
+@RestController
+@RequestMapping("/api/events/{eventId}/queue")
+@CrossOrigin(origins = "http://localhost:5173")
+public class WaitingRoomController {
+
+    private final WaitingRoom waitingRoom;
+
+    public WaitingRoomController(WaitingRoom waitingRoom) {
+        this.waitingRoom = waitingRoom;
+    }
+
+    @PostMapping
+    public ResponseEntity<QueueTicket> join(
+            @PathVariable Long eventId,
+            @RequestHeader(value = WaitingRoom.QUEUE_TOKEN_HEADER, required = false) String token) {
+
+        return ResponseEntity.ok(waitingRoom.join(eventId, token));
+    }
+
+    @GetMapping
+    public ResponseEntity<QueueTicket> status(
+            @PathVariable Long eventId,
+            @RequestHeader(WaitingRoom.QUEUE_TOKEN_HEADER) String token) {
+
+        return ResponseEntity.ok(waitingRoom.status(eventId, token));
+    }
+}
@@ -0,0 +1,15 @@
+package com.ticketing.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * An event as shown in listings: its details plus seat counts, without the seats.
+ */
+public record EventSummary(
+        Long id,
+        String name,
+        LocalDateTime eventDate,
+        String venue,
+        int totalSeats,
+        int availableSeats) {
+}
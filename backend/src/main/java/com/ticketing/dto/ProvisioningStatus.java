@@ -0,0 +1,16 @@
+package com.ticketing.dto;
+
+/**
+ * Progress of a bulk event creation (see EventProvisioner).
+ *
+ * @param eventId      set once the event row exists
+ * @param seatsWritten seats committed so far, out of totalSeats
+ * @param error        why the job failed, if it did
+ */
+public record ProvisioningStatus(String jobId, State state, Long eventId, int totalSeats, int seatsWritten,
+        String error) {
+
+    public enum State {
+        QUEUED, RUNNING, DONE, FAILED
+    }
+}
@@ -0,0 +1,11 @@
+package com.ticketing.dto;
+
+/**
+ * A place in an event's waiting room.
+ *
+ * @param token             send as X-Queue-Token with booking requests
+ * @param admitted          whether the holder may book now
+ * @param retryAfterSeconds roughly how long until admission, 0 once admitted
+ */
+public record QueueTicket(Long eventId, long position, String token, boolean admitted, long retryAfterSeconds) {
+}
@@ -0,0 +1,11 @@
+package com.ticketing.dto;
+
+/**
+ * Optional restrictions for a page of seats. Null fields don't filter.
+ *
+ * @param fromNumber lowest seat number to include (inclusive)
+ * @param toNumber   highest seat number to include (inclusive)
+ */
+public record SeatFilter(String section, String rowLabel, Integer fromNumber, Integer toNumber,
+        boolean availableOnly) {
+}
@@ -0,0 +1,9 @@
+package com.ticketing.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * A temporary hold on a seat. The token is needed to confirm or release it.
+ */
+public record SeatHold(Long seatId, String holdToken, LocalDateTime expiresAt) {
+}
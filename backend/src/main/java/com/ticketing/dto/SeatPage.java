@@ -0,0 +1,11 @@
+package com.ticketing.dto;
+
+import java.util.List;
+
+/**
+ * One page of an event's seats, in seat id order.
+ *
+ * @param nextCursor pass as "after" to get the next page; null on the last page
+ */
+public record SeatPage(List<SeatView> seats, Long nextCursor) {
+}
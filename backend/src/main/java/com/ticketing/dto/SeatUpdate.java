@@ -0,0 +1,8 @@
+package com.ticketing.dto;
+
+/**
+ * A change to one seat, as pushed to seat update subscribers.
+ * Clients merge it into the seat map they already have, matching on id.
+ */
+public record SeatUpdate(Long id, boolean booked, boolean held) {
+}
@@ -0,0 +1,30 @@
+package com.ticketing.dto;
+
+import com.ticketing.entity.Seat;
+
+/**
+ * Read-only snapshot of a seat, serialized exactly like the Seat entity.
+ * Immutable, so cached seat maps can hand them out to any number of readers.
+ */
+public record SeatView(Long id, String seatNumber, String section, String rowLabel, Integer number,
+        boolean booked, boolean held, Long version) {
+
+    public static SeatView from(Seat seat) {
+        return new SeatView(seat.getId(), seat.getSeatNumber(), seat.getSection(), seat.getRowLabel(),
+                seat.getNumber(), seat.isBooked(), seat.isHeld(), seat.getVersion());
+    }
+
+    /**
+     * The same seat after a hold was placed or dropped (each bumps the version).
+     */
+    public SeatView withHeld(boolean held) {
+        return new SeatView(id, seatNumber, section, rowLabel, number, booked, held, version + 1);
+    }
+
+    /**
+     * The same seat once booked (which also ends any hold).
+     */
+    public SeatView withBooked() {
+        return new SeatView(id, seatNumber, section, rowLabel, number, true, false, version + 1);
+    }
+}
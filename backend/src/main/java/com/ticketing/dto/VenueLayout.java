@@ -0,0 +1,25 @@
+package com.ticketing.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * An event to create, with its seats given as a venue layout: sections of
+ * rows, each row a run of seat numbers. Row "B" with firstSeat 1 and
+ * lastSeat 40 becomes seats B1 to B40.
+ */
+public record VenueLayout(String name, LocalDateTime eventDate, String venue, List<Section> sections) {
+
+    /**
+     * @param name null for a venue without sections
+     */
+    public record Section(String name, List<Row> rows) {
+    }
+
+    public record Row(String label, int firstSeat, int lastSeat) {
+
+        public int seatCount() {
+            return lastSeat - firstSeat + 1;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.ticketing.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -25,7 +26,13 @@ public class Event {
     @Column(nullable = false)
     private String venue;
 
+    // Set while EventProvisioner writes the seats; the event stays out of sight until then
+    @Column(nullable = false, columnDefinition = "boolean default false")
+    @JsonIgnore
+    private boolean provisioning;
+
     @OneToMany(mappedBy = "event", cascade = CascadeType.ALL, orphanRemoval = true)
+    @JsonIgnore  // Seats have their own endpoint; listing events must not load them
     private List<Seat> seats = new ArrayList<>();
 
     // Default constructor required by JPA
@@ -70,6 +77,14 @@ public class Event {
         this.venue = venue;
     }
 
+    public boolean isProvisioning() {
+        return provisioning;
+    }
+
+    public void setProvisioning(boolean provisioning) {
+        this.provisioning = provisioning;
+    }
+
     public List<Seat> getSeats() {
         return seats;
     }
@@ -0,0 +1,71 @@
+package com.ticketing.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * The response to a booking request sent with an Idempotency-Key header,
+ * kept so a retry gets the same answer (see IdempotencyStore).
+ */
+@Entity
+@Table(name = "idempotency_keys", indexes = {
+        // Expired keys are purged by age
+        @Index(name = "idx_idempotency_keys_created_at", columnList = "created_at")
+})
+public class IdempotencyKey {
+
+    @Id
+    @Column(name = "idempotency_key", length = 255)
+    private String key;
+
+    /**
+     * What was asked for, so a key reused for another request is caught.
+     */
+    @Column(nullable = false, length = 512)
+    private String request;
+
+    /**
+     * The result, as JSON.
+     */
+    @Column(nullable = false, length = 16384)
+    private String response;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // Default constructor required by JPA
+    public IdempotencyKey() {}
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public String getRequest() {
+        return request;
+    }
+
+    public void setRequest(String request) {
+        this.request = request;
+    }
+
+    public String getResponse() {
+        return response;
+    }
+
+    public void setResponse(String response) {
+        this.response = response;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -3,6 +3,10 @@ package com.ticketing.entity;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 
+import java.time.LocalDateTime;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
 /**
  * Represents a seat at an event.
  * 
@@ -14,18 +18,48 @@ import jakarta.persistence.*;
  * 3. If another transaction already updated (and incremented version), 
  *    the WHERE clause finds 0 rows, and JPA throws OptimisticLockException.
  * 4. This prevents two users from booking the same seat simultaneously.
+ * 
+ * The booking hot path (SeatRepository.claimSeat) skips the load and bumps
+ * the version itself in a conditional UPDATE, so versions stay comparable
+ * no matter which path wrote the row.
  */
 @Entity
-@Table(name = "seats")
+@Table(name = "seats", indexes = {
+        // Keyset pages walk an event's seats in id order
+        @Index(name = "idx_seats_event_id", columnList = "event_id, id"),
+        // Available-only pages skip booked seats without touching them
+        @Index(name = "idx_seats_event_booked", columnList = "event_id, booked, id"),
+        // Row / section / seat-number range lookups
+        @Index(name = "idx_seats_event_row", columnList = "event_id, section, row_label, number")
+})
 public class Seat {
 
+    private static final Pattern ROW_AND_NUMBER = Pattern.compile("([A-Za-z]+)(\\d+)");
+
+    /**
+     * Pooled sequence rather than IDENTITY: Hibernate can't batch inserts
+     * when it needs the database to hand back each id.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "seat_seq")
+    @SequenceGenerator(name = "seat_seq", sequenceName = "seats_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
     private String seatNumber;  // e.g., "A1", "B5"
 
+    /**
+     * Where the seat is in the venue. Seat numbers like "B5" are split into
+     * row "B" and number 5 automatically; section is optional.
+     */
+    @Column(length = 32)
+    private String section;
+
+    @Column(name = "row_label", length = 16)
+    private String rowLabel;
+
+    private Integer number;
+
     @Column(nullable = false)
     private boolean booked = false;
 
@@ -40,6 +74,18 @@ public class Seat {
     @Version
     private Long version;
 
+    /**
+     * Set while a customer holds the seat during checkout. Only whoever
+     * placed the hold knows the token, so it never leaves the server in
+     * seat listings.
+     */
+    @JsonIgnore
+    @Column(length = 36)
+    private String holdToken;
+
+    @JsonIgnore
+    private LocalDateTime holdExpiresAt;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "event_id", nullable = false)
     @JsonIgnore  // Prevent infinite recursion in JSON
@@ -51,6 +97,27 @@ public class Seat {
     public Seat(String seatNumber, Event event) {
         this.seatNumber = seatNumber;
         this.event = event;
+        parseSeatNumber();
+    }
+
+    public Seat(String section, String rowLabel, int number, Event event) {
+        this.seatNumber = rowLabel + number;
+        this.section = section;
+        this.rowLabel = rowLabel;
+        this.number = number;
+        this.event = event;
+    }
+
+    /**
+     * Fills in row and number from a seat number of the form "B5".
+     * Seat numbers in any other format leave them unset.
+     */
+    public void parseSeatNumber() {
+        Matcher matcher = ROW_AND_NUMBER.matcher(seatNumber);
+        if (matcher.matches()) {
+            this.rowLabel = matcher.group(1);
+            this.number = Integer.valueOf(matcher.group(2));
+        }
     }
 
     // Getters and Setters
@@ -70,6 +137,30 @@ public class Seat {
         this.seatNumber = seatNumber;
     }
 
+    public String getSection() {
+        return section;
+    }
+
+    public void setSection(String section) {
+        this.section = section;
+    }
+
+    public String getRowLabel() {
+        return rowLabel;
+    }
+
+    public void setRowLabel(String rowLabel) {
+        this.rowLabel = rowLabel;
+    }
+
+    public Integer getNumber() {
+        return number;
+    }
+
+    public void setNumber(Integer number) {
+        this.number = number;
+    }
+
     public boolean isBooked() {
         return booked;
     }
@@ -86,6 +177,29 @@ public class Seat {
         this.version = version;
     }
 
+    public String getHoldToken() {
+        return holdToken;
+    }
+
+    public void setHoldToken(String holdToken) {
+        this.holdToken = holdToken;
+    }
+
+    public LocalDateTime getHoldExpiresAt() {
+        return holdExpiresAt;
+    }
+
+    public void setHoldExpiresAt(LocalDateTime holdExpiresAt) {
+        this.holdExpiresAt = holdExpiresAt;
+    }
+
+    /**
+     * True while an unexpired hold is on the seat. Serialized as "held".
+     */
+    public boolean isHeld() {
+        return holdToken != null && holdExpiresAt != null && holdExpiresAt.isAfter(LocalDateTime.now());
+    }
+
     public Event getEvent() {
         return event;
     }
@@ -0,0 +1,77 @@
+package com.ticketing.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A booking that was confirmed to the customer but could not be written,
+ * because the database already had the seat booked (see BookingWriteBehind).
+ * Kept so it can be put right by hand - another seat or a refund - rather
+ * than lost.
+ */
+@Entity
+@Table(name = "unwritten_bookings")
+public class UnwrittenBooking {
+
+    /**
+     * The id the booking was given when it was confirmed.
+     */
+    @Id
+    private Long id;
+
+    @Column(name = "seat_id", nullable = false)
+    private Long seatId;
+
+    @Column(nullable = false)
+    private String customerName;
+
+    @Column(nullable = false)
+    private LocalDateTime bookedAt;
+
+    @Column(name = "recorded_at", nullable = false)
+    private LocalDateTime recordedAt;
+
+    // Default constructor required by JPA
+    public UnwrittenBooking() {}
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getSeatId() {
+        return seatId;
+    }
+
+    public void setSeatId(Long seatId) {
+        this.seatId = seatId;
+    }
+
+    public String getCustomerName() {
+        return customerName;
+    }
+
+    public void setCustomerName(String customerName) {
+        this.customerName = customerName;
+    }
+
+    public LocalDateTime getBookedAt() {
+        return bookedAt;
+    }
+
+    public void setBookedAt(LocalDateTime bookedAt) {
+        this.bookedAt = bookedAt;
+    }
+
+    public LocalDateTime getRecordedAt() {
+        return recordedAt;
+    }
+
+    public void setRecordedAt(LocalDateTime recordedAt) {
+        this.recordedAt = recordedAt;
+    }
+}
@@ -0,0 +1,41 @@
+package com.ticketing.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * A counter moved after every write request, on databases that don't
+ * expose their replication position (see ReplicationPosition). Replicated
+ * like any other row, so the replica's copy says how far it has got.
+ */
+@Entity
+@Table(name = "write_positions")
+public class WritePosition {
+
+    /**
+     * Always ReplicationPosition.COUNTER_ID; there is one row.
+     */
+    @Id
+    private Integer id;
+
+    @Column(nullable = false)
+    private Long position;
+
+    // Default constructor required by JPA
+    public WritePosition() {}
+
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    public Long getPosition() {
+        return position;
+    }
+
+    public void setPosition(Long position) {
+        this.position = position;
+    }
+}
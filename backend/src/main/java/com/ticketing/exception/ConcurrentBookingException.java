@@ -1,20 +1,28 @@
 package com.ticketing.exception;
 
 /**
- * Thrown when a concurrent booking collision is detected.
- * 
- * This happens when the @Version check fails - meaning another
- * transaction modified the seat between when we read it and
- * when we tried to save it.
+ * Thrown when a booking runs into another request for the same seat that
+ * is still in flight: the claim it waited on (see SeatAvailabilityIndex)
+ * didn't finish within ticketing.booking.coalesce-wait-ms, a multi-seat
+ * booking found one of its seats mid-claim, or an Idempotency-Key retry
+ * found its original request still running. Trying again shortly may
+ * succeed. (Optimistic lock failures from the @Version check surface as
+ * Spring's ObjectOptimisticLockingFailureException instead.)
+ *
+ * Like SeatAlreadyBookedException this is an expected outcome under load,
+ * so it is stackless, and the single-seat case throws the shared IN_FLIGHT
+ * instance rather than allocating one per request.
  */
 public class ConcurrentBookingException extends RuntimeException {
 
-    public ConcurrentBookingException(String message) {
-        super(message);
-    }
+    /**
+     * The seat has a claim in flight. The customer knows which seat they
+     * asked for, so the message doesn't name it.
+     */
+    public static final ConcurrentBookingException IN_FLIGHT = new ConcurrentBookingException(
+            "Another user is booking this seat right now. Please try again or pick another seat.");
 
-    public ConcurrentBookingException(Long seatId) {
-        super("Booking conflict for seat " + seatId +
-                ". Another user just booked this seat. Please try another seat.");
+    public ConcurrentBookingException(String message) {
+        super(message, null, false, false);
     }
 }
@@ -0,0 +1,21 @@
+package com.ticketing.exception;
+
+/**
+ * Thrown in partitioned mode when a change for an event reaches a node that
+ * doesn't own it. Requests are normally redirected before they get this far;
+ * this stops anything that bypassed the routing from claiming seats the
+ * owner is deciding in memory.
+ */
+public class EventNotOwnedException extends RuntimeException {
+
+    private final String owner;
+
+    public EventNotOwnedException(Long eventId, String owner) {
+        super("Event " + eventId + " is handled by " + owner);
+        this.owner = owner;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+}
@@ -1,6 +1,12 @@
 package com.ticketing.exception;
 
+import com.ticketing.config.EventRoutingInterceptor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -20,6 +26,47 @@ import java.util.Map;
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
+    // Not in Spring's HttpStatus enum
+    private static final HttpStatusCode MISDIRECTED_REQUEST = HttpStatusCode.valueOf(421);
+
+    /*
+     * The seat-unavailable and concurrent-booking 409s are the common outcome
+     * during an on-sale, so their bodies are pre-serialized instead of built
+     * as a Map per response.
+     */
+    private static final HttpHeaders JSON = jsonHeaders();
+    private static final PreparedErrorBody SEAT_UNAVAILABLE =
+            new PreparedErrorBody(HttpStatus.CONFLICT, "Seat Unavailable");
+    private static final PreparedErrorBody CONCURRENT_BOOKING =
+            new PreparedErrorBody(HttpStatus.CONFLICT, "Concurrent Booking Detected");
+
+    // Error responses by exception, for the Prometheus endpoint
+    private final Counter optimisticLockErrors;
+    private final Counter seatUnavailableErrors;
+    private final Counter concurrentBookingErrors;
+    private final Counter holdExpiredErrors;
+    private final Counter serviceBusyErrors;
+    private final Counter notAdmittedErrors;
+    private final Counter misdirectedErrors;
+    private final Counter badRequestErrors;
+    private final Counter internalErrors;
+
+    public GlobalExceptionHandler(MeterRegistry meterRegistry) {
+        this.optimisticLockErrors = errors(meterRegistry, ObjectOptimisticLockingFailureException.class,
+                HttpStatus.CONFLICT);
+        this.seatUnavailableErrors = errors(meterRegistry, SeatAlreadyBookedException.class, HttpStatus.CONFLICT);
+        this.concurrentBookingErrors = errors(meterRegistry, ConcurrentBookingException.class, HttpStatus.CONFLICT);
+        this.holdExpiredErrors = errors(meterRegistry, HoldExpiredException.class, HttpStatus.GONE);
+        this.serviceBusyErrors = errors(meterRegistry, ServiceBusyException.class,
+                HttpStatus.SERVICE_UNAVAILABLE);
+        this.notAdmittedErrors = errors(meterRegistry, NotAdmittedException.class,
+                HttpStatus.TOO_MANY_REQUESTS);
+        this.misdirectedErrors = errors(meterRegistry, EventNotOwnedException.class, MISDIRECTED_REQUEST);
+        this.badRequestErrors = errors(meterRegistry, IllegalArgumentException.class, HttpStatus.BAD_REQUEST);
+        this.internalErrors = errors(meterRegistry, RuntimeException.class,
+                HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
     /**
      * Handles optimistic locking failures.
      * 
@@ -30,6 +77,7 @@ public class GlobalExceptionHandler {
     public ResponseEntity<Map<String, Object>> handleOptimisticLockException(
             ObjectOptimisticLockingFailureException ex) {
 
+        optimisticLockErrors.increment();
         Map<String, Object> error = new HashMap<>();
         error.put("status", HttpStatus.CONFLICT.value());
         error.put("error", "Booking Conflict");
@@ -41,35 +89,103 @@ public class GlobalExceptionHandler {
     }
 
     @ExceptionHandler(SeatAlreadyBookedException.class)
-    public ResponseEntity<Map<String, Object>> handleSeatAlreadyBooked(
+    public ResponseEntity<byte[]> handleSeatAlreadyBooked(
             SeatAlreadyBookedException ex) {
 
+        seatUnavailableErrors.increment();
+        return new ResponseEntity<>(SEAT_UNAVAILABLE.render(ex.getMessage()), JSON, HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(ConcurrentBookingException.class)
+    public ResponseEntity<byte[]> handleConcurrentBooking(
+            ConcurrentBookingException ex) {
+
+        concurrentBookingErrors.increment();
+        return new ResponseEntity<>(CONCURRENT_BOOKING.render(ex.getMessage()), JSON, HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(HoldExpiredException.class)
+    public ResponseEntity<Map<String, Object>> handleHoldExpired(
+            HoldExpiredException ex) {
+
+        holdExpiredErrors.increment();
         Map<String, Object> error = new HashMap<>();
-        error.put("status", HttpStatus.CONFLICT.value());
-        error.put("error", "Seat Unavailable");
+        error.put("status", HttpStatus.GONE.value());
+        error.put("error", "Hold Expired");
         error.put("message", ex.getMessage());
         error.put("timestamp", LocalDateTime.now().toString());
 
-        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+        return ResponseEntity.status(HttpStatus.GONE).body(error);
     }
 
-    @ExceptionHandler(ConcurrentBookingException.class)
-    public ResponseEntity<Map<String, Object>> handleConcurrentBooking(
-            ConcurrentBookingException ex) {
+    @ExceptionHandler(ServiceBusyException.class)
+    public ResponseEntity<Map<String, Object>> handleServiceBusy(
+            ServiceBusyException ex) {
 
+        serviceBusyErrors.increment();
         Map<String, Object> error = new HashMap<>();
-        error.put("status", HttpStatus.CONFLICT.value());
-        error.put("error", "Concurrent Booking Detected");
+        error.put("status", HttpStatus.SERVICE_UNAVAILABLE.value());
+        error.put("error", "Service Busy");
         error.put("message", ex.getMessage());
         error.put("timestamp", LocalDateTime.now().toString());
 
-        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(error);
+    }
+
+    @ExceptionHandler(NotAdmittedException.class)
+    public ResponseEntity<Map<String, Object>> handleNotAdmitted(
+            NotAdmittedException ex) {
+
+        notAdmittedErrors.increment();
+        Map<String, Object> error = new HashMap<>();
+        error.put("status", HttpStatus.TOO_MANY_REQUESTS.value());
+        error.put("error", "Waiting Room");
+        error.put("message", ex.getMessage());
+        error.put("retryAfterSeconds", ex.getRetryAfterSeconds());
+        error.put("timestamp", LocalDateTime.now().toString());
+
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(error);
+    }
+
+    @ExceptionHandler(EventNotOwnedException.class)
+    public ResponseEntity<Map<String, Object>> handleEventNotOwned(
+            EventNotOwnedException ex) {
+
+        misdirectedErrors.increment();
+        Map<String, Object> error = new HashMap<>();
+        error.put("status", MISDIRECTED_REQUEST.value());
+        error.put("error", "Misdirected Request");
+        error.put("message", ex.getMessage());
+        error.put("timestamp", LocalDateTime.now().toString());
+
+        return ResponseEntity.status(MISDIRECTED_REQUEST)
+                .header(EventRoutingInterceptor.EVENT_OWNER_HEADER, ex.getOwner())
+                .body(error);
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, Object>> handleIllegalArgument(
+            IllegalArgumentException ex) {
+
+        badRequestErrors.increment();
+        Map<String, Object> error = new HashMap<>();
+        error.put("status", HttpStatus.BAD_REQUEST.value());
+        error.put("error", "Bad Request");
+        error.put("message", ex.getMessage());
+        error.put("timestamp", LocalDateTime.now().toString());
+
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
     }
 
     @ExceptionHandler(RuntimeException.class)
     public ResponseEntity<Map<String, Object>> handleRuntimeException(
             RuntimeException ex) {
 
+        internalErrors.increment();
         Map<String, Object> error = new HashMap<>();
         error.put("status", HttpStatus.INTERNAL_SERVER_ERROR.value());
         error.put("error", "Internal Server Error");
@@ -78,4 +194,19 @@ public class GlobalExceptionHandler {
 
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
     }
+
+    private static Counter errors(MeterRegistry registry, Class<? extends Exception> exception,
+            HttpStatusCode status) {
+        return Counter.builder("ticketing.errors")
+                .description("Error responses")
+                .tag("exception", exception.getSimpleName())
+                .tag("status", String.valueOf(status.value()))
+                .register(registry);
+    }
+
+    private static HttpHeaders jsonHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        return HttpHeaders.readOnlyHttpHeaders(headers);
+    }
 }
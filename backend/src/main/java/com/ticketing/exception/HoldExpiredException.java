@@ -0,0 +1,12 @@
+package com.ticketing.exception;
+
+/**
+ * Thrown when a hold is confirmed after it ran out, or with the wrong token.
+ * The seat may already be on its way to another customer.
+ */
+public class HoldExpiredException extends RuntimeException {
+
+    public HoldExpiredException(Long seatId) {
+        super("The hold on seat " + seatId + " has expired or does not exist");
+    }
+}
@@ -0,0 +1,19 @@
+package com.ticketing.exception;
+
+/**
+ * Thrown when a booking request arrives without a queue token that has
+ * been admitted yet. Rejected before any database work is done.
+ */
+public class NotAdmittedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public NotAdmittedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
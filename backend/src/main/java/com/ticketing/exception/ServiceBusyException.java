@@ -0,0 +1,17 @@
+package com.ticketing.exception;
+
+/**
+ * Thrown when too many requests are already waiting for the database, or
+ * using it (see SeatStreamWriter).
+ * The request did nothing; the client should retry shortly.
+ */
+public class ServiceBusyException extends RuntimeException {
+
+    public ServiceBusyException() {
+        super("Too many bookings in progress. Please try again in a moment.");
+    }
+
+    public ServiceBusyException(String message) {
+        super(message);
+    }
+}
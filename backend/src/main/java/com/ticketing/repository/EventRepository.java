@@ -2,8 +2,24 @@ package com.ticketing.repository;
 
 import com.ticketing.entity.Event;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface EventRepository extends JpaRepository<Event, Long> {
+
+    @Query("select e.id from Event e")
+    List<Long> findAllIds();
+
+    /**
+     * @return true if the event exists and isn't still being provisioned
+     */
+    boolean existsByIdAndProvisioningFalse(Long id);
+
+    @Modifying
+    @Query("update Event e set e.provisioning = false where e.id = :id")
+    int finishProvisioning(Long id);
 }
@@ -0,0 +1,28 @@
+package com.ticketing.repository;
+
+import com.ticketing.entity.IdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, String> {
+
+    /**
+     * Stores a key in one statement. save() would look the key up first,
+     * since the id is assigned rather than generated.
+     */
+    @Modifying
+    @Query(value = "insert into idempotency_keys (idempotency_key, request, response, created_at) "
+            + "values (:key, :request, :response, :createdAt)", nativeQuery = true)
+    int insert(@Param("key") String key, @Param("request") String request, @Param("response") String response,
+            @Param("createdAt") LocalDateTime createdAt);
+
+    @Modifying
+    @Query("delete from IdempotencyKey k where k.createdAt < :cutoff")
+    int deleteCreatedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
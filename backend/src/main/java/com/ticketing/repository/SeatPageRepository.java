@@ -0,0 +1,20 @@
+package com.ticketing.repository;
+
+import com.ticketing.dto.SeatFilter;
+import com.ticketing.dto.SeatView;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Filtered, keyset-paginated seat listing (implemented in SeatPageRepositoryImpl).
+ */
+public interface SeatPageRepository {
+
+    /**
+     * @param afterId only seats with a larger id are returned; null starts at the beginning
+     * @param limit   maximum number of seats to return
+     * @param now     holds expiring before this count as available
+     */
+    List<SeatView> findPage(Long eventId, SeatFilter filter, Long afterId, int limit, LocalDateTime now);
+}
@@ -0,0 +1,69 @@
+package com.ticketing.repository;
+
+import com.ticketing.dto.SeatFilter;
+import com.ticketing.dto.SeatView;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds the page query from only the filters that are set.
+ *
+ * KEY CONCEPT: Keyset pagination. Each page starts "where id > last id seen"
+ * instead of skipping an OFFSET, so page 1,000 of a stadium costs the same
+ * as page 1: an index range scan on (event_id, id), or (event_id, booked, id)
+ * for available-only pages. Leaving unset filters out of the SQL entirely
+ * (rather than "param is null or ...") keeps every variant index-friendly.
+ */
+class SeatPageRepositoryImpl implements SeatPageRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<SeatView> findPage(Long eventId, SeatFilter filter, Long afterId, int limit, LocalDateTime now) {
+        StringBuilder jpql = new StringBuilder(
+                "select new com.ticketing.dto.SeatView(s.id, s.seatNumber, s.section, s.rowLabel, s.number, "
+                + "s.booked, case when s.holdToken is not null and s.holdExpiresAt > :now then true else false end, "
+                + "s.version) from Seat s where s.event.id = :eventId");
+        Map<String, Object> params = new LinkedHashMap<>();
+        params.put("eventId", eventId);
+        params.put("now", now);
+
+        if (afterId != null) {
+            jpql.append(" and s.id > :afterId");
+            params.put("afterId", afterId);
+        }
+        if (filter.availableOnly()) {
+            jpql.append(" and s.booked = false and (s.holdToken is null or s.holdExpiresAt <= :now)");
+        }
+        if (filter.section() != null) {
+            jpql.append(" and s.section = :section");
+            params.put("section", filter.section());
+        }
+        if (filter.rowLabel() != null) {
+            jpql.append(" and s.rowLabel = :rowLabel");
+            params.put("rowLabel", filter.rowLabel());
+        }
+        if (filter.fromNumber() != null) {
+            jpql.append(" and s.number >= :fromNumber");
+            params.put("fromNumber", filter.fromNumber());
+        }
+        if (filter.toNumber() != null) {
+            jpql.append(" and s.number <= :toNumber");
+            params.put("toNumber", filter.toNumber());
+        }
+        jpql.append(" order by s.id");
+
+        TypedQuery<SeatView> query = entityManager.createQuery(jpql.toString(), SeatView.class);
+        params.forEach(query::setParameter);
+        return query.setMaxResults(limit).getResultList();
+    }
+}
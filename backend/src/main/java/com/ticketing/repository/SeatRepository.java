@@ -1,13 +1,121 @@
 package com.ticketing.repository;
 
+import com.ticketing.dto.SeatView;
 import com.ticketing.entity.Seat;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface SeatRepository extends JpaRepository<Seat, Long> {
+public interface SeatRepository extends JpaRepository<Seat, Long>, SeatPageRepository {
 
-    List<Seat> findByEventId(Long eventId);
+    /**
+     * Seat map for an event as plain values, in seat id order.
+     */
+    @Query("select new com.ticketing.dto.SeatView(s.id, s.seatNumber, s.section, s.rowLabel, s.number, "
+            + "s.booked, "
+            + "case when s.holdToken is not null and s.holdExpiresAt > :now then true else false end, "
+            + "s.version) "
+            + "from Seat s where s.event.id = :eventId order by s.id")
+    List<SeatView> findViewsByEventId(@Param("eventId") Long eventId, @Param("now") LocalDateTime now);
+
+    /**
+     * The same seat map as findViewsByEventId, read through a forward-only
+     * cursor 1000 rows at a time. Plain values,
+     * so nothing piles up in the persistence context. Must be consumed (and
+     * closed) inside a transaction: PostgreSQL only honours the fetch size
+     * with autocommit off.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select new com.ticketing.dto.SeatView(s.id, s.seatNumber, s.section, s.rowLabel, s.number, "
+            + "s.booked, "
+            + "case when s.holdToken is not null and s.holdExpiresAt > :now then true else false end, "
+            + "s.version) "
+            + "from Seat s where s.event.id = :eventId order by s.id")
+    Stream<SeatView> streamViewsByEventId(@Param("eventId") Long eventId, @Param("now") LocalDateTime now);
+
+    /**
+     * Books a free seat in a single statement, bumping the version the same
+     * way Hibernate's @Version check would. A seat under an unexpired hold
+     * counts as taken.
+     *
+     * @return 1 if this call booked the seat, 0 if it was already taken or does not exist
+     */
+    @Modifying
+    @Query("update Seat s set s.booked = true, s.holdToken = null, s.holdExpiresAt = null, "
+            + "s.version = s.version + 1 "
+            + "where s.id = :seatId and s.booked = false "
+            + "and (s.holdToken is null or s.holdExpiresAt <= :now)")
+    int claimSeat(@Param("seatId") Long seatId, @Param("now") LocalDateTime now);
+
+    /**
+     * Books a set of free seats in one statement.
+     *
+     * @return how many of the seats this call booked; less than seatIds.size()
+     *         means at least one was taken and the transaction must roll back
+     */
+    @Modifying
+    @Query("update Seat s set s.booked = true, s.holdToken = null, s.holdExpiresAt = null, "
+            + "s.version = s.version + 1 "
+            + "where s.id in :seatIds and s.booked = false "
+            + "and (s.holdToken is null or s.holdExpiresAt <= :now)")
+    int claimSeats(@Param("seatIds") Collection<Long> seatIds, @Param("now") LocalDateTime now);
+
+    /**
+     * Puts a free seat on hold until expiresAt.
+     *
+     * @return 1 if the hold was placed, 0 if the seat is booked or already held
+     */
+    @Modifying
+    @Query("update Seat s set s.holdToken = :holdToken, s.holdExpiresAt = :expiresAt, "
+            + "s.version = s.version + 1 "
+            + "where s.id = :seatId and s.booked = false "
+            + "and (s.holdToken is null or s.holdExpiresAt <= :now)")
+    int holdSeat(@Param("seatId") Long seatId, @Param("holdToken") String holdToken,
+            @Param("expiresAt") LocalDateTime expiresAt, @Param("now") LocalDateTime now);
+
+    /**
+     * Turns an unexpired hold into a booking.
+     *
+     * @return 1 if the seat is now booked, 0 if the hold expired or the token doesn't match
+     */
+    @Modifying
+    @Query("update Seat s set s.booked = true, s.holdToken = null, s.holdExpiresAt = null, "
+            + "s.version = s.version + 1 "
+            + "where s.id = :seatId and s.holdToken = :holdToken and s.holdExpiresAt > :now")
+    int confirmHold(@Param("seatId") Long seatId, @Param("holdToken") String holdToken,
+            @Param("now") LocalDateTime now);
+
+    /**
+     * Drops a hold. Matching on the token makes this a no-op once the hold
+     * was confirmed or replaced, so expiry can never release someone else's hold.
+     */
+    @Modifying
+    @Query("update Seat s set s.holdToken = null, s.holdExpiresAt = null, s.version = s.version + 1 "
+            + "where s.id = :seatId and s.holdToken = :holdToken and s.booked = false")
+    int releaseHold(@Param("seatId") Long seatId, @Param("holdToken") String holdToken);
+
+    /**
+     * The seat's event, for seats not in the availability index.
+     */
+    @Query("select s.event.id from Seat s where s.id = :seatId")
+    Optional<Long> findEventIdById(@Param("seatId") Long seatId);
+
+    List<Seat> findByHoldTokenIsNotNull();
+
+    List<Seat> findByRowLabelIsNull();
 }
@@ -0,0 +1,334 @@
+package com.ticketing.service;
+
+import com.ticketing.entity.Booking;
+import com.ticketing.entity.Seat;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongConsumer;
+import java.util.zip.CRC32;
+
+/**
+ * Local append-only journal of confirmed bookings, for ticketing.booking.mode=journal.
+ *
+ * KEY CONCEPT: A booking is durable once it is in this file, not once it is
+ * in the database. append() writes the bookings and waits for them to be
+ * fsynced; BookingWriteBehind copies them to the database in batches
+ * afterwards (never ahead of what is on disk here) and records how far it
+ * got with checkpoint(). On startup, recover() returns everything after the
+ * last checkpoint so it can be written again. A failed write or fsync stops
+ * the journal for good: it is not safe to keep going without a restart.
+ *
+ * Group commit: fsync is the expensive part, so it is shared. Threads append
+ * under one lock, then line up for the sync lock; whoever gets it first
+ * forces everything written so far, and the threads behind it usually find
+ * their bookings already on disk. One fsync covers every booking that
+ * arrived while the previous one was running.
+ *
+ * Record: int payload length, payload, int CRC32 of the payload. Payload:
+ * booking id, seat id, booked-at (epoch second, nanos), customer name
+ * (short length + UTF-8). A torn record at the end of the file (crash
+ * mid-write) fails its length or CRC check and is cut off.
+ */
+@Component
+public class BookingJournal {
+
+    private static final Logger log = LoggerFactory.getLogger(BookingJournal.class);
+
+    private final boolean enabled;
+    private final Path file;
+    private final Path checkpointFile;
+    private final long compactBytes;
+
+    private FileChannel channel;
+    private FileChannel checkpointChannel;
+
+    // Locks rather than monitors: a thread blocked in write() or force()
+    // inside synchronized would pin a virtual thread to its carrier
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final ReentrantLock syncLock = new ReentrantLock();
+
+    // Bytes appended; guarded by writeLock, read by syncers
+    private volatile long written;
+    // Bytes known to be on disk; guarded by syncLock
+    private long durable;
+    private volatile boolean failed;
+
+    public BookingJournal(
+            @Value("${ticketing.booking.mode:direct}") String mode,
+            @Value("${ticketing.booking.journal.dir:journal}") String dir,
+            @Value("${ticketing.booking.journal.compact-bytes:67108864}") long compactBytes) {
+        this.enabled = mode.equals("journal");
+        this.file = Path.of(dir, "bookings.journal");
+        this.checkpointFile = Path.of(dir, "bookings.checkpoint");
+        this.compactBytes = compactBytes;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Opens the journal and reads back every booking after the last
+     * checkpoint. Call once, before the first append().
+     *
+     * @return bookings that may not have reached the database, oldest first
+     *         (only the seat id is set on their Seat)
+     */
+    public List<Booking> recover() {
+        try {
+            Files.createDirectories(file.getParent());
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            checkpointChannel = FileChannel.open(checkpointFile, StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+            long size = channel.size();
+            long from = Math.min(readCheckpoint(), size);
+            List<Booking> bookings = new ArrayList<>();
+            long end = from;
+            DataInputStream in = new DataInputStream(new BufferedInputStream(
+                    Channels.newInputStream(channel.position(from))));
+            try {
+                while (end < size) {
+                    int length = in.readInt();
+                    if (length <= 0 || end + 8 + length > size) {
+                        break;
+                    }
+                    byte[] payload = new byte[length];
+                    in.readFully(payload);
+                    if (in.readInt() != crc(payload, length)) {
+                        break;
+                    }
+                    bookings.add(decode(ByteBuffer.wrap(payload)));
+                    end += 8 + length;
+                }
+            } catch (EOFException ex) {
+                // Torn record at the end
+            }
+
+            if (end < size) {
+                log.warn("Cutting {} bytes of incomplete records off the end of {}", size - end, file);
+                channel.truncate(end);
+                channel.force(true);
+            }
+            channel.position(end);
+            written = end;
+            durable = end;
+            return bookings;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot open booking journal " + file, ex);
+        }
+    }
+
+    /**
+     * Appends the bookings and returns once they are on disk.
+     *
+     * @param appended called with the journal position just past the new
+     *                 records, while the journal is still locked - anything it
+     *                 queues is queued in journal order
+     */
+    public void append(List<Booking> bookings, LongConsumer appended) {
+        ByteBuffer records = encode(bookings);
+        long end;
+        writeLock.lock();
+        try {
+            if (failed) {
+                throw new IllegalStateException("Booking journal " + file + " failed; restart to recover");
+            }
+            try {
+                while (records.hasRemaining()) {
+                    channel.write(records);
+                }
+            } catch (IOException ex) {
+                // A partial record would hide everything appended after it from recover()
+                failed = true;
+                throw new UncheckedIOException("Cannot write booking journal " + file, ex);
+            }
+            end = written + records.limit();
+            written = end;
+            appended.accept(end);
+        } finally {
+            writeLock.unlock();
+        }
+        awaitDurable(end);
+    }
+
+    /**
+     * Returns once everything before position is on disk, forcing it there
+     * if no one else has yet.
+     */
+    public void awaitDurable(long position) {
+        syncLock.lock();
+        try {
+            if (durable >= position) {
+                // Someone else's fsync already covered it
+                return;
+            }
+            if (failed) {
+                throw new IllegalStateException("Booking journal " + file + " failed; restart to recover");
+            }
+            long target = written;
+            try {
+                channel.force(false);
+            } catch (IOException ex) {
+                // After a failed fsync the kernel may have dropped the dirty pages;
+                // nothing written since can be trusted to be on disk
+                failed = true;
+                throw new UncheckedIOException("Cannot sync booking journal " + file, ex);
+            }
+            durable = target;
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * @return the journal position just past the last record
+     */
+    public long end() {
+        return written;
+    }
+
+    /**
+     * Everything before position has been committed to the database. Once
+     * everything appended has been, and the file has grown past
+     * ticketing.booking.journal.compact-bytes, it is emptied.
+     */
+    public void checkpoint(long position) {
+        try {
+            if (position >= compactBytes) {
+                // Appends wait only while the file is being emptied
+                writeLock.lock();
+                try {
+                    if (position == written) {
+                        compact();
+                        return;
+                    }
+                } finally {
+                    writeLock.unlock();
+                }
+            }
+            writeCheckpoint(position);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot checkpoint booking journal " + file, ex);
+        }
+    }
+
+    private void compact() throws IOException {
+        // Checkpoint first: a crash in between replays bookings that are already written, which is harmless
+        writeCheckpoint(0);
+        channel.truncate(0);
+        channel.position(0);
+        channel.force(true);
+        written = 0;
+        syncLock.lock();
+        try {
+            durable = 0;
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            checkpointChannel.close();
+        }
+    }
+
+    private long readCheckpoint() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(16);
+        checkpointChannel.read(buffer, 0);
+        buffer.flip();
+        if (buffer.remaining() < 16) {
+            return 0;
+        }
+        long position = buffer.getLong();
+        // Written as the position and its complement, so a torn write reads as "no checkpoint"
+        return buffer.getLong() == ~position ? position : 0;
+    }
+
+    private void writeCheckpoint(long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(16).putLong(position).putLong(~position).flip();
+        checkpointChannel.write(buffer, 0);
+        checkpointChannel.force(false);
+    }
+
+    private static ByteBuffer encode(List<Booking> bookings) {
+        List<byte[]> names = new ArrayList<>(bookings.size());
+        int size = 0;
+        for (Booking booking : bookings) {
+            byte[] name = booking.getCustomerName().getBytes(StandardCharsets.UTF_8);
+            names.add(name);
+            size += 8 + payloadLength(name);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        for (int i = 0; i < bookings.size(); i++) {
+            Booking booking = bookings.get(i);
+            byte[] name = names.get(i);
+            int length = payloadLength(name);
+            int start = buffer.position() + 4;
+            buffer.putInt(length)
+                    .putLong(booking.getId())
+                    .putLong(booking.getSeat().getId())
+                    .putLong(booking.getBookedAt().toEpochSecond(ZoneOffset.UTC))
+                    .putInt(booking.getBookedAt().getNano())
+                    .putShort((short) name.length)
+                    .put(name);
+            buffer.putInt(crc(buffer.array(), start, length));
+        }
+        return buffer.flip();
+    }
+
+    private static Booking decode(ByteBuffer payload) {
+        long id = payload.getLong();
+        long seatId = payload.getLong();
+        LocalDateTime bookedAt = LocalDateTime.ofEpochSecond(payload.getLong(), payload.getInt(), ZoneOffset.UTC);
+        byte[] name = new byte[payload.getShort() & 0xFFFF];
+        payload.get(name);
+
+        Seat seat = new Seat();
+        seat.setId(seatId);
+        Booking booking = new Booking(new String(name, StandardCharsets.UTF_8), seat);
+        booking.setId(id);
+        booking.setBookedAt(bookedAt);
+        return booking;
+    }
+
+    private static int payloadLength(byte[] name) {
+        return 8 + 8 + 8 + 4 + 2 + name.length;
+    }
+
+    private static int crc(byte[] bytes, int length) {
+        return crc(bytes, 0, length);
+    }
+
+    private static int crc(byte[] bytes, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, offset, length);
+        return (int) crc.getValue();
+    }
+}
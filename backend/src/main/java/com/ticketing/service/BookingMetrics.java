@@ -0,0 +1,209 @@
+package com.ticketing.service;
+
+import com.ticketing.exception.ConcurrentBookingException;
+import com.ticketing.exception.EventNotOwnedException;
+import com.ticketing.exception.HoldExpiredException;
+import com.ticketing.exception.SeatAlreadyBookedException;
+import com.ticketing.exception.ServiceBusyException;
+import com.ticketing.repository.EventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Metrics for the booking path, scraped from /actuator/prometheus.
+ *
+ *   ticketing.booking           timer per operation and outcome
+ *   ticketing.claims            claims per event and outcome
+ *   ticketing.claims.lost       claims per event the index let through but
+ *                               the database turned down - what used to be
+ *                               optimistic-lock failures
+ *   ticketing.claims.in-flight  gauge per event: seats mid-claim right now
+ *   ticketing.claims.waiting    gauge per event: requests coalesced onto them
+ *   ticketing.seats.available   gauge per event
+ *   ticketing.db.bulkhead.*     transactions running and queued
+ *   ticketing.write-behind.pending  bookings not yet in the database
+ *   ticketing.write-behind.unwritten  bookings confirmed to customers whose
+ *                               seat the database had already booked; they
+ *                               are in unwritten_bookings. Alert on any.
+ *
+ * Meters are looked up once and kept, so recording is a couple of adds. The
+ * per-event meters are registered for every event there is at startup and
+ * for any other event the first time it sees a booking attempt.
+ */
+@Component
+public class BookingMetrics {
+
+    static final String RESERVE = "reserve";
+    static final String RESERVE_CART = "reserve-cart";
+    static final String HOLD = "hold";
+    static final String CONFIRM_HOLD = "confirm-hold";
+    static final String BEST_AVAILABLE = "best-available";
+
+    /** How a booking call ended. */
+    enum Outcome {
+        SUCCESS, UNAVAILABLE, CONFLICT, EXPIRED, BUSY, MISDIRECTED, INVALID, ERROR;
+
+        final String tag = name().toLowerCase(Locale.ROOT);
+
+        static Outcome of(RuntimeException ex) {
+            if (ex instanceof SeatAlreadyBookedException) {
+                return UNAVAILABLE;
+            }
+            if (ex instanceof ConcurrentBookingException || ex instanceof ObjectOptimisticLockingFailureException) {
+                return CONFLICT;
+            }
+            if (ex instanceof HoldExpiredException) {
+                return EXPIRED;
+            }
+            if (ex instanceof ServiceBusyException) {
+                return BUSY;
+            }
+            if (ex instanceof EventNotOwnedException) {
+                return MISDIRECTED;
+            }
+            if (ex instanceof IllegalArgumentException) {
+                return INVALID;
+            }
+            return ERROR;
+        }
+    }
+
+    private final MeterRegistry registry;
+    private final EventRepository eventRepository;
+    private final SeatAvailabilityIndex availabilityIndex;
+
+    private final Map<String, Map<Outcome, Timer>> timers = new HashMap<>();
+    private final ConcurrentHashMap<Long, EventMeters> events = new ConcurrentHashMap<>();
+    private final EventMeters unindexed;
+
+    public BookingMetrics(MeterRegistry registry, EventRepository eventRepository,
+            SeatAvailabilityIndex availabilityIndex, DatabaseBulkhead databaseBulkhead,
+            BookingWriteBehind writeBehind) {
+        this.registry = registry;
+        this.eventRepository = eventRepository;
+        this.availabilityIndex = availabilityIndex;
+        for (String operation : new String[] { RESERVE, RESERVE_CART, HOLD, CONFIRM_HOLD, BEST_AVAILABLE }) {
+            Map<Outcome, Timer> byOutcome = new EnumMap<>(Outcome.class);
+            for (Outcome outcome : Outcome.values()) {
+                byOutcome.put(outcome, Timer.builder("ticketing.booking")
+                        .description("Booking calls, from the index claim to the response")
+                        .tag("operation", operation)
+                        .tag("outcome", outcome.tag)
+                        .register(registry));
+            }
+            timers.put(operation, byOutcome);
+        }
+        this.unindexed = new EventMeters("none");
+
+        Gauge.builder("ticketing.db.bulkhead.active", databaseBulkhead, DatabaseBulkhead::active)
+                .description("Booking transactions running")
+                .register(registry);
+        Gauge.builder("ticketing.db.bulkhead.waiting", databaseBulkhead, DatabaseBulkhead::waiting)
+                .description("Booking transactions queued for the database")
+                .register(registry);
+        Gauge.builder("ticketing.write-behind.pending", writeBehind, BookingWriteBehind::pending)
+                .description("Bookings confirmed but not yet written to the database")
+                .register(registry);
+        FunctionCounter.builder("ticketing.write-behind.unwritten", writeBehind, BookingWriteBehind::unwritten)
+                .description("Confirmed bookings whose seat was already booked in the database")
+                .register(registry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void registerEvents() {
+        eventRepository.findAllIds().forEach(this::forEvent);
+    }
+
+    /**
+     * Runs a booking call, timing it and counting its outcome against the event.
+     *
+     * @param eventId the event of the seat(s), null if they aren't indexed
+     */
+    <T> T record(String operation, Long eventId, Supplier<T> call) {
+        long start = registry.config().clock().monotonicTime();
+        Outcome outcome = Outcome.SUCCESS;
+        try {
+            return call.get();
+        } catch (RuntimeException ex) {
+            outcome = Outcome.of(ex);
+            throw ex;
+        } finally {
+            long elapsed = registry.config().clock().monotonicTime() - start;
+            timers.get(operation).get(outcome).record(elapsed, TimeUnit.NANOSECONDS);
+            forEvent(eventId).claims.get(outcome).increment();
+        }
+    }
+
+    /**
+     * The database turned down a claim the index had let through.
+     */
+    void claimLost(Long eventId) {
+        forEvent(eventId).lost.increment();
+    }
+
+    private EventMeters forEvent(Long eventId) {
+        if (eventId == null) {
+            return unindexed;
+        }
+        EventMeters meters = events.get(eventId);
+        if (meters == null) {
+            meters = events.computeIfAbsent(eventId, id -> {
+                EventMeters created = new EventMeters(id.toString());
+                created.registerGauges(id);
+                return created;
+            });
+        }
+        return meters;
+    }
+
+    private final class EventMeters {
+        final String event;
+        final Map<Outcome, Counter> claims = new EnumMap<>(Outcome.class);
+        final Counter lost;
+
+        EventMeters(String event) {
+            this.event = event;
+            for (Outcome outcome : Outcome.values()) {
+                claims.put(outcome, Counter.builder("ticketing.claims")
+                        .description("Booking attempts per event")
+                        .tag("event", event)
+                        .tag("outcome", outcome.tag)
+                        .register(registry));
+            }
+            this.lost = Counter.builder("ticketing.claims.lost")
+                    .description("Claims the index let through but the database turned down")
+                    .tag("event", event)
+                    .register(registry);
+        }
+
+        void registerGauges(Long eventId) {
+            Gauge.builder("ticketing.claims.in-flight", availabilityIndex, index -> index.claimsInFlight(eventId))
+                    .description("Seats with a claim in flight")
+                    .tag("event", event)
+                    .register(registry);
+            Gauge.builder("ticketing.claims.waiting", availabilityIndex, index -> index.waitingClaims(eventId))
+                    .description("Requests waiting on another request's claim for the same seat")
+                    .tag("event", event)
+                    .register(registry);
+            Gauge.builder("ticketing.seats.available", availabilityIndex, index -> index.availableSeats(eventId))
+                    .description("Seats neither booked nor held")
+                    .tag("event", event)
+                    .register(registry);
+        }
+    }
+}
@@ -2,31 +2,83 @@ package com.ticketing.service;
 
 import com.ticketing.entity.Booking;
 import com.ticketing.entity.Seat;
+import com.ticketing.dto.SeatHold;
+import com.ticketing.dto.SeatUpdate;
+import com.ticketing.dto.SeatView;
+import com.ticketing.exception.ConcurrentBookingException;
+import com.ticketing.exception.EventNotOwnedException;
+import com.ticketing.exception.HoldExpiredException;
 import com.ticketing.exception.SeatAlreadyBookedException;
 import com.ticketing.repository.BookingRepository;
 import com.ticketing.repository.SeatRepository;
+import com.ticketing.service.SeatAvailabilityIndex.SeatClaim;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
- * THE CORE SERVICE - This is where Optimistic Locking magic happens.
+ * THE CORE SERVICE - This is where the race for a seat is decided.
  * 
  * Interview explanation:
- * "When reserveSeat() is called, JPA loads the Seat with its current version.
- * When we call save(), JPA generates an UPDATE with WHERE version = ?
- * If another transaction already incremented the version, the WHERE finds 0
- * rows,
- * and JPA throws ObjectOptimisticLockingFailureException."
+ * "When reserveSeat() is called, we don't load the Seat first. We send one
+ * conditional UPDATE: SET booked=true, version=version+1 WHERE id=? AND
+ * booked=false. The database serializes the writers on that row, so exactly
+ * one of them sees 1 row updated. Everyone else sees 0 rows - no entity load,
+ * no ObjectOptimisticLockingFailureException, no stack trace."
  */
 @Service
 public class BookingService {
 
+    /** Largest cart a customer can book in one go. */
+    public static final int MAX_SEATS_PER_BOOKING = 8;
+
+    /** Longest a seat can be held during checkout. */
+    public static final int MAX_HOLD_MINUTES = 30;
+
+    /** How often a best-available request tries another block after the database turned one down. */
+    static final int MAX_BEST_AVAILABLE_ATTEMPTS = 3;
+
     private final SeatRepository seatRepository;
     private final BookingRepository bookingRepository;
+    private final SeatAvailabilityIndex availabilityIndex;
+    private final SeatMapCache seatMapCache;
+    private final SeatUpdatePublisher seatUpdatePublisher;
+    private final HoldExpiryScheduler holdExpiryScheduler;
+    private final EventCatalog eventCatalog;
+    private final EventOwnership ownership;
+    private final BookingWriteBehind writeBehind;
+    private final BookingMetrics metrics;
+    private final DatabaseBulkhead databaseBulkhead;
+    private final TransactionTemplate transactionTemplate;
 
-    public BookingService(SeatRepository seatRepository, BookingRepository bookingRepository) {
+    public BookingService(SeatRepository seatRepository, BookingRepository bookingRepository,
+            SeatAvailabilityIndex availabilityIndex, SeatMapCache seatMapCache,
+            SeatUpdatePublisher seatUpdatePublisher, HoldExpiryScheduler holdExpiryScheduler,
+            EventCatalog eventCatalog, EventOwnership ownership, BookingWriteBehind writeBehind,
+            BookingMetrics metrics, DatabaseBulkhead databaseBulkhead, TransactionTemplate transactionTemplate) {
         this.seatRepository = seatRepository;
         this.bookingRepository = bookingRepository;
+        this.availabilityIndex = availabilityIndex;
+        this.seatMapCache = seatMapCache;
+        this.seatUpdatePublisher = seatUpdatePublisher;
+        this.holdExpiryScheduler = holdExpiryScheduler;
+        this.eventCatalog = eventCatalog;
+        this.ownership = ownership;
+        this.writeBehind = writeBehind;
+        this.metrics = metrics;
+        this.databaseBulkhead = databaseBulkhead;
+        this.transactionTemplate = transactionTemplate;
     }
 
     /**
@@ -38,53 +90,436 @@ public class BookingService {
      * 
      * T1: User A calls reserveSeat(seatId=5)
      * T2: User B calls reserveSeat(seatId=5)
-     * T3: User A's transaction loads Seat #5 (version=0, booked=false)
-     * T4: User B's transaction loads Seat #5 (version=0, booked=false)
-     * T5: User A sets booked=true, saves → UPDATE seats SET booked=true, version=1
-     * WHERE id=5 AND version=0
+     * T3: User A's transaction runs UPDATE seats SET booked=true, version=version+1
+     * WHERE id=5 AND booked=false
      * → Success! 1 row updated. Version is now 1.
-     * T6: User B sets booked=true, saves → UPDATE seats SET booked=true, version=1
-     * WHERE id=5 AND version=0
-     * → Fails! 0 rows updated (version is no longer 0). JPA throws
-     * OptimisticLockException.
+     * T4: User B's transaction runs the same UPDATE
+     * → 0 rows updated (booked is no longer false). Nothing to roll back.
      * 
      * Result: User A gets the seat, User B gets a 409 Conflict error.
      * 
+     * Before any of that, the seat is claimed in the SeatAvailabilityIndex.
+     * Seats that are already booked (or mid-claim) are rejected right there,
+     * without opening a transaction or borrowing a connection.
+     * 
+     * In partitioned and journal mode the claim is the whole decision: the
+     * booking is confirmed straight away (once journaled, in journal mode)
+     * and written to the database behind the scenes.
+     * 
      * @param seatId       The ID of the seat to book
      * @param customerName The name of the customer
      * @return The created Booking
-     * @throws SeatAlreadyBookedException                                      if
-     *                                                                         seat
-     *                                                                         is
-     *                                                                         already
-     *                                                                         booked
-     * @throws org.springframework.orm.ObjectOptimisticLockingFailureException if
-     *                                                                         concurrent
-     *                                                                         booking
-     *                                                                         detected
-     */
-    @Transactional
+     * @throws SeatAlreadyBookedException if the seat is already booked
+     */
     public Booking reserveSeat(Long seatId, String customerName) {
-        // Step 1: Load the seat (JPA remembers the version number)
-        Seat seat = seatRepository.findById(seatId)
-                .orElseThrow(() -> new RuntimeException("Seat not found with id: " + seatId));
+        return metrics.record(BookingMetrics.RESERVE, availabilityIndex.eventIdOf(seatId),
+                () -> reserve(seatId, customerName));
+    }
 
-        // Step 2: Business logic check - is it already booked?
-        if (seat.isBooked()) {
-            throw new SeatAlreadyBookedException(seatId);
+    private Booking reserve(Long seatId, String customerName) {
+        // Step 0: Claim the seat in memory - cheap rejection of doomed requests
+        SeatClaim claim = availabilityIndex.begin(seatId);
+        if (decidedInMemory(List.of(claim))) {
+            return bookBehind(List.of(claim), List.of(seatId), customerName).get(0);
         }
 
-        // Step 3: Mark as booked
-        seat.setBooked(true);
+        Booking booking;
+        try {
+            booking = inTransaction(status -> bookInDatabase(seatId, customerName));
+        } catch (RuntimeException ex) {
+            claim.abort();
+            throw ex;
+        }
+
+        if (booking == null) {
+            throw lost(claim, seatId);
+        }
+        claim.confirm();
+        seatChanged(booking.getSeat());
+        return booking;
+    }
+
+    /**
+     * @return the new Booking, or null if the seat was already taken
+     */
+    private Booking bookInDatabase(Long seatId, String customerName) {
+        // Step 1: Claim the row - a single UPDATE ... WHERE booked=false
+        if (seatRepository.claimSeat(seatId, LocalDateTime.now()) == 0) {
+            return null;
+        }
 
-        // Step 4: Save the seat - THIS IS WHERE OPTIMISTIC LOCKING KICKS IN
-        // JPA will generate: UPDATE seats SET booked=true, version=version+1 WHERE id=?
-        // AND version=?
-        // If version doesn't match, 0 rows are updated → OptimisticLockException
-        seatRepository.save(seat);
+        // Step 2: Winners only - read back the claimed row for the response
+        Seat seat = seatRepository.findById(seatId).orElseThrow();
 
-        // Step 5: Create and save the booking record
+        // Step 3: Create and save the booking record
         Booking booking = new Booking(customerName, seat);
         return bookingRepository.save(booking);
     }
+
+    /**
+     * The database turned a claim down although the index let it through -
+     * the seat was taken before the index was loaded, or the seat isn't
+     * indexed at all. Read the row once so the index converges on it.
+     * 
+     * @return the exception to send back to the customer
+     */
+    private RuntimeException lost(SeatClaim claim, Long seatId) {
+        metrics.claimLost(claim.eventId());
+        Seat seat = seatRepository.findById(seatId).orElse(null);
+        if (seat == null) {
+            claim.abort();
+            return new RuntimeException("Seat not found with id: " + seatId);
+        }
+        settle(claim, seat);
+        return seat.isBooked()
+                ? SeatAlreadyBookedException.BOOKED
+                : new SeatAlreadyBookedException("Seat " + seatId + " is no longer available");
+    }
+
+    private void settle(SeatClaim claim, Seat seat) {
+        if (seat.isBooked()) {
+            claim.confirm();
+        } else if (seat.isHeld()) {
+            claim.hold();
+            holdExpiryScheduler.schedule(new SeatHold(seat.getId(), seat.getHoldToken(), seat.getHoldExpiresAt()));
+        } else {
+            claim.abort();
+        }
+        seatChanged(seat);
+    }
+
+    /**
+     * Books several seats for one customer, all or nothing.
+     * 
+     * All seats are claimed by one UPDATE ... WHERE id IN (...) AND booked=false.
+     * If it touches fewer rows than requested, someone beat us to at least one
+     * seat and the whole transaction rolls back. Otherwise the Booking rows go
+     * out as a single JDBC batch.
+     * 
+     * @param seatIds      The seats to book (1 to MAX_SEATS_PER_BOOKING, no duplicates)
+     * @param customerName The name of the customer
+     * @return One Booking per seat, in request order
+     * @throws SeatAlreadyBookedException if any of the seats is already booked
+     */
+    public List<Booking> reserveSeats(List<Long> seatIds, String customerName) {
+        Long eventId = seatIds.isEmpty() ? null : availabilityIndex.eventIdOf(seatIds.get(0));
+        return metrics.record(BookingMetrics.RESERVE_CART, eventId, () -> reserveAll(seatIds, customerName));
+    }
+
+    private List<Booking> reserveAll(List<Long> seatIds, String customerName) {
+        Set<Long> ids = new LinkedHashSet<>(seatIds);
+        if (ids.isEmpty() || ids.size() > MAX_SEATS_PER_BOOKING || ids.size() != seatIds.size()) {
+            throw new IllegalArgumentException(
+                    "Book between 1 and " + MAX_SEATS_PER_BOOKING + " distinct seats at a time");
+        }
+
+        return bookClaimed(availabilityIndex.beginAll(ids), ids, customerName);
+    }
+
+    /**
+     * Books the claimed seats, all or nothing: in memory in partitioned and
+     * journal mode, otherwise with one UPDATE ... WHERE id IN (...).
+     */
+    private List<Booking> bookClaimed(List<SeatClaim> claims, Set<Long> ids, String customerName) {
+        if (decidedInMemory(claims)) {
+            return bookBehind(claims, ids, customerName);
+        }
+
+        List<Booking> bookings;
+        try {
+            bookings = inTransaction(status -> {
+                List<Booking> booked = bookAllInDatabase(ids, customerName);
+                if (booked == null) {
+                    status.setRollbackOnly();
+                }
+                return booked;
+            });
+        } catch (RuntimeException ex) {
+            claims.forEach(SeatClaim::abort);
+            throw ex;
+        }
+
+        if (bookings != null) {
+            claims.forEach(SeatClaim::confirm);
+            bookings.forEach(booking -> seatChanged(booking.getSeat()));
+            return bookings;
+        }
+
+        // Lost at least one seat - find out which, so the index learns them
+        // and the customer knows what to drop from the cart
+        metrics.claimLost(claims.get(0).eventId());
+        Map<Long, Seat> current = seatRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Seat::getId, Function.identity()));
+        List<Long> taken = new ArrayList<>();
+        int i = 0;
+        for (Long seatId : ids) {
+            SeatClaim claim = claims.get(i++);
+            Seat seat = current.get(seatId);
+            if (seat == null) {
+                claim.abort();
+                continue;
+            }
+            settle(claim, seat);
+            if (seat.isBooked() || seat.isHeld()) {
+                taken.add(seatId);
+            }
+        }
+        if (current.size() != ids.size()) {
+            throw new RuntimeException("Seat not found with id in: " + ids);
+        }
+        if (taken.isEmpty()) {
+            throw new ConcurrentBookingException("Booking conflict for seats " + ids + ". Please try again.");
+        }
+        throw new SeatAlreadyBookedException("Seats " + taken + " are no longer available");
+    }
+
+    /**
+     * Books the best quantity seats side by side that are still free, all or
+     * nothing. The seats are picked by SeatAvailabilityIndex.beginBestAvailable.
+     * 
+     * When customers pick seats off the map, they all go for the same few
+     * and all but one of them lose the race. Here each request is handed a
+     * block nobody else has claimed, so a rush of requests spreads over the
+     * house instead of colliding. From there it is a cart booking like
+     * reserveSeats(). If the database turns the block down (the index
+     * didn't know a seat was taken yet) the index learns the seats and
+     * another block is tried.
+     * 
+     * @param eventId      The event to book
+     * @param quantity     How many seats (1 to MAX_SEATS_PER_BOOKING)
+     * @param customerName The name of the customer
+     * @return One Booking per seat, in seat number order
+     * @throws SeatAlreadyBookedException if no row has that many seats together
+     */
+    public List<Booking> reserveBestAvailable(Long eventId, int quantity, String customerName) {
+        // Unknown ids from the URL don't get meters of their own
+        Long known = eventCatalog.getEvent(eventId) != null ? eventId : null;
+        return metrics.record(BookingMetrics.BEST_AVAILABLE, known,
+                () -> reserveBest(eventId, quantity, customerName));
+    }
+
+    private List<Booking> reserveBest(Long eventId, int quantity, String customerName) {
+        if (quantity < 1 || quantity > MAX_SEATS_PER_BOOKING) {
+            throw new IllegalArgumentException("Book between 1 and " + MAX_SEATS_PER_BOOKING + " seats at a time");
+        }
+        if (eventCatalog.getEvent(eventId) == null) {
+            throw new RuntimeException("Event not found with id: " + eventId);
+        }
+
+        for (int attempt = 1; ; attempt++) {
+            List<SeatClaim> claims = availabilityIndex.beginBestAvailable(eventId, quantity);
+            if (claims.isEmpty()) {
+                throw new SeatAlreadyBookedException(
+                        "No " + quantity + " seats together are available for event " + eventId);
+            }
+            Set<Long> ids = new LinkedHashSet<>();
+            claims.forEach(claim -> ids.add(claim.seatId()));
+            try {
+                return bookClaimed(claims, ids, customerName);
+            } catch (SeatAlreadyBookedException ex) {
+                if (attempt == MAX_BEST_AVAILABLE_ATTEMPTS) {
+                    throw ex;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the new Bookings in request order, or null if any seat was taken
+     */
+    private List<Booking> bookAllInDatabase(Set<Long> seatIds, String customerName) {
+        if (seatRepository.claimSeats(seatIds, LocalDateTime.now()) != seatIds.size()) {
+            return null;
+        }
+
+        Map<Long, Seat> seats = seatRepository.findAllById(seatIds).stream()
+                .collect(Collectors.toMap(Seat::getId, Function.identity()));
+
+        List<Booking> bookings = new ArrayList<>(seatIds.size());
+        for (Long seatId : seatIds) {
+            bookings.add(new Booking(customerName, seats.get(seatId)));
+        }
+        return bookingRepository.saveAll(bookings);
+    }
+
+    /**
+     * Holds a seat for a few minutes while the customer pays.
+     * 
+     * Same cost as reserveSeat(): one CAS in the index and one conditional
+     * UPDATE. The hold token is the only way to confirm or release the hold;
+     * if neither happens the HoldExpiryScheduler releases it on time.
+     * 
+     * @param seatId  The seat to hold
+     * @param minutes How long to hold it (1 to MAX_HOLD_MINUTES)
+     * @return The hold, including its token and expiry time
+     * @throws SeatAlreadyBookedException if the seat is booked or already held
+     */
+    public SeatHold holdSeat(Long seatId, int minutes) {
+        return metrics.record(BookingMetrics.HOLD, availabilityIndex.eventIdOf(seatId), () -> hold(seatId, minutes));
+    }
+
+    private SeatHold hold(Long seatId, int minutes) {
+        if (minutes < 1 || minutes > MAX_HOLD_MINUTES) {
+            throw new IllegalArgumentException("Seats can be held for 1 to " + MAX_HOLD_MINUTES + " minutes");
+        }
+
+        SeatClaim claim = availabilityIndex.begin(seatId);
+        checkOwned(List.of(claim));
+
+        LocalDateTime now = LocalDateTime.now();
+        SeatHold hold = new SeatHold(seatId, UUID.randomUUID().toString(), now.plusMinutes(minutes));
+        int held;
+        try {
+            held = inTransaction(status ->
+                    seatRepository.holdSeat(seatId, hold.holdToken(), hold.expiresAt(), now));
+        } catch (RuntimeException ex) {
+            claim.abort();
+            throw ex;
+        }
+
+        if (held == 0) {
+            throw lost(claim, seatId);
+        }
+
+        claim.hold();
+        holdChanged(seatId, true);
+        holdExpiryScheduler.schedule(hold);
+        return hold;
+    }
+
+    /**
+     * Turns a hold into a booking.
+     * 
+     * @throws HoldExpiredException if the hold expired or the token doesn't match
+     */
+    public Booking confirmHold(Long seatId, String holdToken, String customerName) {
+        return metrics.record(BookingMetrics.CONFIRM_HOLD, availabilityIndex.eventIdOf(seatId),
+                () -> confirm(seatId, holdToken, customerName));
+    }
+
+    private Booking confirm(Long seatId, String holdToken, String customerName) {
+        SeatClaim claim = availabilityIndex.beginConfirm(seatId);
+        checkOwned(List.of(claim));
+
+        Booking booking;
+        try {
+            booking = inTransaction(status -> {
+                if (seatRepository.confirmHold(seatId, holdToken, LocalDateTime.now()) == 0) {
+                    return null;
+                }
+                Seat seat = seatRepository.findById(seatId).orElseThrow();
+                return bookingRepository.save(new Booking(customerName, seat));
+            });
+        } catch (RuntimeException ex) {
+            claim.abort();
+            throw ex;
+        }
+
+        if (booking == null) {
+            claim.abort();
+            throw new HoldExpiredException(seatId);
+        }
+        claim.confirm();
+        seatChanged(booking.getSeat());
+        return booking;
+    }
+
+    /**
+     * Gives a held seat back before its hold runs out. Releasing a hold that
+     * is already gone is a no-op.
+     */
+    public void releaseHold(Long seatId, String holdToken) {
+        Integer released = inTransaction(status -> seatRepository.releaseHold(seatId, holdToken));
+        if (released != null && released > 0) {
+            availabilityIndex.release(seatId);
+            holdChanged(seatId, false);
+        }
+    }
+
+    /**
+     * True in partitioned or journal mode when every seat is indexed on this
+     * node: the index is then the authority and the claims have already
+     * decided the race. Untracked seats fall back to the database.
+     */
+    private boolean decidedInMemory(List<SeatClaim> claims) {
+        checkOwned(claims);
+        return writeBehind.isEnabled() && claims.stream().allMatch(SeatClaim::isTracked);
+    }
+
+    /**
+     * Refuses claims on events another node owns; only the owner's index
+     * knows which of its bookings haven't reached the database yet.
+     */
+    private void checkOwned(List<SeatClaim> claims) {
+        for (SeatClaim claim : claims) {
+            if (claim.isTracked() && !ownership.isLocal(claim.eventId())) {
+                claims.forEach(SeatClaim::abort);
+                throw new EventNotOwnedException(claim.eventId(), ownership.ownerOf(claim.eventId()));
+            }
+        }
+    }
+
+    /**
+     * Confirms claimed seats without a transaction and queues the bookings
+     * for the BookingWriteBehind. The response is built from the seat map cache.
+     */
+    private List<Booking> bookBehind(List<SeatClaim> claims, Collection<Long> seatIds, String customerName) {
+        List<Booking> bookings = new ArrayList<>(claims.size());
+        try {
+            int i = 0;
+            for (Long seatId : seatIds) {
+                bookings.add(new Booking(customerName, bookedSeat(claims.get(i++).eventId(), seatId)));
+            }
+            writeBehind.submit(bookings);
+        } catch (RuntimeException ex) {
+            claims.forEach(SeatClaim::abort);
+            throw ex;
+        }
+
+        claims.forEach(SeatClaim::confirm);
+        bookings.forEach(booking -> seatChanged(booking.getSeat()));
+        return bookings;
+    }
+
+    /**
+     * The seat as it is once this booking is written.
+     */
+    private Seat bookedSeat(Long eventId, Long seatId) {
+        SeatView view = seatMapCache.getSeat(eventId, seatId);
+        if (view == null) {
+            throw new RuntimeException("Seat not found with id: " + seatId);
+        }
+        Seat seat = new Seat();
+        seat.setId(view.id());
+        seat.setSeatNumber(view.seatNumber());
+        seat.setSection(view.section());
+        seat.setRowLabel(view.rowLabel());
+        seat.setNumber(view.number());
+        seat.setEvent(eventCatalog.getEvent(eventId));
+        seat.setBooked(true);
+        seat.setVersion(view.version() + 1);
+        return seat;
+    }
+
+    /**
+     * Runs action in a transaction, once the database bulkhead lets it through.
+     */
+    private <T> T inTransaction(TransactionCallback<T> action) {
+        return databaseBulkhead.call(() -> transactionTemplate.execute(action));
+    }
+
+    /**
+     * Write-through for a committed change: refresh the cached seat map and
+     * push the change to anyone watching the event.
+     */
+    private void seatChanged(Seat seat) {
+        seatMapCache.update(seat);
+        seatUpdatePublisher.publish(seat.getEvent().getId(),
+                new SeatUpdate(seat.getId(), seat.isBooked(), seat.isHeld()));
+    }
+
+    private void holdChanged(Long seatId, boolean held) {
+        seatMapCache.updateHeld(seatId, held);
+        seatUpdatePublisher.publish(new SeatUpdate(seatId, false, held));
+    }
 }
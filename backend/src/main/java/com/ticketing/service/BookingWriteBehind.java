@@ -0,0 +1,296 @@
+package com.ticketing.service;
+
+import com.ticketing.entity.Booking;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes bookings to the database after they were decided in memory: in
+ * partitioned mode (see EventOwnership) and in ticketing.booking.mode=journal.
+ *
+ * The node that owns an event confirms a booking as soon as its
+ * SeatAvailabilityIndex claim succeeds and hands the booking to this writer.
+ * A single background thread drains whatever has queued up and writes it in
+ * one transaction: one batched UPDATE on seats and one batched INSERT into
+ * bookings. The busier
+ * the on-sale, the bigger the batches - the database sees a few large
+ * transactions instead of one per customer.
+ *
+ * Bookings still in the queue are written on shutdown. Without the journal
+ * they are lost if the process dies; with it, submit() only returns once
+ * they are in the BookingJournal, and anything the database didn't get is
+ * replayed on the next start, before the index is loaded. The database lags
+ * the index by at most one batch.
+ *
+ * A booking whose seat turns out to be booked in the database already can
+ * only come from something outside this node booking the seat. The
+ * customer has been told they have it, so it is not dropped: it goes into
+ * unwritten_bookings in the same transaction, to be put right by hand, and
+ * is counted (ticketing.write-behind.unwritten).
+ */
+@Component
+public class BookingWriteBehind {
+
+    private static final Logger log = LoggerFactory.getLogger(BookingWriteBehind.class);
+
+    private static final String CLAIM_SEAT = "update seats set booked = true, hold_token = null, "
+            + "hold_expires_at = null, version = version + 1 where id = ? and booked = false";
+    private static final String INSERT_BOOKING =
+            "insert into bookings (id, customer_name, seat_id, booked_at) values (?, ?, ?, ?)";
+    private static final String INSERT_UNWRITTEN = "insert into unwritten_bookings "
+            + "(id, customer_name, seat_id, booked_at, recorded_at) values (?, ?, ?, ?, ?)";
+
+    private static final long RETRY_DELAY_MS = 1000;
+
+    /** Length of the bookings.customer_name column. */
+    private static final int MAX_CUSTOMER_NAME = 255;
+
+    private final boolean enabled;
+    private final BookingJournal journal;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final SessionFactoryImplementor sessionFactory;
+    private final BeforeExecutionGenerator bookingIds;
+    private final int batchSize;
+
+    private final LinkedBlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicLong unwritten = new AtomicLong();
+    private final Thread worker = new Thread(this::run, "booking-write-behind");
+    private volatile boolean running = true;
+
+    public BookingWriteBehind(EventOwnership ownership, BookingJournal journal, JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate, EntityManagerFactory entityManagerFactory,
+            @Value("${ticketing.cluster.write-behind.batch-size:500}") int batchSize) {
+        this.enabled = ownership.isEnabled() || journal.isEnabled();
+        this.journal = journal;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        // Hibernate's own generator, so these ids never collide with bookings saved through JPA
+        this.bookingIds = (BeforeExecutionGenerator) sessionFactory.getMappingMetamodel()
+                .getEntityDescriptor(Booking.class).getGenerator();
+        this.batchSize = batchSize;
+        this.worker.setDaemon(true);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Writes whatever the journal has that the database may not, so the
+     * index is loaded from complete data.
+     */
+    @PostConstruct
+    public void recover() {
+        if (!journal.isEnabled()) {
+            return;
+        }
+        List<Booking> unwritten = journal.recover();
+        for (int start = 0; start < unwritten.size(); start += batchSize) {
+            write(unwritten.subList(start, Math.min(start + batchSize, unwritten.size())), true);
+        }
+        if (!unwritten.isEmpty()) {
+            log.info("Replayed {} bookings from the journal", unwritten.size());
+        }
+        journal.checkpoint(journal.end());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (enabled) {
+            worker.start();
+        }
+    }
+
+    /**
+     * Writes what is still queued, then stops.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (worker.isAlive()) {
+            worker.join(TimeUnit.SECONDS.toMillis(30));
+        }
+        if (pending.get() > 0) {
+            log.error("Stopped with {} bookings not written to the database", pending.get());
+        }
+    }
+
+    /**
+     * Gives the bookings their ids and queues them for the database. With
+     * the journal on, returns once they are durable in it.
+     */
+    public void submit(List<Booking> bookings) {
+        for (Booking booking : bookings) {
+            // Rejected now rather than failing its whole batch later
+            if (booking.getCustomerName().length() > MAX_CUSTOMER_NAME) {
+                throw new IllegalArgumentException(
+                        "Customer names can be at most " + MAX_CUSTOMER_NAME + " characters");
+            }
+        }
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            for (Booking booking : bookings) {
+                booking.setId((Long) bookingIds.generate(
+                        (SharedSessionContractImplementor) session, booking, null, EventType.INSERT));
+            }
+        }
+        if (journal.isEnabled()) {
+            journal.append(bookings, position -> enqueue(bookings, position));
+        } else {
+            enqueue(bookings, 0);
+        }
+    }
+
+    private void enqueue(List<Booking> bookings, long journalPosition) {
+        pending.addAndGet(bookings.size());
+        for (Booking booking : bookings) {
+            queue.add(new Pending(booking, journalPosition));
+        }
+    }
+
+    /**
+     * @return bookings confirmed but not yet committed to the database
+     */
+    public int pending() {
+        return pending.get();
+    }
+
+    /**
+     * @return bookings since startup that went to unwritten_bookings
+     *         because their seat was already booked in the database
+     */
+    public long unwritten() {
+        return unwritten.get();
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        List<Booking> bookings = new ArrayList<>(batchSize);
+        while (running || !batch.isEmpty() || !queue.isEmpty()) {
+            try {
+                if (batch.isEmpty()) {
+                    Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                    batch.forEach(entry -> bookings.add(entry.booking()));
+                }
+                long journalPosition = batch.get(batch.size() - 1).journalPosition();
+                if (journal.isEnabled()) {
+                    // Never let the database get ahead of the journal
+                    journal.awaitDurable(journalPosition);
+                }
+                write(bookings, false);
+                if (journal.isEnabled()) {
+                    // The queue is in journal order, so the last entry covers the whole batch
+                    journal.checkpoint(journalPosition);
+                }
+                pending.addAndGet(-batch.size());
+                batch.clear();
+                bookings.clear();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException ex) {
+                // Keep the batch: these bookings were already confirmed to customers
+                log.warn("Writing {} bookings failed, retrying", batch.size(), ex);
+                try {
+                    Thread.sleep(RETRY_DELAY_MS);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * @param replay true for bookings from the journal, some of which may
+     *               already have been written before the restart
+     */
+    private void write(List<Booking> batch, boolean replay) {
+        List<Booking> lost = new ArrayList<>();
+        transactionTemplate.executeWithoutResult(status -> {
+            lost.clear();
+            int[] claimed = jdbcTemplate.batchUpdate(CLAIM_SEAT, batch, batch.size(),
+                    (ps, booking) -> ps.setLong(1, booking.getSeat().getId()))[0];
+
+            List<Booking> written = new ArrayList<>(batch.size());
+            for (int i = 0; i < claimed.length; i++) {
+                if (claimed[i] == 0) {
+                    if (replay && alreadyWritten(batch.get(i))) {
+                        continue;
+                    }
+                    // Only possible if something other than this node booked the seat
+                    lost.add(batch.get(i));
+                } else {
+                    written.add(batch.get(i));
+                }
+            }
+            if (!lost.isEmpty()) {
+                LocalDateTime now = LocalDateTime.now();
+                jdbcTemplate.batchUpdate(INSERT_UNWRITTEN, lost, lost.size(), (ps, booking) -> {
+                    ps.setLong(1, booking.getId());
+                    ps.setString(2, booking.getCustomerName());
+                    ps.setLong(3, booking.getSeat().getId());
+                    ps.setObject(4, booking.getBookedAt());
+                    ps.setObject(5, now);
+                });
+            }
+            if (!written.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_BOOKING, written, written.size(), (ps, booking) -> {
+                    ps.setLong(1, booking.getId());
+                    ps.setString(2, booking.getCustomerName());
+                    ps.setLong(3, booking.getSeat().getId());
+                    ps.setObject(4, booking.getBookedAt());
+                });
+            }
+        });
+        // After the commit, so a retried batch isn't counted twice
+        for (Booking booking : lost) {
+            unwritten.incrementAndGet();
+            log.error("Seat {} was already booked in the database; booking {} for {} kept in unwritten_bookings",
+                    booking.getSeat().getId(), booking.getId(), booking.getCustomerName());
+        }
+    }
+
+    /**
+     * Whether a replayed booking made it to bookings, or unwritten_bookings,
+     * before the restart.
+     */
+    private boolean alreadyWritten(Booking booking) {
+        Integer count = jdbcTemplate.queryForObject("select (select count(*) from bookings where id = ?)"
+                + " + (select count(*) from unwritten_bookings where id = ?)",
+                Integer.class, booking.getId(), booking.getId());
+        return count != null && count > 0;
+    }
+
+    private record Pending(Booking booking, long journalPosition) {
+    }
+}
@@ -0,0 +1,91 @@
+package com.ticketing.service;
+
+import com.ticketing.exception.ServiceBusyException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Caps how many booking transactions run against the database at once.
+ *
+ * KEY CONCEPT: Tomcat's thread pool (200) is far larger than the
+ * connection pool (20), so an on-sale spike parks most request threads on
+ * Hikari, each holding a socket and a waiter until it times out with a 500,
+ * while the seat map and event pages behind them get no threads at all.
+ *
+ * The bulkhead makes the limit explicit. At most max-concurrent
+ * transactions run; up to max-waiting more queue in arrival order for
+ * acquire-timeout-ms. Everyone else is turned away at once with a 503,
+ * before touching the pool.
+ */
+@Component
+public class DatabaseBulkhead {
+
+    private final Semaphore permits;
+    private final int maxConcurrent;
+    private final long acquireTimeoutMillis;
+    private final int maxWaiting;
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    public DatabaseBulkhead(
+            @Value("${ticketing.db.max-concurrent:16}") int maxConcurrent,
+            @Value("${ticketing.db.acquire-timeout-ms:500}") long acquireTimeoutMillis,
+            @Value("${ticketing.db.max-waiting:2000}") int maxWaiting) {
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.maxConcurrent = maxConcurrent;
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.maxWaiting = maxWaiting;
+    }
+
+    /**
+     * Runs work once a permit is free.
+     *
+     * @throws ServiceBusyException if the queue is full or no permit came up in time
+     */
+    public <T> T call(Supplier<T> work) {
+        acquire();
+        try {
+            return work.get();
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * @return transactions running through the bulkhead right now
+     */
+    public int active() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    /**
+     * @return transactions queued for a permit right now
+     */
+    public int waiting() {
+        return waiting.get();
+    }
+
+    private void acquire() {
+        if (permits.tryAcquire()) {
+            return;
+        }
+        if (waiting.incrementAndGet() > maxWaiting) {
+            waiting.decrementAndGet();
+            throw new ServiceBusyException();
+        }
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new ServiceBusyException();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ServiceBusyException();
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.ticketing.service;
+
+import com.ticketing.dto.EventSummary;
+import com.ticketing.entity.Event;
+import com.ticketing.repository.EventRepository;
+import com.ticketing.util.ReadRouting;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves event listings without touching the seats table.
+ *
+ * The event rows themselves rarely change, so they are read once and kept
+ * until refresh() is called. Seat counts come from the SeatAvailabilityIndex,
+ * which keeps them up to date as bookings commit. Listing cost depends on the
+ * number of events, not on how many seats they have.
+ *
+ * Events created on another instance reach this one two ways: an id that
+ * isn't cached is looked up by itself, so the event can be booked as soon
+ * as it is provisioned; and the listing is read again once it is older than
+ * ticketing.event-catalog.max-age-ms. Ids that turn out not to exist are
+ * remembered for ticketing.event-catalog.miss-ttl-ms, so requests for
+ * made-up events don't each cost a query.
+ */
+@Component
+public class EventCatalog {
+
+    /** Remembered misses beyond this many are all forgotten. */
+    private static final int MAX_MISSES = 10_000;
+
+    private final EventRepository eventRepository;
+    private final SeatAvailabilityIndex availabilityIndex;
+    private final long maxAgeNanos;
+    private final long missTtlNanos;
+
+    private volatile Listing listing;
+    // Event id -> System.nanoTime() of the lookup that didn't find it
+    private final ConcurrentHashMap<Long, Long> misses = new ConcurrentHashMap<>();
+
+    public EventCatalog(EventRepository eventRepository, SeatAvailabilityIndex availabilityIndex,
+            @Value("${ticketing.event-catalog.max-age-ms:30000}") long maxAgeMillis,
+            @Value("${ticketing.event-catalog.miss-ttl-ms:1000}") long missTtlMillis) {
+        this.eventRepository = eventRepository;
+        this.availabilityIndex = availabilityIndex;
+        this.maxAgeNanos = TimeUnit.MILLISECONDS.toNanos(maxAgeMillis);
+        this.missTtlNanos = TimeUnit.MILLISECONDS.toNanos(missTtlMillis);
+    }
+
+    public List<EventSummary> getSummaries() {
+        List<EventSummary> summaries = new ArrayList<>();
+        for (Event event : listing().events.values()) {
+            summaries.add(summarize(event));
+        }
+        return summaries;
+    }
+
+    public Optional<EventSummary> getSummary(Long eventId) {
+        return Optional.ofNullable(getEvent(eventId)).map(this::summarize);
+    }
+
+    /**
+     * @return the cached event row (detached), or null if there is no such
+     *         event or it is still being provisioned
+     */
+    public Event getEvent(Long eventId) {
+        Listing current = listing();
+        Event event = current.events.get(eventId);
+        return event != null || eventId == null ? event : lookUp(eventId, current);
+    }
+
+    /**
+     * Drops the cached event rows, e.g. after an event was created or edited.
+     */
+    public void refresh() {
+        listing = null;
+        misses.clear();
+    }
+
+    private Listing listing() {
+        Listing current = listing;
+        if (current == null || (maxAgeNanos > 0 && System.nanoTime() - current.loadedAt > maxAgeNanos)) {
+            Map<Long, Event> loaded = new LinkedHashMap<>();
+            for (Event event : ReadRouting.onPrimary(eventRepository::findAll)) {
+                if (!event.isProvisioning()) {
+                    loaded.put(event.getId(), event);
+                }
+            }
+            current = new Listing(loaded, System.nanoTime());
+            listing = current;
+        }
+        return current;
+    }
+
+    /**
+     * Reads one event that isn't in the listing, and adds it if it exists.
+     */
+    private Event lookUp(Long eventId, Listing current) {
+        long now = System.nanoTime();
+        Long missedAt = misses.get(eventId);
+        if (missedAt != null && now - missedAt < missTtlNanos) {
+            return null;
+        }
+        Event event = ReadRouting.onPrimary(() -> eventRepository.findById(eventId))
+                .filter(found -> !found.isProvisioning())
+                .orElse(null);
+        if (event == null) {
+            if (misses.size() >= MAX_MISSES) {
+                misses.clear();
+            }
+            misses.put(eventId, now);
+            return null;
+        }
+        misses.remove(eventId);
+        synchronized (this) {
+            // Unless the listing was read again meanwhile, which has the event
+            if (listing == current) {
+                Map<Long, Event> grown = new LinkedHashMap<>(current.events);
+                grown.put(eventId, event);
+                listing = new Listing(grown, current.loadedAt);
+            }
+        }
+        return event;
+    }
+
+    private EventSummary summarize(Event event) {
+        return new EventSummary(
+                event.getId(),
+                event.getName(),
+                event.getEventDate(),
+                event.getVenue(),
+                availabilityIndex.totalSeats(event.getId()),
+                availabilityIndex.availableSeats(event.getId()));
+    }
+
+    private record Listing(Map<Long, Event> events, long loadedAt) {
+    }
+}
@@ -0,0 +1,66 @@
+package com.ticketing.service;
+
+import com.ticketing.util.ConsistentHashRing;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Which node owns which event, in partitioned mode.
+ *
+ * KEY CONCEPT: With ticketing.cluster.enabled every event belongs to exactly
+ * one node, picked by consistent hashing of the event id over
+ * ticketing.cluster.nodes. Requests for an event are redirected to its owner
+ * (see EventRoutingInterceptor), so only the owner ever claims its seats.
+ * That makes the owner's SeatAvailabilityIndex the authority for the event:
+ * bookings are decided in memory and written behind to the database by
+ * BookingWriteBehind, instead of every node racing on the same rows.
+ *
+ * Membership is static. To add or remove a node, drain and restart all of
+ * them with the new node list; each new owner loads its events from the
+ * database on startup.
+ */
+@Component
+public class EventOwnership {
+
+    private final boolean enabled;
+    private final String self;
+    private final ConsistentHashRing ring;
+
+    public EventOwnership(
+            @Value("${ticketing.cluster.enabled:false}") boolean enabled,
+            @Value("${ticketing.cluster.nodes:}") List<String> nodes,
+            @Value("${ticketing.cluster.self:}") String self,
+            @Value("${ticketing.cluster.virtual-nodes:128}") int virtualNodes) {
+        this.enabled = enabled;
+        this.self = self;
+        if (!enabled) {
+            this.ring = null;
+            return;
+        }
+        if (!nodes.contains(self)) {
+            throw new IllegalStateException(
+                    "ticketing.cluster.self (" + self + ") must be one of ticketing.cluster.nodes " + nodes);
+        }
+        this.ring = new ConsistentHashRing(nodes, virtualNodes);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return the owner's base URL, e.g. http://10.0.0.12:8080
+     */
+    public String ownerOf(Long eventId) {
+        return enabled ? ring.nodeFor(eventId) : self;
+    }
+
+    /**
+     * True when this node owns the event - always, outside partitioned mode.
+     */
+    public boolean isLocal(Long eventId) {
+        return !enabled || self.equals(ring.nodeFor(eventId));
+    }
+}
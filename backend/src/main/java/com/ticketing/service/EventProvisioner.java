@@ -0,0 +1,304 @@
+package com.ticketing.service;
+
+import com.ticketing.dto.ProvisioningStatus;
+import com.ticketing.dto.ProvisioningStatus.State;
+import com.ticketing.dto.VenueLayout;
+import com.ticketing.entity.Event;
+import com.ticketing.entity.Seat;
+import com.ticketing.exception.ServiceBusyException;
+import com.ticketing.repository.EventRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates events with large seat maps from a VenueLayout.
+ *
+ * KEY CONCEPT: Saving an Event with its seats cascaded costs one INSERT per
+ * seat and keeps every Seat in the persistence context until the end.
+ * Here the seats never become entities: ids come from the seats sequence
+ * (through Hibernate's own generator, so they never collide with seats
+ * saved through JPA) and rows go out as JDBC batches of
+ * ticketing.provisioning.chunk-size, one transaction per chunk. With
+ * reWriteBatchedInserts on the PostgreSQL URL each batch is sent as a few
+ * multi-row INSERTs.
+ *
+ * Jobs run one at a time in the background; poll status() for progress.
+ * At most ticketing.provisioning.max-queued jobs wait behind the running
+ * one, each holding its whole layout, and submit() turns further ones away.
+ * The event row has to exist before its seats, so it is written with its
+ * provisioning flag set, which keeps it out of the SeatAvailabilityIndex,
+ * the EventCatalog and everything cached from them: a seat map read halfway
+ * through would otherwise be cached with half the seats. The flag is
+ * cleared once every seat is written. A failed job removes whatever it
+ * wrote. Other instances find the event through their EventCatalog the
+ * first time it is asked for.
+ */
+@Component
+public class EventProvisioner {
+
+    private static final Logger log = LoggerFactory.getLogger(EventProvisioner.class);
+
+    private static final String INSERT_SEAT = "insert into seats "
+            + "(id, event_id, seat_number, section, row_label, number, booked, version) "
+            + "values (?, ?, ?, ?, ?, ?, false, 0)";
+
+    /** Column lengths on seats. */
+    private static final int MAX_SECTION = 32;
+    private static final int MAX_ROW_LABEL = 16;
+
+    /** Finished jobs are forgotten beyond this many. */
+    private static final int MAX_JOBS = 100;
+
+    private final EventRepository eventRepository;
+    private final EventCatalog eventCatalog;
+    private final SeatAvailabilityIndex availabilityIndex;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final SessionFactoryImplementor sessionFactory;
+    private final BeforeExecutionGenerator seatIds;
+    private final int chunkSize;
+    private final int maxSeats;
+
+    private final Map<String, Job> jobs = new LinkedHashMap<>();
+    private final ThreadPoolExecutor runner;
+
+    public EventProvisioner(EventRepository eventRepository, EventCatalog eventCatalog,
+            SeatAvailabilityIndex availabilityIndex, JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate, EntityManagerFactory entityManagerFactory,
+            @Value("${ticketing.provisioning.chunk-size:5000}") int chunkSize,
+            @Value("${ticketing.provisioning.max-seats:250000}") int maxSeats,
+            @Value("${ticketing.provisioning.max-queued:10}") int maxQueued) {
+        this.eventRepository = eventRepository;
+        this.eventCatalog = eventCatalog;
+        this.availabilityIndex = availabilityIndex;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        this.seatIds = (BeforeExecutionGenerator) sessionFactory.getMappingMetamodel()
+                .getEntityDescriptor(Seat.class).getGenerator();
+        this.chunkSize = chunkSize;
+        this.maxSeats = maxSeats;
+        this.runner = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(maxQueued), r -> {
+                    Thread thread = new Thread(r, "event-provisioner");
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Validates the layout and queues it.
+     *
+     * @return the new job, for status()
+     * @throws ServiceBusyException if max-queued jobs are already waiting
+     */
+    public ProvisioningStatus submit(VenueLayout layout) {
+        Job job = new Job(UUID.randomUUID().toString(), validate(layout));
+        synchronized (jobs) {
+            jobs.put(job.id, job);
+            if (jobs.size() > MAX_JOBS) {
+                jobs.values().removeIf(old -> jobs.size() > MAX_JOBS && old.isFinished());
+            }
+        }
+        try {
+            runner.execute(() -> {
+                try {
+                    run(layout, job);
+                } catch (RuntimeException ex) {
+                    log.warn("Provisioning job {} ({}) failed", job.id, layout.name(), ex);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            synchronized (jobs) {
+                jobs.remove(job.id);
+            }
+            throw new ServiceBusyException("Too many events are waiting to be provisioned. Please try again later.");
+        }
+        return job.status();
+    }
+
+    public Optional<ProvisioningStatus> status(String jobId) {
+        synchronized (jobs) {
+            return Optional.ofNullable(jobs.get(jobId)).map(Job::status);
+        }
+    }
+
+    /**
+     * Creates the event on the calling thread.
+     *
+     * @return the new event's id
+     */
+    public Long provision(VenueLayout layout) {
+        Job job = new Job(null, validate(layout));
+        run(layout, job);
+        return job.eventId;
+    }
+
+    @PreDestroy
+    public void stop() {
+        runner.shutdownNow();
+    }
+
+    private void run(VenueLayout layout, Job job) {
+        job.state = State.RUNNING;
+        try {
+            Event event = new Event(layout.name(), layout.eventDate(), layout.venue());
+            event.setProvisioning(true);
+            job.eventId = eventRepository.save(event).getId();
+            writeSeats(layout, job.eventId, job);
+            transactionTemplate.executeWithoutResult(status -> eventRepository.finishProvisioning(job.eventId));
+        } catch (RuntimeException ex) {
+            if (job.eventId != null) {
+                discard(job.eventId);
+            }
+            // Only once it is cleaned up, so FAILED means nothing is left behind
+            job.error = ex.getMessage();
+            job.state = State.FAILED;
+            throw ex;
+        }
+        availabilityIndex.load(job.eventId);
+        eventCatalog.refresh();
+        job.state = State.DONE;
+        log.info("Provisioned event {} ({}) with {} seats", job.eventId, layout.name(), job.totalSeats);
+    }
+
+    private void writeSeats(VenueLayout layout, Long eventId, Job job) {
+        List<NewSeat> chunk = new ArrayList<>(chunkSize);
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            for (VenueLayout.Section section : layout.sections()) {
+                for (VenueLayout.Row row : section.rows()) {
+                    for (int number = row.firstSeat(); number <= row.lastSeat(); number++) {
+                        Long id = (Long) seatIds.generate(
+                                (SharedSessionContractImplementor) session, null, null, EventType.INSERT);
+                        chunk.add(new NewSeat(id, section.name(), row.label(), number));
+                        if (chunk.size() == chunkSize) {
+                            insert(eventId, chunk, job);
+                        }
+                    }
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            insert(eventId, chunk, job);
+        }
+    }
+
+    private void insert(Long eventId, List<NewSeat> chunk, Job job) {
+        transactionTemplate.executeWithoutResult(status ->
+                jdbcTemplate.batchUpdate(INSERT_SEAT, chunk, chunk.size(), (ps, seat) -> {
+                    ps.setLong(1, seat.id());
+                    ps.setLong(2, eventId);
+                    ps.setString(3, seat.rowLabel() + seat.number());
+                    ps.setString(4, seat.section());
+                    ps.setString(5, seat.rowLabel());
+                    ps.setInt(6, seat.number());
+                }));
+        job.seatsWritten.addAndGet(chunk.size());
+        chunk.clear();
+    }
+
+    private void discard(Long eventId) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.update("delete from seats where event_id = ?", eventId);
+                jdbcTemplate.update("delete from events where id = ?", eventId);
+            });
+        } catch (RuntimeException ex) {
+            log.error("Could not remove partly provisioned event {}", eventId, ex);
+        }
+    }
+
+    /**
+     * @return the number of seats in the layout
+     */
+    private int validate(VenueLayout layout) {
+        if (layout.name() == null || layout.name().isBlank()
+                || layout.venue() == null || layout.venue().isBlank() || layout.eventDate() == null) {
+            throw new IllegalArgumentException("name, eventDate and venue are required");
+        }
+        if (layout.sections() == null || layout.sections().isEmpty()) {
+            throw new IllegalArgumentException("The layout has no sections");
+        }
+        long total = 0;
+        Set<String> rows = new HashSet<>();
+        for (VenueLayout.Section section : layout.sections()) {
+            if (section.name() != null && section.name().length() > MAX_SECTION) {
+                throw new IllegalArgumentException(
+                        "Section names can be at most " + MAX_SECTION + " characters: " + section.name());
+            }
+            if (section.rows() == null || section.rows().isEmpty()) {
+                throw new IllegalArgumentException("Section " + section.name() + " has no rows");
+            }
+            for (VenueLayout.Row row : section.rows()) {
+                if (row.label() == null || row.label().isBlank() || row.label().length() > MAX_ROW_LABEL) {
+                    throw new IllegalArgumentException(
+                            "Row labels must be 1 to " + MAX_ROW_LABEL + " characters: " + row.label());
+                }
+                if (row.firstSeat() < 1 || row.lastSeat() < row.firstSeat()) {
+                    throw new IllegalArgumentException("Row " + row.label() + " has no seats: "
+                            + row.firstSeat() + " to " + row.lastSeat());
+                }
+                if (!rows.add(section.name() + "/" + row.label())) {
+                    throw new IllegalArgumentException(
+                            "Row " + row.label() + " appears twice in section " + section.name());
+                }
+                total += row.seatCount();
+            }
+        }
+        if (total > maxSeats) {
+            throw new IllegalArgumentException(
+                    "The layout has " + total + " seats; at most " + maxSeats + " can be provisioned");
+        }
+        return (int) total;
+    }
+
+    private record NewSeat(Long id, String section, String rowLabel, int number) {
+    }
+
+    private static final class Job {
+        final String id;
+        final int totalSeats;
+        final AtomicInteger seatsWritten = new AtomicInteger();
+        volatile State state = State.QUEUED;
+        volatile Long eventId;
+        volatile String error;
+
+        Job(String id, int totalSeats) {
+            this.id = id;
+            this.totalSeats = totalSeats;
+        }
+
+        boolean isFinished() {
+            return state == State.DONE || state == State.FAILED;
+        }
+
+        ProvisioningStatus status() {
+            return new ProvisioningStatus(id, state, eventId, totalSeats, seatsWritten.get(), error);
+        }
+    }
+}
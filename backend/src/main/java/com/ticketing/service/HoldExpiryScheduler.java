@@ -0,0 +1,129 @@
+package com.ticketing.service;
+
+import com.ticketing.dto.SeatHold;
+import com.ticketing.dto.SeatUpdate;
+import com.ticketing.entity.Seat;
+import com.ticketing.repository.SeatRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Releases seat holds when they run out.
+ *
+ * Holds go into a DelayQueue, so nothing scans the seats table looking for
+ * expired rows. A single background thread sleeps until the next hold is due,
+ * then releases everything that is due in one transaction. Booking threads
+ * only ever offer() to the queue, which never blocks.
+ */
+@Component
+public class HoldExpiryScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(HoldExpiryScheduler.class);
+
+    private final SeatRepository seatRepository;
+    private final SeatAvailabilityIndex availabilityIndex;
+    private final SeatMapCache seatMapCache;
+    private final SeatUpdatePublisher seatUpdatePublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    private final DelayQueue<Expiry> queue = new DelayQueue<>();
+    private final Thread worker = new Thread(this::run, "hold-expiry");
+
+    public HoldExpiryScheduler(SeatRepository seatRepository, SeatAvailabilityIndex availabilityIndex,
+            SeatMapCache seatMapCache, SeatUpdatePublisher seatUpdatePublisher,
+            TransactionTemplate transactionTemplate) {
+        this.seatRepository = seatRepository;
+        this.availabilityIndex = availabilityIndex;
+        this.seatMapCache = seatMapCache;
+        this.seatUpdatePublisher = seatUpdatePublisher;
+        this.transactionTemplate = transactionTemplate;
+        this.worker.setDaemon(true);
+    }
+
+    /**
+     * Picks up holds that were still open when the application last stopped,
+     * then starts the expiry thread.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        for (Seat seat : seatRepository.findByHoldTokenIsNotNull()) {
+            schedule(new SeatHold(seat.getId(), seat.getHoldToken(), seat.getHoldExpiresAt()));
+        }
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        worker.interrupt();
+    }
+
+    public void schedule(SeatHold hold) {
+        queue.offer(new Expiry(hold, System.nanoTime()
+                + Duration.between(LocalDateTime.now(), hold.expiresAt()).toNanos()));
+    }
+
+    private void run() {
+        List<Expiry> due = new ArrayList<>();
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                due.add(queue.take());
+                queue.drainTo(due);
+                release(due);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException ex) {
+                // Try again shortly rather than losing the holds
+                log.warn("Releasing {} expired holds failed, retrying", due.size(), ex);
+                for (Expiry expiry : due) {
+                    queue.offer(new Expiry(expiry.hold, System.nanoTime() + TimeUnit.SECONDS.toNanos(5)));
+                }
+            } finally {
+                due.clear();
+            }
+        }
+    }
+
+    private void release(List<Expiry> due) {
+        List<Long> released = transactionTemplate.execute(status -> {
+            List<Long> seatIds = new ArrayList<>(due.size());
+            for (Expiry expiry : due) {
+                // No-op if the hold was confirmed or released in the meantime
+                if (seatRepository.releaseHold(expiry.hold.seatId(), expiry.hold.holdToken()) > 0) {
+                    seatIds.add(expiry.hold.seatId());
+                }
+            }
+            return seatIds;
+        });
+        for (Long seatId : released) {
+            availabilityIndex.release(seatId);
+            seatMapCache.updateHeld(seatId, false);
+            seatUpdatePublisher.publish(new SeatUpdate(seatId, false, false));
+        }
+    }
+
+    private record Expiry(SeatHold hold, long dueNanos) implements Delayed {
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(dueNanos, ((Expiry) other).dueNanos);
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package com.ticketing.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ticketing.entity.IdempotencyKey;
+import com.ticketing.exception.ConcurrentBookingException;
+import com.ticketing.repository.IdempotencyKeyRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the result of every booking request sent with an
+ * Idempotency-Key header, so a client that retries after a timeout gets its
+ * booking back instead of a second booking or a 409 for its own seat.
+ *
+ * KEY CONCEPT: Retries are answered from memory. The first request with a
+ * key runs; the result is kept in a bounded map (ticketing.idempotency.max-keys,
+ * oldest dropped first) for ticketing.idempotency.ttl-hours and written to
+ * the idempotency_keys table, so the key still holds after a restart, an
+ * eviction or on another node. A retry that finds the key never reaches
+ * BookingService, and a retry that arrives while the original is still
+ * running waits for it (up to ticketing.idempotency.wait-ms) rather than
+ * running alongside it.
+ *
+ * Only successes are kept: a request that failed can be retried with the
+ * same key. The key is stored after the booking commits, not with it, so a
+ * crash in between forgets it.
+ */
+@Component
+public class IdempotencyStore {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyStore.class);
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    static final int MAX_KEY_LENGTH = 255;
+
+    private static final long PURGE_INTERVAL_MINUTES = 60;
+
+    private final IdempotencyKeyRepository repository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxKeys;
+    private final long ttlHours;
+    private final long waitNanos;
+    private final Counter replays;
+
+    // Insertion order is expiry order; guarded by itself
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+    private final ScheduledExecutorService purger = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "idempotency-purge");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public IdempotencyStore(IdempotencyKeyRepository repository, ObjectMapper objectMapper,
+            TransactionTemplate transactionTemplate, MeterRegistry meterRegistry,
+            @Value("${ticketing.idempotency.max-keys:100000}") int maxKeys,
+            @Value("${ticketing.idempotency.ttl-hours:24}") long ttlHours,
+            @Value("${ticketing.idempotency.wait-ms:5000}") long waitMillis) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = transactionTemplate;
+        this.maxKeys = maxKeys;
+        this.ttlHours = ttlHours;
+        this.waitNanos = TimeUnit.MILLISECONDS.toNanos(waitMillis);
+        this.replays = Counter.builder("ticketing.idempotency.replays")
+                .description("Requests answered with the result of an earlier request with the same key")
+                .register(meterRegistry);
+        purger.scheduleWithFixedDelay(this::purge, PURGE_INTERVAL_MINUTES, PURGE_INTERVAL_MINUTES,
+                TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void stop() {
+        purger.shutdownNow();
+    }
+
+    /**
+     * Runs call once per key.
+     *
+     * @param key     the client's Idempotency-Key, or null to just run call
+     * @param request what is being asked for; a key can't be reused for anything else
+     * @param type    the result type, for results read back from the database
+     * @return call's result, or the result of the first request with this key
+     * @throws IllegalArgumentException if the key is malformed or was used for another request
+     * @throws ConcurrentBookingException if the first request with this key is still running
+     */
+    public <T> T execute(String key, String request, TypeReference<T> type, Supplier<T> call) {
+        if (key == null) {
+            return call.get();
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException(
+                    IDEMPOTENCY_KEY_HEADER + " must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+
+        long deadline = System.nanoTime() + waitNanos;
+        while (true) {
+            Entry entry;
+            boolean first = false;
+            synchronized (entries) {
+                expire();
+                entry = entries.get(key);
+                if (entry == null) {
+                    entry = new Entry(request, LocalDateTime.now());
+                    entries.put(key, entry);
+                    first = true;
+                    Iterator<Entry> oldest = entries.values().iterator();
+                    while (entries.size() > maxKeys) {
+                        oldest.next();
+                        oldest.remove();
+                    }
+                }
+            }
+            checkSameRequest(key, entry.request, request);
+            if (first) {
+                return run(key, entry, type, call);
+            }
+            Object result = entry.await(key, deadline);
+            if (result != Entry.FAILED) {
+                replays.increment();
+                @SuppressWarnings("unchecked")
+                T replayed = (T) result;
+                return replayed;
+            }
+            // The first request failed; take its place
+        }
+    }
+
+    private <T> T run(String key, Entry entry, TypeReference<T> type, Supplier<T> call) {
+        try {
+            Optional<T> stored = load(key, entry, type);
+            if (stored.isPresent()) {
+                replays.increment();
+                entry.outcome.complete(stored.get());
+                return stored.get();
+            }
+            T result = call.get();
+            entry.outcome.complete(result);
+            store(key, entry, result);
+            return result;
+        } catch (RuntimeException ex) {
+            synchronized (entries) {
+                entries.remove(key, entry);
+            }
+            entry.outcome.complete(Entry.FAILED);
+            throw ex;
+        }
+    }
+
+    /**
+     * A key this node doesn't remember may still be in the database.
+     */
+    private <T> Optional<T> load(String key, Entry entry, TypeReference<T> type) {
+        Optional<IdempotencyKey> stored;
+        try {
+            stored = repository.findById(key)
+                    .filter(row -> row.getCreatedAt().isAfter(LocalDateTime.now().minusHours(ttlHours)));
+        } catch (DataAccessException ex) {
+            // Don't fail bookings the database may not even be needed for (journal mode)
+            log.warn("Could not look up {} {}", IDEMPOTENCY_KEY_HEADER, key, ex);
+            return Optional.empty();
+        }
+        if (stored.isEmpty()) {
+            return Optional.empty();
+        }
+        checkSameRequest(key, stored.get().getRequest(), entry.request);
+        try {
+            return Optional.of(objectMapper.readValue(stored.get().getResponse(), type));
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException(
+                    "Unreadable response stored for " + IDEMPOTENCY_KEY_HEADER + " " + key, ex);
+        }
+    }
+
+    private void store(String key, Entry entry, Object result) {
+        try {
+            String response = objectMapper.writeValueAsString(result);
+            transactionTemplate.executeWithoutResult(status ->
+                    repository.insert(key, entry.request, response, entry.createdAt));
+        } catch (JsonProcessingException | RuntimeException ex) {
+            // Still remembered here; only restarts and other nodes won't know the key
+            log.warn("Could not store {} {}", IDEMPOTENCY_KEY_HEADER, key, ex);
+        }
+    }
+
+    private static void checkSameRequest(String key, String original, String request) {
+        if (!original.equals(request)) {
+            throw new IllegalArgumentException(
+                    IDEMPOTENCY_KEY_HEADER + " " + key + " was already used for a different request");
+        }
+    }
+
+    /**
+     * Drops expired keys from the front of the map. Caller holds the lock.
+     */
+    private void expire() {
+        LocalDateTime cutoff = LocalDateTime.now().minusHours(ttlHours);
+        Iterator<Map.Entry<String, Entry>> oldest = entries.entrySet().iterator();
+        while (oldest.hasNext() && oldest.next().getValue().createdAt.isBefore(cutoff)) {
+            oldest.remove();
+        }
+    }
+
+    private void purge() {
+        try {
+            int purged = transactionTemplate.execute(status ->
+                    repository.deleteCreatedBefore(LocalDateTime.now().minusHours(ttlHours)));
+            log.debug("Purged {} expired idempotency keys", purged);
+        } catch (RuntimeException ex) {
+            log.warn("Could not purge expired idempotency keys", ex);
+        }
+    }
+
+    private static final class Entry {
+
+        static final Object FAILED = new Object();
+
+        final String request;
+        final LocalDateTime createdAt;
+        // The result, or FAILED
+        final CompletableFuture<Object> outcome = new CompletableFuture<>();
+
+        Entry(String request, LocalDateTime createdAt) {
+            this.request = request;
+            this.createdAt = createdAt;
+        }
+
+        Object await(String key, long deadline) {
+            try {
+                return outcome.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException | ExecutionException ex) {
+                throw new ConcurrentBookingException(
+                        "A request with " + IDEMPOTENCY_KEY_HEADER + " " + key + " is still in progress");
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new ConcurrentBookingException(
+                        "A request with " + IDEMPOTENCY_KEY_HEADER + " " + key + " is still in progress");
+            }
+        }
+    }
+}
@@ -0,0 +1,709 @@
+package com.ticketing.service;
+
+import com.ticketing.dto.SeatView;
+import com.ticketing.exception.ConcurrentBookingException;
+import com.ticketing.exception.SeatAlreadyBookedException;
+import com.ticketing.repository.EventRepository;
+import com.ticketing.repository.SeatRepository;
+import com.ticketing.util.ReadRouting;
+import com.ticketing.util.SeatBitmapWriter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory seat availability engine that sits in front of the database.
+ *
+ * KEY CONCEPT: Every event's seats live in an atomic array indexed by seat
+ * ordinal (the position of the seat id within the event, ascending).
+ * A booking attempt flips its slot FREE -> PENDING with a single CAS, so a
+ * request for a seat that is already booked, or already being claimed, is
+ * rejected without opening a transaction.
+ *
+ * The database stays the authority. The versioned UPDATE still decides who
+ * wins, and every outcome it reports is fed back into the slot, so the index
+ * always converges on what the @Version column says. (In partitioned mode,
+ * see EventOwnership, and in journal mode, see BookingJournal, the index is
+ * the authority for the events it owns instead: a successful claim is the
+ * booking, and BookingWriteBehind brings the database up to date.)
+ *
+ * Requests that find a seat PENDING are coalesced onto the claim in flight:
+ * they wait (up to ticketing.booking.coalesce-wait-ms) for its outcome
+ * instead of racing it. If it booked the seat they are turned away without
+ * touching the database; if it failed, one of them takes over the claim.
+ *
+ * Seats are also grouped into runs - seats side by side in one row, in
+ * seat number order - so beginBestAvailable() can hand out a block of
+ * seats instead of making every customer race for the same ones.
+ */
+@Component
+public class SeatAvailabilityIndex {
+
+    static final int FREE = 0;
+    static final int PENDING = 1;
+    static final int BOOKED = 2;
+    static final int HELD = 3;
+
+    /** How many recent changes per event are kept for delta availability queries. */
+    static final int CHANGE_LOG_SIZE = 4096;
+
+    /** How often beginBestAvailable() searches a run again after losing a block in it. */
+    static final int MAX_BLOCK_ATTEMPTS = 3;
+
+    private final EventRepository eventRepository;
+    private final SeatRepository seatRepository;
+    private final long coalesceWaitNanos;
+
+    private final ConcurrentHashMap<Long, EventSeats> byEvent = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, EventSeats> bySeat = new ConcurrentHashMap<>();
+    // Reads in progress, one per event; only their loader writes byEvent
+    private final ConcurrentHashMap<Long, CompletableFuture<EventSeats>> loading = new ConcurrentHashMap<>();
+
+    public SeatAvailabilityIndex(EventRepository eventRepository, SeatRepository seatRepository,
+            @Value("${ticketing.booking.coalesce-wait-ms:1000}") long coalesceWaitMillis) {
+        this.eventRepository = eventRepository;
+        this.seatRepository = seatRepository;
+        this.coalesceWaitNanos = TimeUnit.MILLISECONDS.toNanos(coalesceWaitMillis);
+    }
+
+    /**
+     * Rebuilds the index from the database once the application (and the
+     * DataInitializer seed) is up.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        for (Long eventId : eventRepository.findAllIds()) {
+            load(eventId);
+        }
+    }
+
+    /**
+     * Loads one event's seats from the database, unless they are indexed
+     * already (an event indexed before its seats were written is filled in).
+     *
+     * An event is loaded once and its slots are never swapped for a fresh
+     * copy: claims are decided against them, and in partitioned and journal
+     * modes they are the only record of a booking until BookingWriteBehind
+     * has written it. Concurrent loads of one event (the rebuild at startup,
+     * a request that got in first, a provisioning job) share one read.
+     */
+    public void load(Long eventId) {
+        // An empty table (an event whose seats weren't written yet) holds no claims; fill it in
+        loadOnce(eventId, true);
+    }
+
+    /**
+     * Reads the event's seats unless they are indexed, or joins a read of
+     * them already under way. The read runs outside any lock of the maps,
+     * so it holds up nothing but the callers waiting for that event.
+     *
+     * @param fillEmpty whether an empty table is read again
+     * @return the event's slots, or null as for read()
+     */
+    private EventSeats loadOnce(Long eventId, boolean fillEmpty) {
+        while (true) {
+            EventSeats current = byEvent.get(eventId);
+            if (current != null && (!fillEmpty || current.seatIds.length > 0)) {
+                return current;
+            }
+            CompletableFuture<EventSeats> mine = new CompletableFuture<>();
+            CompletableFuture<EventSeats> other = loading.putIfAbsent(eventId, mine);
+            if (other == null) {
+                try {
+                    // A read may have finished since the check above
+                    current = byEvent.get(eventId);
+                    EventSeats loaded = current;
+                    if (current == null || (fillEmpty && current.seatIds.length == 0)) {
+                        loaded = read(eventId);
+                        if (loaded != null) {
+                            byEvent.put(eventId, loaded);
+                        }
+                    }
+                    mine.complete(loaded);
+                    return loaded;
+                } catch (RuntimeException | Error ex) {
+                    mine.completeExceptionally(ex);
+                    throw ex;
+                } finally {
+                    loading.remove(eventId, mine);
+                }
+            }
+            EventSeats loaded = awaitLoad(other);
+            if (!fillEmpty || (loaded != null && loaded.seatIds.length > 0)) {
+                return loaded;
+            }
+            // That read may have started before the seats were written; read again
+        }
+    }
+
+    private static EventSeats awaitLoad(CompletableFuture<EventSeats> load) {
+        try {
+            return load.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * @return the event's slots, or null if there is no such event or its
+     *         seats are still being provisioned. Events without seats get an
+     *         empty table, so they aren't read again for every summary.
+     */
+    private EventSeats read(Long eventId) {
+        // Plain values: loading a stadium as entities would snapshot every row for dirty checking
+        List<SeatView> seats = ReadRouting.onPrimary(() -> eventRepository.existsByIdAndProvisioningFalse(eventId)
+                ? seatRepository.findViewsByEventId(eventId, LocalDateTime.now())
+                : null);
+        if (seats == null) {
+            return null;
+        }
+        EventSeats loaded = new EventSeats(eventId, seats, 0);
+        for (long seatId : loaded.seatIds) {
+            bySeat.put(seatId, loaded);
+        }
+        return loaded;
+    }
+
+    /**
+     * Drops the event's slots; the next read loads them from the database
+     * again. Whatever the slots knew that the database doesn't is lost, so
+     * this is only for resetting the database under an event that nothing
+     * is booking, as the benchmarks do.
+     */
+    public void forget(Long eventId) {
+        EventSeats seats = byEvent.remove(eventId);
+        if (seats != null) {
+            for (long seatId : seats.seatIds) {
+                bySeat.remove(seatId, seats);
+            }
+        }
+    }
+
+    /**
+     * Number of committed seat changes this index has seen for the event.
+     * Loads the event first if it isn't indexed yet.
+     */
+    public long version(Long eventId) {
+        EventSeats seats = tracked(eventId);
+        return seats != null ? seats.version.get() : 0;
+    }
+
+    /**
+     * Encodes the event's seat availability in the compact binary form
+     * described on SeatBitmapWriter.
+     *
+     * If the last sinceVersion..now changes are still in the change log the
+     * result is a delta, otherwise a full run-length encoded snapshot. Either
+     * way the encoder walks the primitive arrays directly; nothing is
+     * allocated per seat.
+     *
+     * @param sinceVersion version the client already has, or -1 for a full snapshot
+     * @return the encoded availability, or null if there is no such event
+     */
+    public byte[] encodeAvailability(Long eventId, long sinceVersion) {
+        EventSeats seats = tracked(eventId);
+        if (seats == null) {
+            return null;
+        }
+
+        long version = seats.version.get();
+        if (sinceVersion >= seats.baseVersion && sinceVersion <= version
+                && version - sinceVersion <= CHANGE_LOG_SIZE) {
+            SeatBitmapWriter out = new SeatBitmapWriter();
+            out.beginDelta(sinceVersion, version, (int) (version - sinceVersion));
+            for (long v = sinceVersion + 1; v <= version; v++) {
+                long change = seats.changes[(int) (v % CHANGE_LOG_SIZE)];
+                out.change((int) (change >>> 2), availability((int) (change & 3)));
+            }
+            // Only trust the copy if writers didn't lap the log while we read it
+            if (seats.version.get() - sinceVersion <= CHANGE_LOG_SIZE) {
+                return out.toByteArray();
+            }
+        }
+
+        // A snapshot may already contain changes newer than its version;
+        // re-applying those from a later delta is harmless.
+        SeatBitmapWriter out = new SeatBitmapWriter();
+        out.beginSnapshot(version, seats.seatIds.length);
+        for (int i = 0; i < seats.seatIds.length; i++) {
+            out.seat(availability(seats.states.get(i)) == SeatBitmapWriter.AVAILABLE);
+        }
+        out.endSnapshot();
+        return out.toByteArray();
+    }
+
+    private static int availability(int state) {
+        return switch (state) {
+            case BOOKED -> SeatBitmapWriter.BOOKED;
+            case HELD -> SeatBitmapWriter.HELD;
+            default -> SeatBitmapWriter.AVAILABLE; // PENDING hasn't committed yet
+        };
+    }
+
+    private EventSeats tracked(Long eventId) {
+        EventSeats seats = byEvent.get(eventId);
+        return seats != null ? seats : loadOnce(eventId, false);
+    }
+
+    /**
+     * @return how many seats the event has, 0 if it has none
+     */
+    public int totalSeats(Long eventId) {
+        EventSeats seats = tracked(eventId);
+        return seats != null ? seats.seatIds.length : 0;
+    }
+
+    /**
+     * @return how many of the event's seats are neither booked nor held.
+     *         Kept as a running count, so this is O(1) whatever the venue size.
+     */
+    public int availableSeats(Long eventId) {
+        EventSeats seats = tracked(eventId);
+        return seats != null ? seats.available : 0;
+    }
+
+    /**
+     * @return how many of the event's seats have a claim in flight, 0 if the
+     *         event isn't indexed. Scans the event's slots, so it is meant for
+     *         metrics scrapes, not the booking path.
+     */
+    public int claimsInFlight(Long eventId) {
+        EventSeats seats = byEvent.get(eventId);
+        if (seats == null) {
+            return 0;
+        }
+        int pending = 0;
+        for (int i = 0; i < seats.seatIds.length; i++) {
+            if (seats.states.get(i) == PENDING) {
+                pending++;
+            }
+        }
+        return pending;
+    }
+
+    /**
+     * @return how many requests are waiting on another request's claim for
+     *         one of the event's seats (see coalescing above)
+     */
+    public long waitingClaims(Long eventId) {
+        EventSeats seats = byEvent.get(eventId);
+        return seats != null ? seats.waiting.sum() : 0;
+    }
+
+    /**
+     * @return the event the seat belongs to, or null if the seat isn't indexed
+     */
+    public Long eventIdOf(Long seatId) {
+        EventSeats seats = bySeat.get(seatId);
+        return seats != null ? seats.eventId : null;
+    }
+
+    /**
+     * @return true if the index has the seat booked; false if not, or if it isn't indexed
+     */
+    public boolean isBooked(Long seatId) {
+        EventSeats seats = bySeat.get(seatId);
+        return seats != null && seats.states.get(seats.ordinalOf(seatId)) == BOOKED;
+    }
+
+    /**
+     * Starts a claim on a free seat. If another claim for the seat is in
+     * flight, waits for it to finish first.
+     *
+     * @return a claim that must be resolved with confirm(), hold() or abort()
+     * @throws SeatAlreadyBookedException if the seat is known to be booked or on hold
+     * @throws ConcurrentBookingException if the claim in flight didn't finish in time
+     */
+    public SeatClaim begin(Long seatId) {
+        return begin(seatId, FREE, true);
+    }
+
+    /**
+     * Starts turning a hold into a booking. If the index doesn't know about the
+     * hold (e.g. it was placed before a restart and not reloaded yet) the
+     * database gets to decide.
+     */
+    public SeatClaim beginConfirm(Long seatId) {
+        return begin(seatId, HELD, true);
+    }
+
+    private SeatClaim begin(Long seatId, int expected, boolean coalesce) {
+        EventSeats seats = bySeat.get(seatId);
+        if (seats == null) {
+            // Not indexed (e.g. an event created after startup) - let the database decide
+            return SeatClaim.UNTRACKED;
+        }
+
+        int ordinal = seats.ordinalOf(seatId);
+        long deadline = System.nanoTime() + coalesceWaitNanos;
+        while (!seats.states.compareAndSet(ordinal, expected, PENDING)) {
+            int state = seats.states.get(ordinal);
+            if (state == BOOKED) {
+                throw SeatAlreadyBookedException.BOOKED;
+            }
+            if (state == HELD) {
+                throw SeatAlreadyBookedException.ON_HOLD;
+            }
+            if (state == FREE && expected == HELD) {
+                return SeatClaim.UNTRACKED;
+            }
+            if (state == PENDING) {
+                if (!coalesce || System.nanoTime() - deadline >= 0) {
+                    throw ConcurrentBookingException.IN_FLIGHT;
+                }
+                SeatClaim inFlight = seats.inFlight.get(ordinal);
+                if (inFlight != null) {
+                    seats.waiting.increment();
+                    try {
+                        inFlight.await(deadline);
+                    } finally {
+                        seats.waiting.decrement();
+                    }
+                } else {
+                    // Its owner is between the CAS and publishing the claim
+                    Thread.onSpinWait();
+                }
+            }
+        }
+        SeatClaim claim = new SeatClaim(seats, ordinal, expected);
+        seats.inFlight.set(ordinal, claim);
+        return claim;
+    }
+
+    /**
+     * A hold was released or expired in the database; the seat is free again.
+     */
+    public void release(Long seatId) {
+        EventSeats seats = bySeat.get(seatId);
+        int ordinal = seats != null ? seats.ordinalOf(seatId) : -1;
+        if (seats != null && seats.states.compareAndSet(ordinal, HELD, FREE)) {
+            seats.changed(ordinal, HELD, FREE);
+        }
+    }
+
+    /**
+     * Claims several seats at once, all or nothing. If any seat can't be
+     * claimed the ones already taken by this call are released again.
+     * Doesn't wait for claims in flight: two carts each waiting on a seat
+     * the other holds would only time out.
+     */
+    public List<SeatClaim> beginAll(Collection<Long> seatIds) {
+        List<SeatClaim> claims = new ArrayList<>(seatIds.size());
+        try {
+            for (Long seatId : seatIds) {
+                claims.add(begin(seatId, FREE, false));
+            }
+        } catch (RuntimeException ex) {
+            claims.forEach(SeatClaim::abort);
+            throw ex;
+        }
+        return claims;
+    }
+
+    /**
+     * Finds the best block of quantity free seats side by side in one row
+     * and claims it, all or nothing.
+     *
+     * Rows rank in the order their first seats were created - for
+     * provisioned events that is the order of the VenueLayout, so layouts
+     * list their sections and rows best first. Within a run the block
+     * closest to the middle wins. Runs with fewer than quantity free seats
+     * are skipped without looking at their slots, so a nearly sold-out
+     * house is searched about as fast as an empty one. Like beginAll(),
+     * doesn't wait for claims in flight: seats mid-claim are not free.
+     *
+     * @return the claims in seat number order, or an empty list if no run
+     *         has quantity free seats together
+     */
+    public List<SeatClaim> beginBestAvailable(Long eventId, int quantity) {
+        EventSeats seats = tracked(eventId);
+        if (seats == null) {
+            return List.of();
+        }
+        for (int run = 0; run < seats.runs.length; run++) {
+            for (int attempt = 0; attempt < MAX_BLOCK_ATTEMPTS && seats.runFree.get(run) >= quantity; attempt++) {
+                int start = seats.bestBlock(run, quantity);
+                if (start < 0) {
+                    break;
+                }
+                List<SeatClaim> claims = claimBlock(seats, seats.runs[run], start, quantity);
+                if (claims != null) {
+                    return claims;
+                }
+                // Another request got part of the block first; look at the run again
+            }
+        }
+        return List.of();
+    }
+
+    /**
+     * @return the claims, or null (with nothing claimed) if a seat was taken meanwhile
+     */
+    private static List<SeatClaim> claimBlock(EventSeats seats, int[] run, int start, int quantity) {
+        List<SeatClaim> claims = new ArrayList<>(quantity);
+        for (int i = start; i < start + quantity; i++) {
+            int ordinal = run[i];
+            if (!seats.states.compareAndSet(ordinal, FREE, PENDING)) {
+                claims.forEach(SeatClaim::abort);
+                return null;
+            }
+            SeatClaim claim = new SeatClaim(seats, ordinal, FREE);
+            seats.inFlight.set(ordinal, claim);
+            claims.add(claim);
+        }
+        return claims;
+    }
+
+    /**
+     * Per-event slot array. Seat ids are sorted so the ordinal is a binary search away.
+     */
+    static final class EventSeats {
+
+        final Long eventId;
+        final long[] seatIds;
+        final AtomicIntegerArray states;
+
+        // The claim behind each PENDING slot, for requests that want to wait on it
+        final AtomicReferenceArray<SeatClaim> inFlight;
+
+        // Ring of recent changes, (ordinal << 2 | state), slot = version % CHANGE_LOG_SIZE
+        final long[] changes = new long[CHANGE_LOG_SIZE];
+        final AtomicLong version;
+        final long baseVersion;
+
+        // Seats neither booked nor held; written under the monitor in changed()
+        volatile int available;
+
+        // Requests coalesced onto a claim in flight, for metrics
+        final LongAdder waiting = new LongAdder();
+
+        // Ordinals of seats side by side in one row, in seat number order;
+        // runs are in the order their rows' first seats were created
+        final int[][] runs;
+        // Run of each ordinal, -1 for seats without a row and number
+        final int[] runOf;
+        // Seats neither booked nor held per run; updated in changed()
+        final AtomicIntegerArray runFree;
+
+        EventSeats(Long eventId, List<SeatView> seats, long version) {
+            SeatView[] sorted = seats.toArray(new SeatView[0]);
+            Arrays.sort(sorted, (a, b) -> Long.compare(a.id(), b.id()));
+
+            this.eventId = eventId;
+            this.version = new AtomicLong(version);
+            this.baseVersion = version;
+            this.seatIds = new long[sorted.length];
+            this.states = new AtomicIntegerArray(sorted.length);
+            this.inFlight = new AtomicReferenceArray<>(sorted.length);
+            int free = 0;
+            for (int i = 0; i < sorted.length; i++) {
+                seatIds[i] = sorted[i].id();
+                states.set(i, sorted[i].booked() ? BOOKED : sorted[i].held() ? HELD : FREE);
+                if (states.get(i) == FREE) {
+                    free++;
+                }
+            }
+            this.available = free;
+
+            this.runs = runs(sorted);
+            this.runOf = new int[sorted.length];
+            this.runFree = new AtomicIntegerArray(runs.length);
+            Arrays.fill(runOf, -1);
+            for (int run = 0; run < runs.length; run++) {
+                for (int ordinal : runs[run]) {
+                    runOf[ordinal] = run;
+                    if (states.get(ordinal) == FREE) {
+                        runFree.incrementAndGet(run);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Splits each row at gaps in its seat numbers (aisles, missing seats).
+         */
+        private static int[][] runs(SeatView[] sorted) {
+            Map<String, List<Integer>> rows = new LinkedHashMap<>();
+            for (int i = 0; i < sorted.length; i++) {
+                if (sorted[i].rowLabel() != null && sorted[i].number() != null) {
+                    rows.computeIfAbsent(sorted[i].section() + "/" + sorted[i].rowLabel(), row -> new ArrayList<>())
+                            .add(i);
+                }
+            }
+            List<int[]> runs = new ArrayList<>();
+            for (List<Integer> row : rows.values()) {
+                row.sort(Comparator.comparingInt(ordinal -> sorted[ordinal].number()));
+                int from = 0;
+                for (int i = 1; i <= row.size(); i++) {
+                    if (i == row.size() || sorted[row.get(i)].number() != sorted[row.get(i - 1)].number() + 1) {
+                        runs.add(row.subList(from, i).stream().mapToInt(Integer::intValue).toArray());
+                        from = i;
+                    }
+                }
+            }
+            return runs.toArray(new int[0][]);
+        }
+
+        int ordinalOf(long seatId) {
+            return Arrays.binarySearch(seatIds, seatId);
+        }
+
+        /**
+         * One pass over the run's slots.
+         *
+         * @return the position in runs[run] of the block of quantity free
+         *         seats closest to the middle of the run, or -1 if there is none
+         */
+        int bestBlock(int run, int quantity) {
+            int[] ordinals = runs[run];
+            int middle = (ordinals.length - quantity) / 2;
+            int best = -1;
+            int freeFrom = 0;
+            for (int i = 0; i <= ordinals.length; i++) {
+                if (i < ordinals.length && states.get(ordinals[i]) == FREE) {
+                    continue;
+                }
+                // Seats freeFrom .. i-1 are free; take the block nearest the middle
+                if (i - freeFrom >= quantity) {
+                    int start = Math.max(freeFrom, Math.min(middle, i - quantity));
+                    if (best < 0 || Math.abs(start - middle) < Math.abs(best - middle)) {
+                        best = start;
+                    }
+                }
+                freeFrom = i + 1;
+            }
+            return best;
+        }
+
+        /**
+         * Logs a committed change and publishes the new version. Writers are
+         * serialized here, but only on commit, never on the rejection path.
+         */
+        synchronized void changed(int ordinal, int from, int to) {
+            int delta = from == FREE && to != FREE ? -1 : from != FREE && to == FREE ? 1 : 0;
+            available += delta;
+            if (delta != 0 && runOf[ordinal] >= 0) {
+                runFree.addAndGet(runOf[ordinal], delta);
+            }
+            long next = version.get() + 1;
+            changes[(int) (next % CHANGE_LOG_SIZE)] = ((long) ordinal << 2) | to;
+            version.set(next);
+        }
+    }
+
+    /**
+     * A seat slot held in PENDING while its database transaction runs.
+     */
+    public static final class SeatClaim {
+
+        static final SeatClaim UNTRACKED = new SeatClaim(null, -1, FREE);
+
+        private final EventSeats seats;
+        private final int ordinal;
+        private final int previous;
+
+        // Completed with the slot's new state once the claim is resolved
+        private final CompletableFuture<Integer> outcome = new CompletableFuture<>();
+
+        SeatClaim(EventSeats seats, int ordinal, int previous) {
+            this.seats = seats;
+            this.ordinal = ordinal;
+            this.previous = previous;
+        }
+
+        /**
+         * False for seats the index doesn't know, which only the database can decide.
+         */
+        public boolean isTracked() {
+            return seats != null;
+        }
+
+        /**
+         * @return the claimed seat, or null if the claim isn't tracked
+         */
+        public Long seatId() {
+            return seats != null ? seats.seatIds[ordinal] : null;
+        }
+
+        /**
+         * @return the seat's event, or null if the claim isn't tracked
+         */
+        public Long eventId() {
+            return seats != null ? seats.eventId : null;
+        }
+
+        /**
+         * The database says the seat is booked - either by us or by someone else.
+         */
+        public void confirm() {
+            if (seats != null) {
+                seats.states.set(ordinal, BOOKED);
+                seats.changed(ordinal, previous, BOOKED);
+                resolved(BOOKED);
+            }
+        }
+
+        /**
+         * The seat is now on hold; bookings are rejected until it is confirmed or released.
+         */
+        public void hold() {
+            if (seats != null) {
+                seats.states.set(ordinal, HELD);
+                seats.changed(ordinal, previous, HELD);
+                resolved(HELD);
+            }
+        }
+
+        /**
+         * The claim didn't change the seat; put the slot back the way it was.
+         */
+        public void abort() {
+            if (seats != null) {
+                seats.states.compareAndSet(ordinal, PENDING, previous);
+                resolved(previous);
+            }
+        }
+
+        private void resolved(int state) {
+            seats.inFlight.compareAndSet(ordinal, this, null);
+            outcome.complete(state);
+        }
+
+        /**
+         * Blocks until this claim is resolved, or the deadline passes.
+         */
+        void await(long deadline) {
+            try {
+                outcome.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException | ExecutionException ex) {
+                throw ConcurrentBookingException.IN_FLIGHT;
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw ConcurrentBookingException.IN_FLIGHT;
+            }
+        }
+    }
+}
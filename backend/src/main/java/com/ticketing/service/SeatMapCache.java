@@ -0,0 +1,262 @@
+package com.ticketing.service;
+
+import com.ticketing.dto.SeatView;
+import com.ticketing.entity.Seat;
+import com.ticketing.repository.SeatRepository;
+import com.ticketing.util.ReadRouting;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Per-event seat map cache for the seat listing endpoints.
+ *
+ * KEY CONCEPT: Write-through, not expire-and-reload. BookingService pushes
+ * every committed seat change into the cached map in place, so a cached map
+ * is never more than one commit behind this instance's bookings.
+ *
+ * In direct mode other instances may book against the same database, and
+ * their changes only arrive by reloading: a map older than
+ * ticketing.seat-map-cache.max-age-ms is read again by the next request
+ * for it, while the others keep being served the current one. Partitioned
+ * and journal mode book each event on one instance only, so their maps
+ * never expire.
+ *
+ * Every map carries a version made from the seats themselves: the sum of a
+ * hash of each seat's id, @Version and state, kept up to date as seats
+ * change. It moves with every committed change, and any instance holding
+ * the same seats - after a restart, an eviction, or on another node -
+ * arrives at the same value. Read it before getSeats() and anything built
+ * from the seats can be reused for as long as it doesn't move.
+ *
+ * The cache holds at most ticketing.seat-map-cache.max-events events; when it
+ * is full the least recently read event is evicted.
+ */
+@Component
+public class SeatMapCache {
+
+    private final SeatRepository seatRepository;
+    private final SeatAvailabilityIndex availabilityIndex;
+    private final int maxEvents;
+    // 0 when every change to a cached event is written through
+    private final long maxAgeNanos;
+
+    private final ConcurrentHashMap<Long, SeatMap> maps = new ConcurrentHashMap<>();
+
+    public SeatMapCache(SeatRepository seatRepository, SeatAvailabilityIndex availabilityIndex,
+            BookingWriteBehind writeBehind,
+            @Value("${ticketing.seat-map-cache.max-events:64}") int maxEvents,
+            @Value("${ticketing.seat-map-cache.max-age-ms:1000}") long maxAgeMillis) {
+        this.seatRepository = seatRepository;
+        this.availabilityIndex = availabilityIndex;
+        this.maxEvents = maxEvents;
+        this.maxAgeNanos = writeBehind.isEnabled() ? 0 : TimeUnit.MILLISECONDS.toNanos(maxAgeMillis);
+    }
+
+    /**
+     * @return the event's seats in seat id order, loading them on a miss
+     */
+    public List<SeatView> getSeats(Long eventId) {
+        SeatMap map = current(eventId);
+        map.lastRead = System.nanoTime();
+        return map.snapshot();
+    }
+
+    /**
+     * @return the version of the event's seat map, loading it on a miss.
+     *         Changes whenever a seat of the event does; 0 for an event
+     *         without seats.
+     */
+    public long version(Long eventId) {
+        SeatMap map = current(eventId);
+        map.lastRead = System.nanoTime();
+        return map.version.get();
+    }
+
+    /**
+     * @return one seat as cached, loading the event's seats on a miss;
+     *         null if the seat isn't part of the event
+     */
+    public SeatView getSeat(Long eventId, Long seatId) {
+        SeatMap map = current(eventId);
+        return map.get(seatId);
+    }
+
+    /**
+     * A claim committed and this is the row as it is now.
+     */
+    public void update(Seat seat) {
+        SeatMap map = mapOf(seat.getId());
+        if (map != null) {
+            map.set(SeatView.from(seat));
+        }
+    }
+
+    /**
+     * A hold was placed or dropped on a seat.
+     */
+    public void updateHeld(Long seatId, boolean held) {
+        SeatMap map = mapOf(seatId);
+        if (map != null) {
+            map.update(seatId, held);
+        }
+    }
+
+    /**
+     * The event's map, loaded on a miss. A map past its max age is read
+     * again by exactly one caller.
+     */
+    private SeatMap current(Long eventId) {
+        SeatMap map = maps.get(eventId);
+        if (map == null) {
+            return load(eventId, null);
+        }
+        if (maxAgeNanos > 0 && System.nanoTime() - map.loadedAt > maxAgeNanos
+                && map.reloading.compareAndSet(false, true)) {
+            try {
+                return load(eventId, map);
+            } catch (RuntimeException ex) {
+                map.reloading.set(false);
+                throw ex;
+            }
+        }
+        return map;
+    }
+
+    private SeatMap mapOf(Long seatId) {
+        // Every cached event is indexed (load() goes through the index first)
+        Long eventId = availabilityIndex.eventIdOf(seatId);
+        return eventId != null ? maps.get(eventId) : null;
+    }
+
+    /**
+     * Reads the event's seats and publishes them, in place of stale if given.
+     */
+    private SeatMap load(Long eventId, SeatMap stale) {
+        if (availabilityIndex.totalSeats(eventId) == 0) {
+            // No such event, or no seats yet; the index knows without a query
+            return new SeatMap(new ArrayList<>());
+        }
+        long version = availabilityIndex.version(eventId);
+        List<SeatView> seats = ReadRouting.onPrimary(() ->
+                seatRepository.findViewsByEventId(eventId, LocalDateTime.now()));
+        // With write-behind a booking reaches the database a batch after the
+        // index; the index is the authority for what is booked
+        seats.replaceAll(seat -> !seat.booked() && availabilityIndex.isBooked(seat.id()) ? seat.withBooked() : seat);
+        SeatMap loaded = new SeatMap(seats);
+        if (loaded.seatIds.length == 0) {
+            return loaded;
+        }
+
+        // Publish first, then check nothing committed while we were reading.
+        // A change that commits after the check finds the map and updates it.
+        if (stale == null) {
+            SeatMap existing = maps.putIfAbsent(eventId, loaded);
+            if (existing != null) {
+                return existing;
+            }
+        } else if (!maps.replace(eventId, stale, loaded)) {
+            // Evicted while we were reading; leave it out
+            return loaded;
+        }
+        if (availabilityIndex.version(eventId) != version) {
+            maps.remove(eventId, loaded);
+        } else if (maps.size() > maxEvents) {
+            evictLeastRecentlyRead();
+        }
+        return loaded;
+    }
+
+    private void evictLeastRecentlyRead() {
+        Map.Entry<Long, SeatMap> oldest = null;
+        for (Map.Entry<Long, SeatMap> entry : maps.entrySet()) {
+            if (oldest == null || entry.getValue().lastRead < oldest.getValue().lastRead) {
+                oldest = entry;
+            }
+        }
+        if (oldest != null) {
+            maps.remove(oldest.getKey(), oldest.getValue());
+        }
+    }
+
+    /**
+     * One event's seats. Each slot is replaced atomically, so readers see
+     * every seat either before or after a change, never half-way.
+     */
+    private static final class SeatMap {
+
+        final long[] seatIds;
+        final AtomicReferenceArray<SeatView> views;
+        final long loadedAt = System.nanoTime();
+        volatile long lastRead = loadedAt;
+        // Set by the one caller reloading the map once it is too old
+        final AtomicBoolean reloading = new AtomicBoolean();
+        // Sum of hash() over the slots; moved after every change to them
+        final AtomicLong version = new AtomicLong();
+
+        SeatMap(List<SeatView> seats) {
+            this.seatIds = new long[seats.size()];
+            this.views = new AtomicReferenceArray<>(seats.size());
+            long sum = 0;
+            for (int i = 0; i < seatIds.length; i++) {
+                seatIds[i] = seats.get(i).id();
+                views.set(i, seats.get(i));
+                sum += hash(seats.get(i));
+            }
+            version.set(sum);
+        }
+
+        /**
+         * Mixes the fields a seat listing shows that can change. Summed over
+         * the map, two maps only agree if their seats do.
+         */
+        static long hash(SeatView view) {
+            long h = view.id() * 0x9E3779B97F4A7C15L + view.version();
+            h = (h << 2) | (view.booked() ? 2 : 0) | (view.held() ? 1 : 0);
+            // SplitMix64 finalizer
+            h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+            h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+            return h ^ (h >>> 31);
+        }
+
+        void set(SeatView view) {
+            int i = Arrays.binarySearch(seatIds, view.id());
+            if (i >= 0) {
+                // Slot first: the version must never get ahead of the seats
+                SeatView previous = views.getAndSet(i, view);
+                version.addAndGet(hash(view) - hash(previous));
+            }
+        }
+
+        SeatView get(Long seatId) {
+            int i = Arrays.binarySearch(seatIds, seatId);
+            return i >= 0 ? views.get(i) : null;
+        }
+
+        void update(Long seatId, boolean held) {
+            int i = Arrays.binarySearch(seatIds, seatId);
+            if (i >= 0) {
+                SeatView previous = views.getAndUpdate(i, view -> view.withHeld(held));
+                version.addAndGet(hash(previous.withHeld(held)) - hash(previous));
+            }
+        }
+
+        List<SeatView> snapshot() {
+            List<SeatView> seats = new ArrayList<>(seatIds.length);
+            for (int i = 0; i < seatIds.length; i++) {
+                seats.add(views.get(i));
+            }
+            return seats;
+        }
+    }
+}
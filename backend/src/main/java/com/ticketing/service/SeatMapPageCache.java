@@ -0,0 +1,91 @@
+package com.ticketing.service;
+
+import com.ticketing.dto.SeatView;
+import com.ticketing.util.HtmlJsonRenderer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Rendered /view seat map pages, one per event.
+ *
+ * KEY CONCEPT: A page is keyed by the SeatMapCache version it was rendered
+ * from, so it is reused until a seat of the event changes, and the same
+ * version is the page's ETag. A browser reloading an unchanged seat map
+ * gets a 304 without the page being rendered or sent again.
+ *
+ * Only the latest page of each event is kept, for at most
+ * ticketing.html-view.cache.max-events events; the least recently read one
+ * is evicted first.
+ */
+@Component
+public class SeatMapPageCache {
+
+    private final SeatMapCache seatMapCache;
+    private final int maxEvents;
+
+    private final ConcurrentHashMap<Long, Page> pages = new ConcurrentHashMap<>();
+
+    public SeatMapPageCache(SeatMapCache seatMapCache,
+            @Value("${ticketing.html-view.cache.max-events:16}") int maxEvents) {
+        this.seatMapCache = seatMapCache;
+        this.maxEvents = maxEvents;
+    }
+
+    /**
+     * @return the version of the event's seat map right now, for the ETag
+     */
+    public long version(Long eventId) {
+        return seatMapCache.version(eventId);
+    }
+
+    /**
+     * @param version what version() returned; the page is at least that new
+     * @return the page, UTF-8 encoded
+     */
+    public byte[] getPage(Long eventId, long version) {
+        Page page = pages.get(eventId);
+        if (page != null && page.version == version) {
+            page.lastRead = System.nanoTime();
+            return page.html;
+        }
+
+        List<SeatView> seats = seatMapCache.getSeats(eventId);
+        byte[] html = HtmlJsonRenderer.render("Seats for Event " + eventId, seats);
+        if (seats.isEmpty()) {
+            // No such event (or no seats yet); don't let made-up ids fill the cache
+            return html;
+        }
+        pages.put(eventId, new Page(version, html));
+        if (pages.size() > maxEvents) {
+            evictLeastRecentlyRead();
+        }
+        return html;
+    }
+
+    private void evictLeastRecentlyRead() {
+        Map.Entry<Long, Page> oldest = null;
+        for (Map.Entry<Long, Page> entry : pages.entrySet()) {
+            if (oldest == null || entry.getValue().lastRead < oldest.getValue().lastRead) {
+                oldest = entry;
+            }
+        }
+        if (oldest != null) {
+            pages.remove(oldest.getKey(), oldest.getValue());
+        }
+    }
+
+    private static final class Page {
+        final long version;
+        final byte[] html;
+        volatile long lastRead = System.nanoTime();
+
+        Page(long version, byte[] html) {
+            this.version = version;
+            this.html = html;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.ticketing.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ticketing.dto.SeatView;
+import com.ticketing.exception.ServiceBusyException;
+import com.ticketing.repository.SeatRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Stream;
+
+/**
+ * Writes an event's seat map as a JSON array straight from the database to
+ * an output stream.
+ *
+ * KEY CONCEPT: Rows come off a forward-only cursor (see
+ * SeatRepository.streamViewsByEventId) and go out through a Jackson
+ * JsonGenerator one seat at a time, so a request holds one fetch of rows and
+ * the generator's buffer - the same for 30 seats or 100,000. Nothing goes
+ * through the SeatMapCache, which suits one-off exports of events nobody is
+ * browsing.
+ *
+ * The read-only transaction keeps a connection for as long as the client
+ * takes to read the response, outside the DatabaseBulkhead (which is sized
+ * for short booking transactions). So at most
+ * ticketing.seat-stream.max-concurrent streams run at once; further
+ * requests get a 503 straight away rather than draining the pool. Slow
+ * clients are better served by the paged endpoint.
+ */
+@Component
+public class SeatStreamWriter {
+
+    private final SeatRepository seatRepository;
+    private final SeatAvailabilityIndex availabilityIndex;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnly;
+    private final Semaphore streams;
+
+    public SeatStreamWriter(SeatRepository seatRepository, SeatAvailabilityIndex availabilityIndex,
+            ObjectMapper objectMapper, PlatformTransactionManager transactionManager,
+            @Value("${ticketing.seat-stream.max-concurrent:2}") int maxConcurrent) {
+        this.seatRepository = seatRepository;
+        this.availabilityIndex = availabilityIndex;
+        this.objectMapper = objectMapper;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.streams = new Semaphore(maxConcurrent);
+    }
+
+    /**
+     * Reserves a stream for a request, before its response is committed.
+     * Every successful call must be followed by exactly one write().
+     *
+     * @throws ServiceBusyException if every stream is in use
+     */
+    public void reserve() {
+        if (!streams.tryAcquire()) {
+            throw new ServiceBusyException(
+                    "Too many seat map downloads in progress. Please try again in a moment, or page the seats.");
+        }
+    }
+
+    /**
+     * Writes the seats in seat id order, serialized like SeatView, on a
+     * stream reserved with reserve(), and hands the stream back. Leaves
+     * the output stream open.
+     */
+    public void write(Long eventId, OutputStream out) {
+        try {
+            writeSeats(eventId, out);
+        } finally {
+            streams.release();
+        }
+    }
+
+    private void writeSeats(Long eventId, OutputStream out) {
+        readOnly.executeWithoutResult(status -> {
+            try (Stream<SeatView> seats = seatRepository.streamViewsByEventId(eventId, LocalDateTime.now());
+                    JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+                json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                // Jackson writes an Iterator as an array, pulling one seat at a time
+                Iterator<SeatView> current = seats.map(this::current).iterator();
+                objectMapper.writeValue(json, current);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+    }
+
+    /**
+     * As in SeatMapCache: with write-behind the index is ahead of the database.
+     */
+    private SeatView current(SeatView seat) {
+        return !seat.booked() && availabilityIndex.isBooked(seat.id()) ? seat.withBooked() : seat;
+    }
+}
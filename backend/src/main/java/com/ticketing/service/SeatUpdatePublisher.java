@@ -0,0 +1,261 @@
+package com.ticketing.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ticketing.dto.SeatUpdate;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pushes seat changes to browsers over Server-Sent Events, so a booking
+ * page doesn't have to refetch the whole seat list after every click.
+ *
+ * KEY CONCEPT: Coalescing. The first change for an event schedules a flush
+ * a few milliseconds out; everything that arrives before it fires rides
+ * along (keeping only the latest change per seat). Each flush serializes the
+ * batch once and writes the same string to every subscriber, so a burst of
+ * 1,000 bookings costs a handful of writes per subscriber, not 1,000.
+ *
+ * The flush thread never writes to a socket itself. It queues the batch on
+ * each subscriber, and the subscriber's writes run on the sender pool, one
+ * at a time, so a client that stops reading only holds up itself. A client
+ * with more than ticketing.seat-updates.max-backlog batches queued, or a
+ * write stuck for ticketing.seat-updates.send-timeout-ms, is dropped; the
+ * page reconnects and refetches the seats.
+ *
+ * The sender pool is bounded in threads (ticketing.seat-updates.sender-threads)
+ * and in subscribers waiting for one (ticketing.seat-updates.sender-queue).
+ * A subscriber that finds both full is dropped the same way, so a crowd of
+ * stuck clients costs a fixed number of threads, not one each.
+ *
+ * An event's channel exists while it has subscribers.
+ */
+@Component
+public class SeatUpdatePublisher {
+
+    private static final long EMITTER_TIMEOUT_MS = TimeUnit.MINUTES.toMillis(30);
+
+    private final SeatAvailabilityIndex availabilityIndex;
+    private final ObjectMapper objectMapper;
+    private final long flushDelayMs;
+    private final int maxBacklog;
+    private final long sendTimeoutNanos;
+
+    private final ConcurrentHashMap<Long, Channel> channels = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "seat-updates");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ThreadPoolExecutor senders;
+
+    public SeatUpdatePublisher(SeatAvailabilityIndex availabilityIndex, ObjectMapper objectMapper,
+            @Value("${ticketing.seat-updates.flush-delay-ms:25}") long flushDelayMs,
+            @Value("${ticketing.seat-updates.max-backlog:64}") int maxBacklog,
+            @Value("${ticketing.seat-updates.send-timeout-ms:10000}") long sendTimeoutMillis,
+            @Value("${ticketing.seat-updates.sender-threads:16}") int senderThreads,
+            @Value("${ticketing.seat-updates.sender-queue:1024}") int senderQueue) {
+        this.availabilityIndex = availabilityIndex;
+        this.objectMapper = objectMapper;
+        this.flushDelayMs = flushDelayMs;
+        this.maxBacklog = maxBacklog;
+        this.sendTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeoutMillis);
+        // No caller-runs: the flush thread must never write to a socket
+        this.senders = new ThreadPoolExecutor(senderThreads, senderThreads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(senderQueue), r -> {
+                    Thread thread = new Thread(r, "seat-updates-send");
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        this.senders.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * @param eventId an event that exists; the caller checks
+     */
+    public SseEmitter subscribe(Long eventId) {
+        return subscribe(eventId, new SseEmitter(EMITTER_TIMEOUT_MS));
+    }
+
+    SseEmitter subscribe(Long eventId, SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(emitter);
+        // Under the map's lock, so the channel can't be removed between lookup and add
+        channels.compute(eventId, (id, channel) -> {
+            Channel joined = channel != null ? channel : new Channel(id);
+            joined.subscribers.add(subscriber);
+            return joined;
+        });
+        emitter.onCompletion(() -> unsubscribe(eventId, subscriber));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(ex -> unsubscribe(eventId, subscriber));
+        return emitter;
+    }
+
+    private void unsubscribe(Long eventId, Subscriber subscriber) {
+        subscriber.dropped = true;
+        channels.computeIfPresent(eventId, (id, channel) -> {
+            channel.subscribers.remove(subscriber);
+            return channel.subscribers.isEmpty() ? null : channel;
+        });
+    }
+
+    /**
+     * A seat change committed. Cheap: records the change and, if no flush is
+     * pending for the event, schedules one.
+     */
+    public void publish(Long eventId, SeatUpdate update) {
+        Channel channel = eventId != null ? channels.get(eventId) : null;
+        if (channel == null || channel.subscribers.isEmpty()) {
+            return;
+        }
+        synchronized (channel) {
+            channel.pending.put(update.id(), update);
+            if (channel.flushScheduled) {
+                return;
+            }
+            channel.flushScheduled = true;
+        }
+        flusher.schedule(() -> flush(channel), flushDelayMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Same as publish(eventId, update), for callers that only know the seat.
+     */
+    public void publish(SeatUpdate update) {
+        publish(availabilityIndex.eventIdOf(update.id()), update);
+    }
+
+    @PreDestroy
+    public void stop() {
+        flusher.shutdownNow();
+        senders.shutdownNow();
+    }
+
+    private void flush(Channel channel) {
+        List<SeatUpdate> batch;
+        synchronized (channel) {
+            batch = new ArrayList<>(channel.pending.values());
+            channel.pending.clear();
+            channel.flushScheduled = false;
+        }
+
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(batch);
+        } catch (JsonProcessingException ex) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        for (Subscriber subscriber : channel.subscribers) {
+            if (!subscriber.offer(json, now)) {
+                // Too far behind, or no sender to spare; completed by its
+                // sender once that is free, or by offer() if it had none
+                unsubscribe(channel.eventId, subscriber);
+            }
+        }
+    }
+
+    /**
+     * One browser's stream, with the batches not yet written to it.
+     */
+    private final class Subscriber {
+
+        final SseEmitter emitter;
+
+        // Guarded by the subscriber's monitor
+        final ArrayDeque<String> backlog = new ArrayDeque<>();
+        boolean sending;
+        long sendStarted;
+
+        volatile boolean dropped;
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        /**
+         * Queues a batch and starts a sender if none is running.
+         *
+         * @return false if the client is too slow to keep, or the sender
+         *         pool is full
+         */
+        boolean offer(String json, long now) {
+            synchronized (this) {
+                if (backlog.size() >= maxBacklog || (sending && now - sendStarted > sendTimeoutNanos)) {
+                    return false;
+                }
+                backlog.add(json);
+                if (sending) {
+                    return true;
+                }
+                try {
+                    senders.execute(this::drain);
+                    sending = true;
+                    sendStarted = now;
+                    return true;
+                } catch (RejectedExecutionException ex) {
+                    dropped = true;
+                    backlog.clear();
+                }
+            }
+            // No sender will ever see it, so end it here
+            emitter.complete();
+            return false;
+        }
+
+        private void drain() {
+            while (true) {
+                String json;
+                synchronized (this) {
+                    json = dropped ? null : backlog.poll();
+                    if (json == null) {
+                        sending = false;
+                        break;
+                    }
+                    sendStarted = System.nanoTime();
+                }
+                try {
+                    emitter.send(SseEmitter.event().name("seats").data(json));
+                } catch (IOException | IllegalStateException ex) {
+                    // Client went away; onError/onCompletion unsubscribe it
+                    dropped = true;
+                }
+            }
+            if (dropped) {
+                emitter.complete();
+            }
+        }
+    }
+
+    private static final class Channel {
+
+        final Long eventId;
+        final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+        // Guarded by the channel's monitor
+        final Map<Long, SeatUpdate> pending = new LinkedHashMap<>();
+        boolean flushScheduled;
+
+        Channel(Long eventId) {
+            this.eventId = eventId;
+        }
+    }
+}
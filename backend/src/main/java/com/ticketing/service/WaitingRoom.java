@@ -0,0 +1,308 @@
+package com.ticketing.service;
+
+import com.ticketing.dto.QueueTicket;
+import com.ticketing.exception.NotAdmittedException;
+import com.ticketing.exception.ServiceBusyException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Virtual waiting room in front of the booking endpoints.
+ *
+ * KEY CONCEPT: Customers join an event's line and get a numbered, signed
+ * ticket. The line admits positions at a fixed rate per event, so no matter
+ * how many people arrive at once, bookings reach the database at a steady
+ * pace and in arrival order. Nobody is tracked server-side: the ticket
+ * carries its own event, position and expiry, and the HMAC signature stops
+ * anyone from writing themselves a better position.
+ *
+ * While an event is quiet the line keeps up to "burst" admissions in hand,
+ * so customers are let straight in and never see the waiting room.
+ *
+ * An admitted ticket is good for requests-per-ticket booking and hold
+ * requests, so one place in line can't be shared out or replayed into a
+ * stream of bookings. The count is kept by the instance that admits the
+ * ticket, which is the event's owner in partitioned mode. Joining with a
+ * ticket that is still good keeps its place rather than taking a new one,
+ * and a line holds at most max-waiting customers not yet admitted; past
+ * that, joining fails with a 503.
+ *
+ * Lines exist only for events in the EventCatalog, and a line nobody has
+ * used for ticket-ttl-minutes is dropped when the next line is opened:
+ * every ticket it issued has expired by then.
+ */
+@Component
+public class WaitingRoom {
+
+    public static final String QUEUE_TOKEN_HEADER = "X-Queue-Token";
+
+    private static final String HMAC = "HmacSHA256";
+
+    private final boolean enabled;
+    private final double admissionsPerSecond;
+    private final Map<Long, Double> eventAdmissionsPerSecond;
+    private final int burst;
+    private final long ticketTtlSeconds;
+    private final int requestsPerTicket;
+    private final long maxWaiting;
+    private final SecretKeySpec key;
+    private final EventCatalog eventCatalog;
+
+    private final ConcurrentHashMap<Long, Line> lines = new ConcurrentHashMap<>();
+
+    public WaitingRoom(
+            @Value("${ticketing.waiting-room.enabled:false}") boolean enabled,
+            @Value("${ticketing.waiting-room.admissions-per-second:50}") double admissionsPerSecond,
+            @Value("#{${ticketing.waiting-room.event-admissions-per-second:{:}}}") Map<Long, Double> eventAdmissionsPerSecond,
+            @Value("${ticketing.waiting-room.burst:100}") int burst,
+            @Value("${ticketing.waiting-room.ticket-ttl-minutes:30}") long ticketTtlMinutes,
+            @Value("${ticketing.waiting-room.requests-per-ticket:10}") int requestsPerTicket,
+            @Value("${ticketing.waiting-room.max-waiting:100000}") long maxWaiting,
+            @Value("${ticketing.waiting-room.secret:}") String secret,
+            EventCatalog eventCatalog) {
+        this.enabled = enabled;
+        this.admissionsPerSecond = admissionsPerSecond;
+        this.eventAdmissionsPerSecond = Map.copyOf(eventAdmissionsPerSecond);
+        this.burst = burst;
+        this.ticketTtlSeconds = ticketTtlMinutes * 60;
+        this.requestsPerTicket = requestsPerTicket;
+        this.maxWaiting = maxWaiting;
+        // Without a configured secret, tickets are only valid on this instance until it restarts
+        byte[] keyBytes = secret.isEmpty() ? new byte[32] : secret.getBytes(StandardCharsets.UTF_8);
+        if (secret.isEmpty()) {
+            new SecureRandom().nextBytes(keyBytes);
+        }
+        this.key = new SecretKeySpec(keyBytes, HMAC);
+        this.eventCatalog = eventCatalog;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Takes the next place in the event's line, or keeps the one token
+     * holds if it is still good.
+     *
+     * @param token the caller's current ticket, if any
+     * @throws ServiceBusyException if the line is full
+     */
+    public QueueTicket join(Long eventId, String token) {
+        Line line = line(eventId);
+        if (token != null && !token.isEmpty()) {
+            try {
+                long position = verify(eventId, token);
+                if (line.requestsLeft(position) > 0) {
+                    return ticket(eventId, position, token, line);
+                }
+            } catch (IllegalArgumentException ex) {
+                // Forged, expired or for another event: a new place it is
+            }
+        }
+        long now = System.nanoTime();
+        long position = line.issue(now);
+        if (position < 0) {
+            throw new ServiceBusyException("The waiting room is full. Please try again in a moment.");
+        }
+        if ((position & 1023) == 0) {
+            line.forgetExpired(Instant.now().getEpochSecond());
+        }
+        long expiresAt = Instant.now().getEpochSecond() + ticketTtlSeconds;
+        String payload = eventId + "." + position + "." + expiresAt;
+        return ticket(eventId, position, payload + "." + sign(payload), line);
+    }
+
+    /**
+     * Where a ticket stands now, for customers polling the waiting room.
+     */
+    public QueueTicket status(Long eventId, String token) {
+        long position = verify(eventId, token);
+        return ticket(eventId, position, token, line(eventId));
+    }
+
+    /**
+     * Lets a booking request through, or turns it away.
+     *
+     * @throws NotAdmittedException if there is no ticket or its turn hasn't come yet
+     * @throws IllegalArgumentException if the ticket is forged, expired, for
+     *         another event, or has no requests left
+     */
+    public void admit(Long eventId, String token) {
+        if (token == null || token.isEmpty()) {
+            throw new NotAdmittedException("Join the waiting room first: POST /api/events/"
+                    + eventId + "/queue, then send the token as " + QUEUE_TOKEN_HEADER, 1);
+        }
+        long position = verify(eventId, token);
+        Line line = line(eventId);
+        long ahead = position - line.admittedUpTo(System.nanoTime());
+        if (ahead > 0) {
+            throw new NotAdmittedException("You are number " + ahead + " in line", line.secondsFor(ahead));
+        }
+        if (!line.spend(position, expiresAt(token))) {
+            throw new IllegalArgumentException("Queue token has been used up, please join the waiting room again");
+        }
+    }
+
+    private QueueTicket ticket(Long eventId, long position, String token, Line line) {
+        long ahead = position - line.admittedUpTo(System.nanoTime());
+        return ahead > 0
+                ? new QueueTicket(eventId, position, token, false, line.secondsFor(ahead))
+                : new QueueTicket(eventId, position, token, true, 0);
+    }
+
+    private static long expiresAt(String token) {
+        String[] fields = token.split("\\.");
+        return Long.parseLong(fields[2]);
+    }
+
+    /**
+     * @return the ticket's position
+     */
+    private long verify(Long eventId, String token) {
+        int sig = token.lastIndexOf('.');
+        String[] fields = sig > 0 ? token.substring(0, sig).split("\\.") : new String[0];
+        if (fields.length != 3
+                || !MessageDigest.isEqual(sign(token.substring(0, sig)).getBytes(StandardCharsets.US_ASCII),
+                        token.substring(sig + 1).getBytes(StandardCharsets.US_ASCII))) {
+            throw new IllegalArgumentException("Invalid queue token");
+        }
+        if (!fields[0].equals(String.valueOf(eventId))) {
+            throw new IllegalArgumentException("Queue token is for another event");
+        }
+        if (Long.parseLong(fields[2]) < Instant.now().getEpochSecond()) {
+            throw new IllegalArgumentException("Queue token has expired, please join the waiting room again");
+        }
+        return Long.parseLong(fields[1]);
+    }
+
+    private String sign(String payload) {
+        try {
+            Mac mac = Mac.getInstance(HMAC);
+            mac.init(key);
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(mac.doFinal(payload.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if there is no such event
+     */
+    private Line line(Long eventId) {
+        Line line = lines.get(eventId);
+        if (line == null) {
+            if (eventCatalog.getEvent(eventId) == null) {
+                throw new IllegalArgumentException("No such event: " + eventId);
+            }
+            evictIdle(System.nanoTime());
+            line = lines.computeIfAbsent(eventId,
+                    id -> new Line(eventAdmissionsPerSecond.getOrDefault(id, admissionsPerSecond)));
+        }
+        line.lastUsed = System.nanoTime();
+        return line;
+    }
+
+    private void evictIdle(long now) {
+        long ttlNanos = TimeUnit.SECONDS.toNanos(ticketTtlSeconds);
+        lines.values().removeIf(line -> now - line.lastUsed > ttlNanos);
+    }
+
+    /**
+     * One event's line: positions handed out, how far admission has got,
+     * and the requests admitted tickets have used.
+     */
+    private final class Line {
+
+        final AtomicLong issued = new AtomicLong();
+        final double rate;
+
+        // Admitted positions still within their ticket's lifetime
+        final ConcurrentHashMap<Long, Spent> spent = new ConcurrentHashMap<>();
+
+        private double admitted;
+        private long lastNanos = System.nanoTime();
+
+        // Last join, status or admission, for evictIdle()
+        volatile long lastUsed = System.nanoTime();
+
+        Line(double rate) {
+            this.rate = rate;
+            this.admitted = burst;
+        }
+
+        /**
+         * Admission moves forward at the line's rate, but never more than
+         * burst places past the last ticket issued, so a quiet spell doesn't
+         * build up credit for the next rush.
+         */
+        synchronized long admittedUpTo(long now) {
+            admitted = Math.min(admitted + rate * (now - lastNanos) / 1e9, issued.get() + burst);
+            lastNanos = now;
+            return (long) admitted;
+        }
+
+        long secondsFor(long places) {
+            return Math.max(1, (long) Math.ceil(places / rate));
+        }
+
+        /**
+         * @return the next position, or -1 if max-waiting are already waiting
+         */
+        long issue(long now) {
+            long admittedUpTo = admittedUpTo(now);
+            while (true) {
+                long last = issued.get();
+                if (last - admittedUpTo >= maxWaiting) {
+                    return -1;
+                }
+                if (issued.compareAndSet(last, last + 1)) {
+                    return last + 1;
+                }
+            }
+        }
+
+        int requestsLeft(long position) {
+            Spent used = spent.get(position);
+            return used == null ? requestsPerTicket : requestsPerTicket - used.requests.get();
+        }
+
+        /**
+         * Counts one request against the ticket at position.
+         *
+         * @return false if it had none left
+         */
+        boolean spend(long position, long expiresAt) {
+            Spent used = spent.computeIfAbsent(position, p -> new Spent(expiresAt));
+            return used.requests.incrementAndGet() <= requestsPerTicket;
+        }
+
+        void forgetExpired(long nowSeconds) {
+            spent.values().removeIf(used -> used.expiresAt < nowSeconds);
+        }
+    }
+
+    private static final class Spent {
+
+        final long expiresAt;
+        final AtomicInteger requests = new AtomicInteger();
+
+        Spent(long expiresAt) {
+            this.expiresAt = expiresAt;
+        }
+    }
+}
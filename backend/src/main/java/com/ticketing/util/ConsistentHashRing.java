@@ -0,0 +1,73 @@
+package com.ticketing.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Consistent hashing of long keys (event ids) onto a fixed set of nodes.
+ *
+ * Every node is placed on the ring at virtualNodes pseudo-random points; a
+ * key belongs to the first point at or after its own hash, wrapping around.
+ * Adding or removing one node of n only moves about 1/n of the keys, and
+ * every instance given the same node list computes the same owners - there
+ * is nothing to coordinate at runtime.
+ */
+public class ConsistentHashRing {
+
+    private final NavigableMap<Long, String> points = new TreeMap<>();
+
+    public ConsistentHashRing(List<String> nodes, int virtualNodes) {
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException("A hash ring needs at least one node");
+        }
+        if (virtualNodes < 1) {
+            throw new IllegalArgumentException("virtualNodes must be at least 1");
+        }
+        MessageDigest md5 = md5();
+        for (String node : nodes) {
+            for (int i = 0; i < virtualNodes; i++) {
+                byte[] digest = md5.digest((node + "#" + i).getBytes(StandardCharsets.UTF_8));
+                points.put(toLong(digest), node);
+            }
+        }
+    }
+
+    public String nodeFor(long key) {
+        Map.Entry<Long, String> point = points.ceilingEntry(mix(key));
+        return (point != null ? point : points.firstEntry()).getValue();
+    }
+
+    /**
+     * Spreads sequential ids over the whole ring (the 64-bit finalizer of
+     * MurmurHash3).
+     */
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    private static long toLong(byte[] digest) {
+        long value = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            value = (value << 8) | (digest[i] & 0xFF);
+        }
+        return value;
+    }
+
+    private static MessageDigest md5() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("MD5 is not available", ex);
+        }
+    }
+}
@@ -1,11 +1,26 @@
 package com.ticketing.util;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.CharacterEscapes;
+import com.fasterxml.jackson.core.io.SerializedString;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
 /**
  * Utility to wrap JSON responses in styled HTML for browser viewing.
+ *
+ * KEY CONCEPT: Nothing is built as a String. The page template is split
+ * into byte arrays once, and the JSON is written between them by a Jackson
+ * generator that escapes &amp;, &lt; and &gt; as it goes, so a page costs one
+ * pass over the data, written straight to wherever it is going.
  */
 public class HtmlJsonRenderer {
 
@@ -17,109 +32,178 @@ public class HtmlJsonRenderer {
         mapper.enable(SerializationFeature.INDENT_OUTPUT);
     }
 
-    public static String render(String title, Object data) {
-        String json;
+    private static final String TEMPLATE = """
+        <!DOCTYPE html>
+        <html lang="en">
+        <head>
+            <meta charset="UTF-8">
+            <meta name="viewport" content="width=device-width, initial-scale=1.0">
+            <title>%s - Event Ticketing API</title>
+            <link href="https://fonts.googleapis.com/css2?family=JetBrains+Mono:wght@400;500&family=Inter:wght@400;500;600&display=swap" rel="stylesheet">
+            <style>
+                * { margin: 0; padding: 0; box-sizing: border-box; }
+                body {
+                    font-family: 'Inter', system-ui, sans-serif;
+                    background: #0d0d0d;
+                    color: #faf7f2;
+                    min-height: 100vh;
+                    padding: 40px 24px;
+                }
+                .container {
+                    max-width: 900px;
+                    margin: 0 auto;
+                }
+                .header {
+                    display: flex;
+                    justify-content: space-between;
+                    align-items: center;
+                    margin-bottom: 24px;
+                    padding-bottom: 24px;
+                    border-bottom: 1px solid #3d3529;
+                }
+                h1 {
+                    font-size: 1.5rem;
+                    color: #e5c76b;
+                }
+                .back-link {
+                    color: #a39e93;
+                    text-decoration: none;
+                    font-size: 0.9rem;
+                    padding: 8px 16px;
+                    border: 1px solid #3d3529;
+                    border-radius: 6px;
+                    transition: all 0.2s;
+                }
+                .back-link:hover {
+                    background: #1a1814;
+                    color: #faf7f2;
+                }
+                .json-container {
+                    background: #1a1814;
+                    border: 1px solid #3d3529;
+                    border-radius: 12px;
+                    padding: 24px;
+                    overflow-x: auto;
+                }
+                pre {
+                    font-family: 'JetBrains Mono', monospace;
+                    font-size: 0.85rem;
+                    line-height: 1.6;
+                    color: #a39e93;
+                }
+                .string { color: #4ade80; }
+                .number { color: #60a5fa; }
+                .boolean { color: #f59e0b; }
+                .null { color: #6b6560; }
+                .key { color: #e5c76b; }
+            </style>
+        </head>
+        <body>
+            <div class="container">
+                <div class="header">
+                    <h1>%s</h1>
+                    <a href="/" class="back-link">← Back to API</a>
+                </div>
+                <div class="json-container">
+                    <pre>%s</pre>
+                </div>
+            </div>
+            <script>
+                // Simple JSON syntax highlighting
+                const pre = document.querySelector('pre');
+                let html = pre.innerHTML;
+                html = html.replace(/"([^"]+)":/g, '<span class="key">"$1"</span>:');
+                html = html.replace(/: "([^"]*)"/g, ': <span class="string">"$1"</span>');
+                html = html.replace(/: (\\d+)/g, ': <span class="number">$1</span>');
+                html = html.replace(/: (true|false)/g, ': <span class="boolean">$1</span>');
+                html = html.replace(/: (null)/g, ': <span class="null">$1</span>');
+                pre.innerHTML = html;
+            </script>
+        </body>
+        </html>
+        """;
+
+    // The template around the title (twice) and the JSON
+    private static final byte[][] PARTS;
+
+    static {
+        String[] parts = TEMPLATE.split("%s", -1);
+        PARTS = new byte[parts.length][];
+        for (int i = 0; i < parts.length; i++) {
+            PARTS[i] = parts[i].getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    private static final HtmlEscapes HTML_ESCAPES = new HtmlEscapes();
+
+    /**
+     * Writes the page to out. Leaves the stream open.
+     */
+    public static void write(String title, Object data, OutputStream out) throws IOException {
+        byte[] escapedTitle = escape(title).getBytes(StandardCharsets.UTF_8);
+        out.write(PARTS[0]);
+        out.write(escapedTitle);
+        out.write(PARTS[1]);
+        out.write(escapedTitle);
+        out.write(PARTS[2]);
+        try (JsonGenerator json = mapper.getFactory().createGenerator(out)) {
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            json.setCharacterEscapes(HTML_ESCAPES);
+            mapper.writeValue(json, data);
+        }
+        out.write(PARTS[3]);
+    }
+
+    /**
+     * @return the page, UTF-8 encoded
+     */
+    public static byte[] render(String title, Object data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(4096);
         try {
-            json = mapper.writeValueAsString(data);
-        } catch (Exception e) {
-            json = "Error serializing data";
+            write(title, data, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
+        return out.toByteArray();
+    }
 
-        // Escape HTML entities in JSON
-        json = json.replace("&", "&amp;")
+    private static String escape(String text) {
+        return text.replace("&", "&amp;")
                 .replace("<", "&lt;")
                 .replace(">", "&gt;");
+    }
+
+    /**
+     * Jackson's JSON escapes plus HTML entities for the characters that
+     * would otherwise be markup inside the pre element.
+     */
+    private static final class HtmlEscapes extends CharacterEscapes {
+
+        private static final SerializableString AMP = new SerializedString("&amp;");
+        private static final SerializableString LT = new SerializedString("&lt;");
+        private static final SerializableString GT = new SerializedString("&gt;");
+
+        private final int[] escapes = standardAsciiEscapesForJSON();
 
-        return """
-                <!DOCTYPE html>
-                <html lang="en">
-                <head>
-                    <meta charset="UTF-8">
-                    <meta name="viewport" content="width=device-width, initial-scale=1.0">
-                    <title>%s - Event Ticketing API</title>
-                    <link href="https://fonts.googleapis.com/css2?family=JetBrains+Mono:wght@400;500&family=Inter:wght@400;500;600&display=swap" rel="stylesheet">
-                    <style>
-                        * { margin: 0; padding: 0; box-sizing: border-box; }
-                        body {
-                            font-family: 'Inter', system-ui, sans-serif;
-                            background: #0d0d0d;
-                            color: #faf7f2;
-                            min-height: 100vh;
-                            padding: 40px 24px;
-                        }
-                        .container {
-                            max-width: 900px;
-                            margin: 0 auto;
-                        }
-                        .header {
-                            display: flex;
-                            justify-content: space-between;
-                            align-items: center;
-                            margin-bottom: 24px;
-                            padding-bottom: 24px;
-                            border-bottom: 1px solid #3d3529;
-                        }
-                        h1 {
-                            font-size: 1.5rem;
-                            color: #e5c76b;
-                        }
-                        .back-link {
-                            color: #a39e93;
-                            text-decoration: none;
-                            font-size: 0.9rem;
-                            padding: 8px 16px;
-                            border: 1px solid #3d3529;
-                            border-radius: 6px;
-                            transition: all 0.2s;
-                        }
-                        .back-link:hover {
-                            background: #1a1814;
-                            color: #faf7f2;
-                        }
-                        .json-container {
-                            background: #1a1814;
-                            border: 1px solid #3d3529;
-                            border-radius: 12px;
-                            padding: 24px;
-                            overflow-x: auto;
-                        }
-                        pre {
-                            font-family: 'JetBrains Mono', monospace;
-                            font-size: 0.85rem;
-                            line-height: 1.6;
-                            color: #a39e93;
-                        }
-                        .string { color: #4ade80; }
-                        .number { color: #60a5fa; }
-                        .boolean { color: #f59e0b; }
-                        .null { color: #6b6560; }
-                        .key { color: #e5c76b; }
-                    </style>
-                </head>
-                <body>
-                    <div class="container">
-                        <div class="header">
-                            <h1>%s</h1>
-                            <a href="/" class="back-link">← Back to API</a>
-                        </div>
-                        <div class="json-container">
-                            <pre>%s</pre>
-                        </div>
-                    </div>
-                    <script>
-                        // Simple JSON syntax highlighting
-                        const pre = document.querySelector('pre');
-                        let html = pre.innerHTML;
-                        html = html.replace(/"([^"]+)":/g, '<span class="key">"$1"</span>:');
-                        html = html.replace(/: "([^"]*)"/g, ': <span class="string">"$1"</span>');
-                        html = html.replace(/: (\\d+)/g, ': <span class="number">$1</span>');
-                        html = html.replace(/: (true|false)/g, ': <span class="boolean">$1</span>');
-                        html = html.replace(/: (null)/g, ': <span class="null">$1</span>');
-                        pre.innerHTML = html;
-                    </script>
-                </body>
-                </html>
-                """
-                .formatted(title, title, json);
+        HtmlEscapes() {
+            escapes['&'] = ESCAPE_CUSTOM;
+            escapes['<'] = ESCAPE_CUSTOM;
+            escapes['>'] = ESCAPE_CUSTOM;
+        }
+
+        @Override
+        public int[] getEscapeCodesForAscii() {
+            return escapes;
+        }
+
+        @Override
+        public SerializableString getEscapeSequence(int ch) {
+            return switch (ch) {
+                case '&' -> AMP;
+                case '<' -> LT;
+                case '>' -> GT;
+                default -> null;
+            };
+        }
     }
 }
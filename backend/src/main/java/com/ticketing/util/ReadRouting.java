@@ -0,0 +1,51 @@
+package com.ticketing.util;
+
+import java.util.function.Supplier;
+
+/**
+ * Whether read-only transactions on the current thread may go to the read
+ * replica (see ReplicaDataSourceConfig). Off unless something turned it on,
+ * so only requests the ReadYourWritesFilter lets through ever read from the
+ * replica, and nothing does when no replica is configured.
+ */
+public final class ReadRouting {
+
+    private static final ThreadLocal<Boolean> replicaAllowed = new ThreadLocal<>();
+
+    private ReadRouting() {
+    }
+
+    public static boolean isReplicaAllowed() {
+        return Boolean.TRUE.equals(replicaAllowed.get());
+    }
+
+    /**
+     * @return the previous setting, to hand to restore() afterwards
+     */
+    public static Boolean allowReplica(boolean allowed) {
+        Boolean previous = replicaAllowed.get();
+        replicaAllowed.set(allowed);
+        return previous;
+    }
+
+    public static void restore(Boolean previous) {
+        if (previous == null) {
+            replicaAllowed.remove();
+        } else {
+            replicaAllowed.set(previous);
+        }
+    }
+
+    /**
+     * Runs read against the primary whatever the current setting. For loads
+     * that get cached: a replica a moment behind would be cached for good.
+     */
+    public static <T> T onPrimary(Supplier<T> read) {
+        Boolean previous = allowReplica(false);
+        try {
+            return read.get();
+        } finally {
+            restore(previous);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.ticketing.util;
+
+import java.util.Arrays;
+
+/**
+ * Writes the compact seat availability format served by
+ * GET /api/events/{eventId}/seats/availability.
+ *
+ * Every number is an unsigned LEB128 varint. Seats are addressed by ordinal:
+ * their position in the event's seat list sorted by seat id.
+ *
+ * Full snapshot:
+ *   0x00, version, seatCount, run lengths...
+ *   Runs alternate available / unavailable, starting with an available run
+ *   (which may be 0 long). A 60,000-seat stadium is typically a few hundred bytes.
+ *
+ * Delta ("changes since version X"):
+ *   0x01, fromVersion, toVersion, changeCount, then changeCount pairs of
+ *   (ordinal, state) with state 0 = available, 1 = booked, 2 = held.
+ *   Apply them in order on top of fromVersion.
+ */
+public class SeatBitmapWriter {
+
+    public static final int AVAILABLE = 0;
+    public static final int BOOKED = 1;
+    public static final int HELD = 2;
+
+    private static final int SNAPSHOT = 0;
+    private static final int DELTA = 1;
+
+    private byte[] buf = new byte[64];
+    private int size;
+
+    private boolean runAvailable;
+    private long runLength;
+
+    public void beginSnapshot(long version, int seatCount) {
+        writeByte(SNAPSHOT);
+        writeVarLong(version);
+        writeVarLong(seatCount);
+        runAvailable = true;
+        runLength = 0;
+    }
+
+    /**
+     * Appends the next seat, in ordinal order.
+     */
+    public void seat(boolean available) {
+        if (available != runAvailable) {
+            writeVarLong(runLength);
+            runAvailable = available;
+            runLength = 0;
+        }
+        runLength++;
+    }
+
+    public void endSnapshot() {
+        if (runLength > 0) {
+            writeVarLong(runLength);
+        }
+    }
+
+    public void beginDelta(long fromVersion, long toVersion, int changeCount) {
+        writeByte(DELTA);
+        writeVarLong(fromVersion);
+        writeVarLong(toVersion);
+        writeVarLong(changeCount);
+    }
+
+    public void change(int ordinal, int state) {
+        writeVarLong(ordinal);
+        writeByte(state);
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buf, size);
+    }
+
+    private void writeVarLong(long value) {
+        while ((value & ~0x7FL) != 0) {
+            writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        writeByte((int) value);
+    }
+
+    private void writeByte(int b) {
+        if (size == buf.length) {
+            buf = Arrays.copyOf(buf, size * 2);
+        }
+        buf[size++] = (byte) b;
+    }
+}
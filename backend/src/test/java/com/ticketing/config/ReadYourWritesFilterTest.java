@@ -0,0 +1,162 @@
+package com.ticketing.config;
+
+import com.ticketing.dto.SeatPage;
+import com.ticketing.dto.SeatView;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs against two separate databases. The replica is a copy of the
+ * primary taken before each test and only brought up to date where a
+ * test does it by hand, so it is as far behind as a replica can get.
+ * max-lag-ms is a minute: a read that reaches the replica straight after a
+ * write got there by the write position, not by the time window.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=" + ReadYourWritesFilterTest.PRIMARY_URL,
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "ticketing.datasource.replica.url=" + ReadYourWritesFilterTest.REPLICA_URL,
+        "ticketing.datasource.replica.max-lag-ms=60000",
+        "ticketing.waiting-room.enabled=false"
+})
+class ReadYourWritesFilterTest {
+
+    static final String PRIMARY_URL = "jdbc:h2:mem:primary;DB_CLOSE_DELAY=-1;MODE=PostgreSQL";
+    static final String REPLICA_URL = "jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1;MODE=PostgreSQL";
+
+    @Autowired
+    private TestRestTemplate rest;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primary;
+
+    @BeforeEach
+    void copyPrimaryToReplica() throws SQLException {
+        replicate();
+    }
+
+    private void replicate() throws SQLException {
+        List<String> script = new ArrayList<>();
+        try (Connection connection = primary.getConnection();
+                Statement statement = connection.createStatement();
+                ResultSet rows = statement.executeQuery("SCRIPT")) {
+            while (rows.next()) {
+                script.add(rows.getString(1));
+            }
+        }
+        try (Connection connection = DriverManager.getConnection(REPLICA_URL, "sa", "");
+                Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+            for (String sql : script) {
+                statement.execute(sql);
+            }
+        }
+    }
+
+    private static void onReplica(String sql) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(REPLICA_URL, "sa", "");
+                Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private String book(long seatId) {
+        ResponseEntity<String> booking = rest.postForEntity("/api/seats/" + seatId + "/book?customerName=Ann",
+                null, String.class);
+        assertThat(booking.getStatusCode()).isEqualTo(HttpStatus.OK);
+        String cookie = booking.getHeaders().getFirst(HttpHeaders.SET_COOKIE);
+        assertThat(cookie).startsWith(ReadYourWritesFilter.READ_PRIMARY_COOKIE + "=");
+        return cookie.substring(0, cookie.indexOf(';'));
+    }
+
+    private SeatView seatWithCookie(long seatId, String cookie) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(HttpHeaders.COOKIE, cookie);
+        SeatPage page = rest.exchange("/api/events/1/seats/page?after=" + (seatId - 1) + "&limit=1", HttpMethod.GET,
+                new HttpEntity<>(headers), SeatPage.class).getBody();
+        assertThat(page.seats().get(0).id()).isEqualTo(seatId);
+        return page.seats().get(0);
+    }
+
+    @Test
+    void bookingCustomerReadsTheirOwnBooking() {
+        String cookie = book(1);
+
+        assertThat(seatWithCookie(1, cookie).booked()).isTrue();
+    }
+
+    @Test
+    void bookingCustomerGoesBackToTheReplicaOnceItHasTheBooking() throws SQLException {
+        String cookie = book(4);
+        replicate();
+        // Tells the replica's answer apart from the primary's
+        onReplica("update seats set section = 'Replica' where id = 4");
+
+        SeatView seat = seatWithCookie(4, cookie);
+
+        assertThat(seat.section()).isEqualTo("Replica");
+        assertThat(seat.booked()).isTrue();
+    }
+
+    @Test
+    void replicaWithoutAPositionFallsBackToTheTimeWindow() throws SQLException {
+        String cookie = book(5);
+        replicate();
+        onReplica("update seats set section = 'Replica' where id = 5");
+        onReplica("delete from write_positions");
+
+        // Within max-lag-ms of the booking
+        assertThat(seatWithCookie(5, cookie).section()).isNotEqualTo("Replica");
+
+        // The same position, with the window over
+        String position = cookie.substring(cookie.indexOf('.'));
+        String expired = ReadYourWritesFilter.READ_PRIMARY_COOKIE + "=" + (System.currentTimeMillis() - 1) + position;
+        assertThat(seatWithCookie(5, expired).section()).isEqualTo("Replica");
+    }
+
+    @Test
+    void otherCustomersReadFromTheReplica() {
+        rest.postForEntity("/api/seats/2/book?customerName=Ann", null, String.class);
+
+        SeatPage page = rest.getForObject("/api/events/1/seats/page?after=1&limit=1", SeatPage.class);
+
+        // Still the copy taken before the booking
+        assertThat(page.seats().get(0).id()).isEqualTo(2L);
+        assertThat(page.seats().get(0).booked()).isFalse();
+    }
+
+    @Test
+    void cacheLoadsIgnoreTheReplica() {
+        rest.postForEntity("/api/seats/3/book?customerName=Ann", null, String.class);
+
+        // The seat map is built from the index, which loads from the primary
+        SeatView[] seats = rest.getForObject("/api/events/1/seats", SeatView[].class);
+
+        assertThat(seats[2].id()).isEqualTo(3L);
+        assertThat(seats[2].booked()).isTrue();
+    }
+}
@@ -0,0 +1,66 @@
+package com.ticketing.config;
+
+import com.ticketing.repository.SeatRepository;
+import com.ticketing.service.SeatAvailabilityIndex;
+import com.ticketing.service.WaitingRoom;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class WaitingRoomInterceptorTest {
+
+    private final WaitingRoom waitingRoom = mock(WaitingRoom.class);
+    private final SeatAvailabilityIndex availabilityIndex = mock(SeatAvailabilityIndex.class);
+    private final SeatRepository seatRepository = mock(SeatRepository.class);
+    private final WaitingRoomInterceptor interceptor =
+            new WaitingRoomInterceptor(waitingRoom, availabilityIndex, seatRepository);
+
+    private static MockHttpServletRequest booking(String seatId) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/seats/" + seatId + "/book");
+        request.setAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE, Map.of("seatId", seatId));
+        request.addHeader(WaitingRoom.QUEUE_TOKEN_HEADER, "token");
+        return request;
+    }
+
+    @Test
+    void seatInTheIndexIsAdmittedForItsEvent() {
+        when(availabilityIndex.eventIdOf(7L)).thenReturn(1L);
+
+        interceptor.preHandle(booking("7"), new MockHttpServletResponse(), null);
+
+        verify(waitingRoom).admit(1L, "token");
+        verifyNoInteractions(seatRepository);
+    }
+
+    @Test
+    void seatMissingFromTheIndexIsLookedUp() {
+        when(availabilityIndex.eventIdOf(7L)).thenReturn(null);
+        when(seatRepository.findEventIdById(7L)).thenReturn(Optional.of(2L));
+
+        interceptor.preHandle(booking("7"), new MockHttpServletResponse(), null);
+
+        verify(waitingRoom).admit(2L, "token");
+    }
+
+    @Test
+    void unknownSeatIsRejected() {
+        when(availabilityIndex.eventIdOf(7L)).thenReturn(null);
+        when(seatRepository.findEventIdById(7L)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> interceptor.preHandle(booking("7"), new MockHttpServletResponse(), null))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> interceptor.preHandle(booking("seven"), new MockHttpServletResponse(), null))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(waitingRoom);
+    }
+}
@@ -0,0 +1,90 @@
+package com.ticketing.controller;
+
+import com.ticketing.repository.SeatRepository;
+import com.ticketing.service.BookingWriteBehind;
+import com.ticketing.service.SeatAvailabilityIndex;
+import com.ticketing.service.SeatMapCache;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:events;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+class EventControllerTest {
+
+    @Autowired
+    private TestRestTemplate rest;
+
+    @Autowired
+    private SeatRepository seatRepository;
+
+    @Autowired
+    private SeatAvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private SeatMapCache seatMapCache;
+
+    @Autowired
+    private BookingWriteBehind writeBehind;
+
+    private ResponseEntity<String> getSeats(Long eventId, String etag) {
+        HttpHeaders headers = new HttpHeaders();
+        if (etag != null) {
+            headers.setIfNoneMatch(etag);
+        }
+        return rest.exchange("/api/events/" + eventId + "/seats", HttpMethod.GET, new HttpEntity<>(headers),
+                String.class);
+    }
+
+    @Test
+    void seatMapIsNotResentUntilASeatChanges() {
+        ResponseEntity<String> first = getSeats(1L, null);
+        assertThat(first.getStatusCode()).isEqualTo(HttpStatus.OK);
+        String etag = first.getHeaders().getETag();
+        assertThat(etag).isNotNull();
+
+        ResponseEntity<String> unchanged = getSeats(1L, etag);
+        assertThat(unchanged.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(unchanged.getBody()).isNull();
+
+        ResponseEntity<String> booking = rest.postForEntity("/api/seats/10/book?customerName=Ann", null, String.class);
+        assertThat(booking.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        ResponseEntity<String> changed = getSeats(1L, etag);
+        assertThat(changed.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(changed.getHeaders().getETag()).isNotEqualTo(etag);
+        assertThat(getSeats(1L, changed.getHeaders().getETag()).getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+    }
+
+    @Test
+    void tagSurvivesARestart() {
+        String etag = getSeats(1L, null).getHeaders().getETag();
+
+        // What another instance, or this one after a restart, builds from the same rows
+        SeatMapCache rebuilt = new SeatMapCache(seatRepository, availabilityIndex, writeBehind, 64, 1000);
+
+        assertThat(etag).isEqualTo("\"1-" + Long.toHexString(rebuilt.version(1L)) + "\"");
+    }
+
+    @Test
+    void eventWithoutSeatsKeepsItsTag() {
+        String etag = getSeats(999L, null).getHeaders().getETag();
+
+        assertThat(etag).isEqualTo("\"999-0\"");
+        assertThat(getSeats(999L, etag).getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(seatMapCache.version(999L)).isZero();
+    }
+}
@@ -0,0 +1,108 @@
+package com.ticketing.repository;
+
+import com.ticketing.dto.SeatFilter;
+import com.ticketing.dto.SeatView;
+import com.ticketing.entity.Event;
+import com.ticketing.entity.Seat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+class SeatPageRepositoryTest {
+
+    private static final SeatFilter ALL = new SeatFilter(null, null, null, null, false);
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private SeatRepository seatRepository;
+
+    private final LocalDateTime now = LocalDateTime.now();
+    private Long eventId;
+    private final List<Long> seatIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        Event event = entityManager.persist(new Event("Concert", now.plusDays(30), "Arena"));
+        eventId = event.getId();
+        // Two sections of rows A and B, seats 1..5 each
+        for (String section : List.of("Floor", "Balcony")) {
+            for (String row : List.of("A", "B")) {
+                for (int number = 1; number <= 5; number++) {
+                    seatIds.add(entityManager.persist(new Seat(section, row, number, event)).getId());
+                }
+            }
+        }
+        // Another event's seats must never show up
+        Event other = entityManager.persist(new Event("Play", now.plusDays(10), "Theatre"));
+        entityManager.persist(new Seat("Floor", "A", 1, other));
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void cursorWalksEverySeatOnceInIdOrder() {
+        List<Long> seen = new ArrayList<>();
+        Long after = null;
+        int pages = 0;
+        while (true) {
+            List<SeatView> page = seatRepository.findPage(eventId, ALL, after, 6, now);
+            if (page.isEmpty()) {
+                break;
+            }
+            page.forEach(seat -> seen.add(seat.id()));
+            after = page.get(page.size() - 1).id();
+            pages++;
+        }
+
+        assertThat(seen).containsExactlyElementsOf(seatIds);
+        assertThat(pages).isEqualTo(4);
+    }
+
+    @Test
+    void pageStartsAfterTheCursor() {
+        List<SeatView> page = seatRepository.findPage(eventId, ALL, seatIds.get(4), 3, now);
+
+        assertThat(page).extracting(SeatView::id).containsExactlyElementsOf(seatIds.subList(5, 8));
+    }
+
+    @Test
+    void filtersNarrowThePage() {
+        SeatFilter balconyRowB = new SeatFilter("Balcony", "B", 2, 4, false);
+
+        List<SeatView> page = seatRepository.findPage(eventId, balconyRowB, null, 100, now);
+
+        assertThat(page).extracting(SeatView::seatNumber).containsExactly("B2", "B3", "B4");
+        assertThat(page).allSatisfy(seat -> assertThat(seat.section()).isEqualTo("Balcony"));
+    }
+
+    @Test
+    void availableOnlySkipsBookedAndHeldSeats() {
+        Seat booked = entityManager.find(Seat.class, seatIds.get(0));
+        booked.setBooked(true);
+        Seat held = entityManager.find(Seat.class, seatIds.get(1));
+        held.setHoldToken("hold");
+        held.setHoldExpiresAt(now.plusMinutes(5));
+        Seat expired = entityManager.find(Seat.class, seatIds.get(2));
+        expired.setHoldToken("old");
+        expired.setHoldExpiresAt(now.minusMinutes(5));
+        entityManager.flush();
+        entityManager.clear();
+
+        SeatFilter available = new SeatFilter("Floor", "A", null, null, true);
+        List<SeatView> page = seatRepository.findPage(eventId, available, null, 100, now);
+
+        assertThat(page).extracting(SeatView::id).containsExactlyElementsOf(seatIds.subList(2, 5));
+        assertThat(page.get(0).held()).isFalse();
+    }
+}
@@ -0,0 +1,198 @@
+package com.ticketing.service;
+
+import com.ticketing.entity.Booking;
+import com.ticketing.entity.Seat;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BookingJournalTest {
+
+    private static final LocalDateTime BOOKED_AT = LocalDateTime.of(2026, 3, 1, 19, 30, 15, 123_456_789);
+
+    @TempDir
+    Path dir;
+
+    private BookingJournal journal;
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    /**
+     * Opens the journal afresh, as a restart would.
+     */
+    private List<Booking> reopen(long compactBytes) throws IOException {
+        if (journal != null) {
+            journal.close();
+        }
+        journal = new BookingJournal("journal", dir.toString(), compactBytes);
+        return journal.recover();
+    }
+
+    private static Booking booking(long id, long seatId, String customerName) {
+        Seat seat = new Seat();
+        seat.setId(seatId);
+        Booking booking = new Booking(customerName, seat);
+        booking.setId(id);
+        booking.setBookedAt(BOOKED_AT);
+        return booking;
+    }
+
+    private void append(Booking... bookings) {
+        journal.append(List.of(bookings), position -> { });
+    }
+
+    private Path journalFile() {
+        return dir.resolve("bookings.journal");
+    }
+
+    private static List<Long> ids(List<Booking> bookings) {
+        return bookings.stream().map(Booking::getId).toList();
+    }
+
+    @Test
+    void recoversEveryAppendedBooking() throws IOException {
+        assertThat(reopen(Long.MAX_VALUE)).isEmpty();
+        append(booking(1, 101, "Ann"), booking(2, 102, "Zoë"));
+        append(booking(3, 103, "Bob"));
+
+        List<Booking> recovered = reopen(Long.MAX_VALUE);
+
+        assertThat(ids(recovered)).containsExactly(1L, 2L, 3L);
+        Booking second = recovered.get(1);
+        assertThat(second.getSeat().getId()).isEqualTo(102L);
+        assertThat(second.getCustomerName()).isEqualTo("Zoë");
+        assertThat(second.getBookedAt()).isEqualTo(BOOKED_AT);
+    }
+
+    @Test
+    void tornRecordIsCutOff() throws IOException {
+        reopen(Long.MAX_VALUE);
+        append(booking(1, 101, "Ann"));
+        long intact = journal.end();
+        append(booking(2, 102, "Bob"));
+        // Crash halfway through writing the second record
+        try (RandomAccessFile file = new RandomAccessFile(journalFile().toFile(), "rw")) {
+            file.setLength(intact + 10);
+        }
+
+        assertThat(ids(reopen(Long.MAX_VALUE))).containsExactly(1L);
+        assertThat(Files.size(journalFile())).isEqualTo(intact);
+
+        // Appends carry on from the cut
+        append(booking(3, 103, "Cy"));
+        assertThat(ids(reopen(Long.MAX_VALUE))).containsExactly(1L, 3L);
+    }
+
+    @Test
+    void recordWithABadCrcIsCutOff() throws IOException {
+        reopen(Long.MAX_VALUE);
+        append(booking(1, 101, "Ann"));
+        long intact = journal.end();
+        append(booking(2, 102, "Bob"));
+        // Flip a byte of the second record's customer name
+        try (RandomAccessFile file = new RandomAccessFile(journalFile().toFile(), "rw")) {
+            file.seek(journal.end() - 5);
+            int b = file.read();
+            file.seek(journal.end() - 5);
+            file.write(b ^ 0xFF);
+        }
+
+        assertThat(ids(reopen(Long.MAX_VALUE))).containsExactly(1L);
+        assertThat(Files.size(journalFile())).isEqualTo(intact);
+    }
+
+    @Test
+    void replayStartsAtTheCheckpoint() throws IOException {
+        reopen(Long.MAX_VALUE);
+        append(booking(1, 101, "Ann"));
+        journal.checkpoint(journal.end());
+        append(booking(2, 102, "Bob"));
+
+        assertThat(ids(reopen(Long.MAX_VALUE))).containsExactly(2L);
+    }
+
+    @Test
+    void tornCheckpointReplaysEverything() throws IOException {
+        reopen(Long.MAX_VALUE);
+        append(booking(1, 101, "Ann"));
+        journal.checkpoint(journal.end());
+        append(booking(2, 102, "Bob"));
+        // The position was written but its complement wasn't
+        Path checkpoint = dir.resolve("bookings.checkpoint");
+        byte[] bytes = Files.readAllBytes(checkpoint);
+        ByteBuffer.wrap(bytes).putLong(8, 0);
+        Files.write(checkpoint, bytes);
+
+        assertThat(ids(reopen(Long.MAX_VALUE))).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void shortCheckpointReplaysEverything() throws IOException {
+        reopen(Long.MAX_VALUE);
+        append(booking(1, 101, "Ann"));
+        journal.checkpoint(journal.end());
+        try (RandomAccessFile file = new RandomAccessFile(dir.resolve("bookings.checkpoint").toFile(), "rw")) {
+            file.setLength(8);
+        }
+
+        assertThat(ids(reopen(Long.MAX_VALUE))).containsExactly(1L);
+    }
+
+    @Test
+    void compactionEmptiesTheJournalOnceEverythingIsWritten() throws IOException {
+        reopen(1);
+        append(booking(1, 101, "Ann"), booking(2, 102, "Bob"));
+        long end = journal.end();
+
+        journal.checkpoint(end);
+
+        assertThat(journal.end()).isZero();
+        assertThat(Files.size(journalFile())).isZero();
+
+        append(booking(3, 103, "Cy"));
+        assertThat(ids(reopen(1))).containsExactly(3L);
+    }
+
+    @Test
+    void compactionWaitsForBookingsNotYetWritten() throws IOException {
+        reopen(1);
+        append(booking(1, 101, "Ann"));
+        long first = journal.end();
+        append(booking(2, 102, "Bob"));
+
+        // Only the first booking has reached the database
+        journal.checkpoint(first);
+
+        assertThat(journal.end()).isGreaterThan(first);
+        assertThat(ids(reopen(1))).containsExactly(2L);
+    }
+
+    @Test
+    void crashMidCompactionReplaysWrittenBookings() throws IOException {
+        reopen(Long.MAX_VALUE);
+        append(booking(1, 101, "Ann"), booking(2, 102, "Bob"));
+        journal.checkpoint(journal.end());
+        // Compaction got as far as resetting the checkpoint, not emptying the file
+        try (RandomAccessFile file = new RandomAccessFile(dir.resolve("bookings.checkpoint").toFile(), "rw")) {
+            file.write(ByteBuffer.allocate(16).putLong(0).putLong(~0L).array());
+        }
+
+        // Already in the database; BookingWriteBehind skips them
+        assertThat(ids(reopen(Long.MAX_VALUE))).containsExactly(1L, 2L);
+    }
+}
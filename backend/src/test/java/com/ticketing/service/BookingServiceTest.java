@@ -0,0 +1,152 @@
+package com.ticketing.service;
+
+import com.ticketing.dto.SeatHold;
+import com.ticketing.entity.Booking;
+import com.ticketing.exception.HoldExpiredException;
+import com.ticketing.exception.SeatAlreadyBookedException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs against the seeded event (rows A to E, seats 1 to 6). Each test
+ * books seats of its own.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:bookings;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+class BookingServiceTest {
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long seat(String seatNumber) {
+        return jdbcTemplate.queryForObject("select id from seats where seat_number = ?", Long.class, seatNumber);
+    }
+
+    private boolean booked(Long seatId) {
+        return jdbcTemplate.queryForObject("select booked from seats where id = ?", Boolean.class, seatId);
+    }
+
+    private int bookings(Long seatId) {
+        return jdbcTemplate.queryForObject("select count(*) from bookings where seat_id = ?", Integer.class, seatId);
+    }
+
+    @Test
+    void cartIsBookedInOneGo() {
+        List<Long> cart = List.of(seat("A1"), seat("A2"), seat("A3"));
+
+        List<Booking> booked = bookingService.reserveSeats(cart, "Ann");
+
+        assertThat(booked).extracting(booking -> booking.getSeat().getId()).containsExactlyElementsOf(cart);
+        assertThat(booked).extracting(Booking::getCustomerName).containsOnly("Ann");
+        assertThat(cart).allSatisfy(seatId -> {
+            assertThat(booked(seatId)).isTrue();
+            assertThat(bookings(seatId)).isEqualTo(1);
+        });
+    }
+
+    @Test
+    void cartWithATakenSeatBooksNothing() {
+        Long first = seat("B1");
+        Long taken = seat("B2");
+        Long last = seat("B3");
+        // Booked behind the index's back, so only the claim UPDATE can notice
+        jdbcTemplate.update("update seats set booked = true where id = ?", taken);
+
+        assertThatThrownBy(() -> bookingService.reserveSeats(List.of(first, taken, last), "Ann"))
+                .isInstanceOf(SeatAlreadyBookedException.class)
+                .hasMessageContaining("[" + taken + "]");
+
+        assertThat(booked(first)).isFalse();
+        assertThat(booked(last)).isFalse();
+        assertThat(bookings(first) + bookings(last)).isZero();
+
+        // The free seats were given back, the taken one is known to be taken
+        assertThat(bookingService.reserveSeats(List.of(first, last), "Bob")).hasSize(2);
+        assertThatThrownBy(() -> bookingService.reserveSeat(taken, "Bob"))
+                .isInstanceOf(SeatAlreadyBookedException.class);
+    }
+
+    @Test
+    void cartMustBeDistinctSeatsWithinTheLimit() {
+        Long seatId = seat("C1");
+
+        assertThatThrownBy(() -> bookingService.reserveSeats(List.of(seatId, seatId), "Ann"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> bookingService.reserveSeats(List.of(), "Ann"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> bookingService.reserveSeats(
+                List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L), "Ann"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(booked(seatId)).isFalse();
+    }
+
+    @Test
+    void confirmedHoldBecomesABooking() {
+        Long seatId = seat("C2");
+        SeatHold hold = bookingService.holdSeat(seatId, 5);
+
+        assertThatThrownBy(() -> bookingService.reserveSeat(seatId, "Bob"))
+                .isInstanceOf(SeatAlreadyBookedException.class);
+
+        Booking booking = bookingService.confirmHold(seatId, hold.holdToken(), "Ann");
+
+        assertThat(booking.getCustomerName()).isEqualTo("Ann");
+        assertThat(booked(seatId)).isTrue();
+        assertThat(bookings(seatId)).isEqualTo(1);
+    }
+
+    @Test
+    void holdNeedsItsToken() {
+        Long seatId = seat("C3");
+        SeatHold hold = bookingService.holdSeat(seatId, 5);
+
+        assertThatThrownBy(() -> bookingService.confirmHold(seatId, "not-the-token", "Bob"))
+                .isInstanceOf(HoldExpiredException.class);
+        bookingService.releaseHold(seatId, "not-the-token");
+
+        // Still held for Ann
+        assertThat(bookingService.confirmHold(seatId, hold.holdToken(), "Ann").getCustomerName()).isEqualTo("Ann");
+    }
+
+    @Test
+    void releasedHoldCannotBeConfirmed() {
+        Long seatId = seat("C4");
+        SeatHold hold = bookingService.holdSeat(seatId, 5);
+
+        bookingService.releaseHold(seatId, hold.holdToken());
+
+        assertThatThrownBy(() -> bookingService.confirmHold(seatId, hold.holdToken(), "Ann"))
+                .isInstanceOf(HoldExpiredException.class);
+        assertThat(booked(seatId)).isFalse();
+        assertThat(bookings(seatId)).isZero();
+
+        // Free for the next customer; releasing twice is a no-op
+        bookingService.releaseHold(seatId, hold.holdToken());
+        assertThat(bookingService.reserveSeat(seatId, "Bob").getCustomerName()).isEqualTo("Bob");
+    }
+
+    @Test
+    void holdIsLimitedInLength() {
+        Long seatId = seat("C5");
+
+        assertThatThrownBy(() -> bookingService.holdSeat(seatId, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> bookingService.holdSeat(seatId, BookingService.MAX_HOLD_MINUTES + 1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,261 @@
+package com.ticketing.service;
+
+import com.ticketing.dto.ProvisioningStatus;
+import com.ticketing.dto.ProvisioningStatus.State;
+import com.ticketing.dto.VenueLayout;
+import com.ticketing.exception.ServiceBusyException;
+import com.ticketing.repository.EventRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Provisions events next to the seeded one. The background jobs run on a
+ * provisioner whose transactions wait for a permit from the test, so a job
+ * can be stopped between two chunks and looked at.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:provisioning;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "ticketing.provisioning.chunk-size=7"
+})
+class EventProvisionerTest {
+
+    private static final int CHUNK = 5;
+
+    @Autowired
+    private EventProvisioner provisioner;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private EventCatalog eventCatalog;
+
+    @Autowired
+    private SeatAvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private GatedTransactions gate;
+    private EventProvisioner gated;
+
+    @BeforeEach
+    void setUp() {
+        gate = new GatedTransactions(transactionManager);
+        gated = new EventProvisioner(eventRepository, eventCatalog, availabilityIndex, jdbcTemplate, gate,
+                entityManagerFactory, CHUNK, 1000, 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        gate.permits.release(1000);
+        gated.stop();
+    }
+
+    private static VenueLayout layout(String name, VenueLayout.Section... sections) {
+        return new VenueLayout(name, LocalDateTime.now().plusMonths(1), "Arena", List.of(sections));
+    }
+
+    private static VenueLayout.Section section(String name, VenueLayout.Row... rows) {
+        return new VenueLayout.Section(name, List.of(rows));
+    }
+
+    private static VenueLayout twelveSeats(String name) {
+        return layout(name, section("Floor", new VenueLayout.Row("A", 1, 12)));
+    }
+
+    private int seatRows(Long eventId) {
+        return jdbcTemplate.queryForObject("select count(*) from seats where event_id = ?", Integer.class, eventId);
+    }
+
+    private ProvisioningStatus awaitStatus(String jobId, Predicate<ProvisioningStatus> until) throws InterruptedException {
+        long deadline = System.nanoTime() + 30_000_000_000L;
+        while (true) {
+            ProvisioningStatus status = gated.status(jobId).orElseThrow();
+            if (until.test(status)) {
+                return status;
+            }
+            assertThat(System.nanoTime()).as("job %s still %s", jobId, status).isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    void seatsAreWrittenInChunksWithIdsFromTheSeatSequence() {
+        Long seededMax = jdbcTemplate.queryForObject("select max(id) from seats", Long.class);
+
+        Long eventId = provisioner.provision(layout("Batched",
+                section("Stalls", new VenueLayout.Row("A", 1, 10), new VenueLayout.Row("B", 5, 9)),
+                section("Circle", new VenueLayout.Row("C", 1, 3))));
+
+        List<Map<String, Object>> seats = jdbcTemplate.queryForList(
+                "select id, seat_number, section, row_label, number, booked, version from seats "
+                        + "where event_id = ? order by id", eventId);
+        // 18 seats: two full chunks of 7 and one of 4
+        assertThat(seats).hasSize(18);
+        assertThat(seats).extracting(row -> row.get("SEAT_NUMBER"))
+                .startsWith("A1", "A2").contains("A10", "B5", "B9", "C3").doesNotHaveDuplicates();
+        assertThat(seats).extracting(row -> row.get("ID")).doesNotHaveDuplicates()
+                .allSatisfy(id -> assertThat((Long) id).isGreaterThan(seededMax));
+        assertThat(seats).filteredOn(row -> "C".equals(row.get("ROW_LABEL")))
+                .extracting(row -> row.get("SECTION")).containsOnly("Circle");
+        assertThat(seats).extracting(row -> row.get("BOOKED")).containsOnly(false);
+        assertThat(seats).extracting(row -> ((Number) row.get("VERSION")).intValue()).containsOnly(0);
+
+        assertThat(eventRepository.existsByIdAndProvisioningFalse(eventId)).isTrue();
+        assertThat(eventCatalog.getEvent(eventId).getName()).isEqualTo("Batched");
+        assertThat(availabilityIndex.totalSeats(eventId)).isEqualTo(18);
+        assertThat(availabilityIndex.availableSeats(eventId)).isEqualTo(18);
+    }
+
+    @Test
+    void jobReportsProgressAndKeepsTheEventHiddenUntilItsSeatsAreWritten() throws InterruptedException {
+        gate.permits.release(1);
+
+        ProvisioningStatus queued = gated.submit(twelveSeats("Halfway"));
+        assertThat(queued.totalSeats()).isEqualTo(12);
+
+        // One chunk in, waiting for the second
+        ProvisioningStatus running = awaitStatus(queued.jobId(), status -> status.seatsWritten() == CHUNK);
+        Long eventId = running.eventId();
+        assertThat(running.state()).isEqualTo(State.RUNNING);
+        assertThat(eventId).isNotNull();
+        assertThat(seatRows(eventId)).isEqualTo(CHUNK);
+
+        // The row is there, with its flag set
+        assertThat(eventRepository.existsById(eventId)).isTrue();
+        assertThat(eventRepository.existsByIdAndProvisioningFalse(eventId)).isFalse();
+        assertThat(eventCatalog.getEvent(eventId)).isNull();
+        assertThat(eventCatalog.getSummaries()).noneMatch(summary -> summary.id().equals(eventId));
+        assertThat(availabilityIndex.totalSeats(eventId)).isZero();
+
+        gate.permits.release(1000);
+        ProvisioningStatus done = awaitStatus(queued.jobId(), status -> status.state() == State.DONE);
+
+        assertThat(done.eventId()).isEqualTo(eventId);
+        assertThat(done.seatsWritten()).isEqualTo(12);
+        assertThat(done.error()).isNull();
+        assertThat(eventCatalog.getEvent(eventId)).isNotNull();
+        assertThat(eventCatalog.getSummaries()).anyMatch(summary -> summary.id().equals(eventId));
+        assertThat(availabilityIndex.totalSeats(eventId)).isEqualTo(12);
+    }
+
+    @Test
+    void jobsBeyondTheQueueAreTurnedAway() throws InterruptedException {
+        ProvisioningStatus running = gated.submit(twelveSeats("Running"));
+        awaitStatus(running.jobId(), status -> status.state() == State.RUNNING);
+        ProvisioningStatus waiting = gated.submit(twelveSeats("Waiting"));
+
+        assertThatThrownBy(() -> gated.submit(twelveSeats("Turned away")))
+                .isInstanceOf(ServiceBusyException.class);
+        assertThat(gated.status(waiting.jobId()).orElseThrow().state()).isEqualTo(State.QUEUED);
+
+        gate.permits.release(1000);
+        awaitStatus(running.jobId(), status -> status.state() == State.DONE);
+        awaitStatus(waiting.jobId(), status -> status.state() == State.DONE);
+        assertThat(jdbcTemplate.queryForObject("select count(*) from events where name = 'Turned away'",
+                Integer.class)).isZero();
+
+        // Room again
+        ProvisioningStatus next = gated.submit(twelveSeats("Next"));
+        assertThat(awaitStatus(next.jobId(), status -> status.state() == State.DONE).seatsWritten()).isEqualTo(12);
+    }
+
+    @Test
+    void failedJobRemovesWhatItWrote() throws InterruptedException {
+        gate.permits.release(1);
+        ProvisioningStatus job = gated.submit(twelveSeats("Failing"));
+        Long eventId = awaitStatus(job.jobId(), status -> status.seatsWritten() == CHUNK).eventId();
+
+        gate.failNext.set(true);
+        gate.permits.release(1000);
+        ProvisioningStatus failed = awaitStatus(job.jobId(), status -> status.state() == State.FAILED);
+
+        assertThat(failed.error()).isEqualTo("disk full");
+        assertThat(failed.seatsWritten()).isEqualTo(CHUNK);
+        assertThat(seatRows(eventId)).isZero();
+        assertThat(eventRepository.existsById(eventId)).isFalse();
+        assertThat(eventCatalog.getEvent(eventId)).isNull();
+    }
+
+    @Test
+    void eventProvisionedElsewhereIsFoundOnFirstLookup() {
+        // Another instance's catalog, already holding the listing
+        EventCatalog elsewhere = new EventCatalog(eventRepository, availabilityIndex, 60_000, 60_000);
+        int listed = elsewhere.getSummaries().size();
+
+        Long eventId = provisioner.provision(twelveSeats("Elsewhere"));
+
+        assertThat(elsewhere.getSummaries()).hasSize(listed);
+        assertThat(elsewhere.getEvent(eventId).getName()).isEqualTo("Elsewhere");
+        assertThat(elsewhere.getSummary(eventId).orElseThrow().totalSeats()).isEqualTo(12);
+        // Listed from then on
+        assertThat(elsewhere.getSummaries()).hasSize(listed + 1);
+    }
+
+    @Test
+    void unknownEventIsNotLookedUpAgainWithinTheMissTtl() {
+        EventCatalog elsewhere = new EventCatalog(eventRepository, availabilityIndex, 60_000, 60_000);
+        long next = jdbcTemplate.queryForObject("select max(id) from events", Long.class) + 1_000;
+
+        assertThat(elsewhere.getEvent(next)).isNull();
+        jdbcTemplate.update("insert into events (id, name, event_date, venue, provisioning) "
+                + "values (?, 'Late', ?, 'Arena', false)", next, LocalDateTime.now().plusDays(1));
+
+        // Remembered as missing until refreshed
+        assertThat(elsewhere.getEvent(next)).isNull();
+        elsewhere.refresh();
+        assertThat(elsewhere.getEvent(next).getName()).isEqualTo("Late");
+    }
+
+    /**
+     * Each transaction first takes a permit; failNext makes the next one
+     * throw instead.
+     */
+    private static final class GatedTransactions extends TransactionTemplate {
+
+        final Semaphore permits = new Semaphore(0);
+        final AtomicBoolean failNext = new AtomicBoolean();
+
+        GatedTransactions(PlatformTransactionManager transactionManager) {
+            super(transactionManager);
+        }
+
+        @Override
+        public <T> T execute(TransactionCallback<T> action) {
+            permits.acquireUninterruptibly();
+            if (failNext.getAndSet(false)) {
+                throw new IllegalStateException("disk full");
+            }
+            return super.execute(action);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.ticketing.service;
+
+import com.ticketing.dto.SeatHold;
+import com.ticketing.exception.SeatAlreadyBookedException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Holds are placed for minutes; the tests schedule an earlier expiry on
+ * top, as a hold placed a while ago would have.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:bookings;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+class HoldExpirySchedulerTest {
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private HoldExpiryScheduler holdExpiryScheduler;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long seat(String seatNumber) {
+        return jdbcTemplate.queryForObject("select id from seats where seat_number = ?", Long.class, seatNumber);
+    }
+
+    private boolean held(Long seatId) {
+        return jdbcTemplate.queryForObject("select count(*) from seats where id = ? and hold_token is not null",
+                Integer.class, seatId) > 0;
+    }
+
+    private boolean booked(Long seatId) {
+        return jdbcTemplate.queryForObject("select booked from seats where id = ?", Boolean.class, seatId);
+    }
+
+    private void expireNow(SeatHold hold) {
+        holdExpiryScheduler.schedule(new SeatHold(hold.seatId(), hold.holdToken(), LocalDateTime.now()));
+    }
+
+    private void awaitReleased(Long seatId) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (held(seatId) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(held(seatId)).isFalse();
+    }
+
+    @Test
+    void expiredHoldIsReleased() throws InterruptedException {
+        Long seatId = seat("D1");
+        SeatHold hold = bookingService.holdSeat(seatId, 5);
+
+        expireNow(hold);
+
+        awaitReleased(seatId);
+        assertThat(booked(seatId)).isFalse();
+        assertThat(bookingService.reserveSeat(seatId, "Bob").getCustomerName()).isEqualTo("Bob");
+    }
+
+    @Test
+    void expiryNeverReleasesAConfirmedSeat() throws InterruptedException {
+        Long confirmed = seat("D2");
+        SeatHold hold = bookingService.holdSeat(confirmed, 5);
+        bookingService.confirmHold(confirmed, hold.holdToken(), "Ann");
+        Long marker = seat("D3");
+        SeatHold markerHold = bookingService.holdSeat(marker, 5);
+
+        expireNow(hold);
+        expireNow(markerHold);
+
+        // Expiries run in order, so the confirmed seat's has been dealt with
+        awaitReleased(marker);
+        assertThat(booked(confirmed)).isTrue();
+        assertThatThrownBy(() -> bookingService.reserveSeat(confirmed, "Bob"))
+                .isInstanceOf(SeatAlreadyBookedException.class);
+    }
+
+    @Test
+    void expiryOfAnEarlierHoldLeavesTheNextOneAlone() throws InterruptedException {
+        Long seatId = seat("D4");
+        SeatHold first = bookingService.holdSeat(seatId, 5);
+        bookingService.releaseHold(seatId, first.holdToken());
+        SeatHold second = bookingService.holdSeat(seatId, 5);
+        Long marker = seat("D5");
+        SeatHold markerHold = bookingService.holdSeat(marker, 5);
+
+        expireNow(first);
+        expireNow(markerHold);
+
+        awaitReleased(marker);
+        assertThat(held(seatId)).isTrue();
+        assertThat(bookingService.confirmHold(seatId, second.holdToken(), "Ann").getCustomerName()).isEqualTo("Ann");
+    }
+}
@@ -0,0 +1,194 @@
+package com.ticketing.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ticketing.entity.IdempotencyKey;
+import com.ticketing.exception.ConcurrentBookingException;
+import com.ticketing.repository.IdempotencyKeyRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class IdempotencyStoreTest {
+
+    private static final TypeReference<String> RESULT = new TypeReference<>() {
+    };
+
+    private IdempotencyKeyRepository repository;
+    private SimpleMeterRegistry meterRegistry;
+    private IdempotencyStore store;
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(IdempotencyKeyRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        store = newStore(5000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        store.stop();
+    }
+
+    private IdempotencyStore newStore(long waitMillis) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+        return new IdempotencyStore(repository, new ObjectMapper(), transactionTemplate, meterRegistry,
+                100, 24, waitMillis);
+    }
+
+    private String book() {
+        return "booking " + calls.incrementAndGet();
+    }
+
+    private double replays() {
+        return meterRegistry.counter("ticketing.idempotency.replays").count();
+    }
+
+    @Test
+    void retryIsAnsweredFromMemory() {
+        String first = store.execute("key-1", "book 1 for Ann", RESULT, this::book);
+        String retry = store.execute("key-1", "book 1 for Ann", RESULT, this::book);
+
+        assertThat(retry).isEqualTo(first).isEqualTo("booking 1");
+        assertThat(calls).hasValue(1);
+        assertThat(replays()).isEqualTo(1);
+        verify(repository).insert(eq("key-1"), eq("book 1 for Ann"), eq("\"booking 1\""), any());
+    }
+
+    @Test
+    void requestsWithoutAKeyAlwaysRun() {
+        store.execute(null, "book 1 for Ann", RESULT, this::book);
+        store.execute(null, "book 1 for Ann", RESULT, this::book);
+
+        assertThat(calls).hasValue(2);
+        verify(repository, never()).insert(anyString(), anyString(), anyString(), any());
+    }
+
+    @Test
+    void keyCannotBeReusedForAnotherRequest() {
+        store.execute("key-1", "book 1 for Ann", RESULT, this::book);
+
+        assertThatThrownBy(() -> store.execute("key-1", "book 2 for Ann", RESULT, this::book))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(calls).hasValue(1);
+    }
+
+    @Test
+    void malformedKeyIsRejected() {
+        assertThatThrownBy(() -> store.execute(" ", "book 1 for Ann", RESULT, this::book))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> store.execute("k".repeat(IdempotencyStore.MAX_KEY_LENGTH + 1),
+                "book 1 for Ann", RESULT, this::book))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void failedRequestCanBeRetried() {
+        assertThatThrownBy(() -> store.execute("key-1", "book 1 for Ann", RESULT, () -> {
+            throw new IllegalStateException("database down");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(store.execute("key-1", "book 1 for Ann", RESULT, this::book)).isEqualTo("booking 1");
+        assertThat(replays()).isZero();
+    }
+
+    @Test
+    void retryWaitsForTheRequestInFlight() throws Exception {
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        CompletableFuture<String> original = CompletableFuture.supplyAsync(() ->
+                store.execute("key-1", "book 1 for Ann", RESULT, () -> {
+                    running.countDown();
+                    await(finish);
+                    return book();
+                }));
+        assertThat(running.await(5, TimeUnit.SECONDS)).isTrue();
+
+        CompletableFuture<String> retry = CompletableFuture.supplyAsync(() ->
+                store.execute("key-1", "book 1 for Ann", RESULT, this::book));
+        Thread.sleep(50);
+        assertThat(retry).isNotDone();
+
+        finish.countDown();
+
+        assertThat(original.get(5, TimeUnit.SECONDS)).isEqualTo("booking 1");
+        assertThat(retry.get(5, TimeUnit.SECONDS)).isEqualTo("booking 1");
+        assertThat(calls).hasValue(1);
+    }
+
+    @Test
+    void retryGivesUpIfTheRequestInFlightTakesTooLong() throws Exception {
+        store.stop();
+        store = newStore(50);
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        CompletableFuture<String> original = CompletableFuture.supplyAsync(() ->
+                store.execute("key-1", "book 1 for Ann", RESULT, () -> {
+                    running.countDown();
+                    await(finish);
+                    return book();
+                }));
+        assertThat(running.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThatThrownBy(() -> store.execute("key-1", "book 1 for Ann", RESULT, this::book))
+                .isInstanceOf(ConcurrentBookingException.class);
+
+        finish.countDown();
+        assertThat(original.get(5, TimeUnit.SECONDS)).isEqualTo("booking 1");
+    }
+
+    @Test
+    void keyStoredByAnotherNodeIsReplayed() {
+        IdempotencyKey stored = new IdempotencyKey();
+        stored.setKey("key-1");
+        stored.setRequest("book 1 for Ann");
+        stored.setResponse("\"booking 7\"");
+        stored.setCreatedAt(LocalDateTime.now().minusMinutes(1));
+        when(repository.findById("key-1")).thenReturn(Optional.of(stored));
+
+        assertThat(store.execute("key-1", "book 1 for Ann", RESULT, this::book)).isEqualTo("booking 7");
+        assertThat(calls).hasValue(0);
+        assertThat(replays()).isEqualTo(1);
+    }
+
+    @Test
+    void expiredStoredKeyIsIgnored() {
+        IdempotencyKey stored = new IdempotencyKey();
+        stored.setKey("key-1");
+        stored.setRequest("book 1 for Ann");
+        stored.setResponse("\"booking 7\"");
+        stored.setCreatedAt(LocalDateTime.now().minusHours(25));
+        when(repository.findById("key-1")).thenReturn(Optional.of(stored));
+
+        assertThat(store.execute("key-1", "book 1 for Ann", RESULT, this::book)).isEqualTo("booking 1");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package com.ticketing.service;
+
+import com.ticketing.EventTicketingApplication;
+import com.ticketing.config.EventRoutingInterceptor;
+import com.ticketing.entity.Booking;
+import com.ticketing.entity.Seat;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Three instances of the application in partitioned mode, each with its own
+ * port and booking journal, all sharing one H2 database: the seeded event
+ * has one owner, and the other two send its requests there.
+ *
+ * Each test books seats of its own in the seeded event.
+ */
+class PartitionedClusterTest {
+
+    private static final int NODES = 3;
+    private static final String DATABASE = "jdbc:h2:mem:cluster;DB_CLOSE_DELAY=-1";
+
+    @TempDir
+    static Path journals;
+
+    private static final List<String> urls = new ArrayList<>();
+    private static final ConfigurableApplicationContext[] nodes = new ConfigurableApplicationContext[NODES];
+    private static final HttpClient direct = HttpClient.newHttpClient();
+    private static final HttpClient following = HttpClient.newBuilder()
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .build();
+
+    private static Long event;
+    private static int owner;
+
+    @BeforeAll
+    static void startCluster() throws IOException {
+        for (int i = 0; i < NODES; i++) {
+            try (ServerSocket socket = new ServerSocket(0)) {
+                urls.add("http://localhost:" + socket.getLocalPort());
+            }
+        }
+        try {
+            // One at a time: the first creates the schema and seeds the event
+            for (int i = 0; i < NODES; i++) {
+                nodes[i] = start(i);
+            }
+        } catch (RuntimeException ex) {
+            stopCluster();
+            throw ex;
+        }
+        event = jdbc().queryForObject("select min(id) from events", Long.class);
+        owner = urls.indexOf(nodes[0].getBean(EventOwnership.class).ownerOf(event));
+    }
+
+    @AfterAll
+    static void stopCluster() {
+        for (int i = NODES - 1; i >= 0; i--) {
+            if (nodes[i] != null) {
+                nodes[i].close();
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext start(int node) {
+        return new SpringApplicationBuilder(EventTicketingApplication.class).run(
+                "--server.port=" + URI.create(urls.get(node)).getPort(),
+                "--spring.datasource.url=" + DATABASE,
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--ticketing.cluster.enabled=true",
+                "--ticketing.cluster.nodes=" + String.join(",", urls),
+                "--ticketing.cluster.self=" + urls.get(node),
+                "--ticketing.booking.mode=journal",
+                "--ticketing.booking.journal.dir=" + journal(node));
+    }
+
+    private static Path journal(int node) {
+        return journals.resolve("node" + node);
+    }
+
+    /**
+     * Through whichever node is up; the owner is restarted by one test.
+     */
+    private static JdbcTemplate jdbc() {
+        for (ConfigurableApplicationContext node : nodes) {
+            if (node != null && node.isActive()) {
+                return node.getBean(JdbcTemplate.class);
+            }
+        }
+        throw new IllegalStateException("No node is running");
+    }
+
+    private static Long seat(String seatNumber) {
+        return jdbc().queryForObject("select id from seats where event_id = ? and seat_number = ?",
+                Long.class, event, seatNumber);
+    }
+
+    private static int count(String sql, Object... args) {
+        return jdbc().queryForObject(sql, Integer.class, args);
+    }
+
+    private static HttpResponse<String> book(HttpClient client, int node, Long seatId, String customerName)
+            throws IOException, InterruptedException {
+        URI uri = URI.create(urls.get(node) + "/api/seats/" + seatId + "/book?customerName="
+                + URLEncoder.encode(customerName, StandardCharsets.UTF_8));
+        return client.send(HttpRequest.newBuilder(uri).POST(HttpRequest.BodyPublishers.noBody()).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    /**
+     * Blocks until every booking confirmed so far has reached the database.
+     */
+    private static void awaitWritten() throws InterruptedException {
+        long deadline = System.nanoTime() + 30_000_000_000L;
+        for (ConfigurableApplicationContext node : nodes) {
+            BookingWriteBehind writeBehind = node.getBean(BookingWriteBehind.class);
+            while (writeBehind.pending() > 0) {
+                assertThat(System.nanoTime()).as("bookings still pending").isLessThan(deadline);
+                Thread.sleep(10);
+            }
+        }
+    }
+
+    @Test
+    void otherNodesRedirectToTheOwner() throws IOException, InterruptedException {
+        Long seatId = seat("A1");
+        int other = (owner + 1) % NODES;
+
+        HttpResponse<String> booking = book(direct, other, seatId, "Ann");
+
+        assertThat(booking.statusCode()).isEqualTo(307);
+        assertThat(booking.headers().firstValue("Location")).contains(
+                urls.get(owner) + "/api/seats/" + seatId + "/book?customerName=Ann");
+        assertThat(booking.headers().firstValue(EventRoutingInterceptor.EVENT_OWNER_HEADER))
+                .contains(urls.get(owner));
+        // Nothing was booked on the way
+        assertThat(count("select count(*) from seats where id = ? and booked = true", seatId)).isZero();
+
+        HttpResponse<String> seats = direct.send(HttpRequest.newBuilder(
+                URI.create(urls.get(other) + "/api/events/" + event + "/seats")).build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertThat(seats.statusCode()).isEqualTo(307);
+
+        HttpResponse<String> onOwner = direct.send(HttpRequest.newBuilder(
+                URI.create(urls.get(owner) + "/api/events/" + event + "/seats")).build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertThat(onOwner.statusCode()).isEqualTo(200);
+    }
+
+    @Test
+    void concurrentClaimsThroughEveryNodeBookEachSeatOnce() throws Exception {
+        List<Long> seatIds = List.of(seat("B1"), seat("B2"), seat("B3"), seat("B4"), seat("B5"), seat("B6"));
+        int customersPerSeat = 6;
+
+        List<Callable<Integer>> claims = new ArrayList<>();
+        for (Long seatId : seatIds) {
+            for (int customer = 0; customer < customersPerSeat; customer++) {
+                int node = customer % NODES;
+                String name = "Customer " + customer;
+                claims.add(() -> book(following, node, seatId, name).statusCode());
+            }
+        }
+        ExecutorService customers = Executors.newFixedThreadPool(12);
+        List<Integer> statuses = new ArrayList<>();
+        try {
+            for (Future<Integer> status : customers.invokeAll(claims)) {
+                statuses.add(status.get());
+            }
+        } finally {
+            customers.shutdownNow();
+        }
+
+        assertThat(statuses).containsOnly(200, 409);
+        assertThat(statuses).filteredOn(status -> status == 200).hasSize(seatIds.size());
+
+        awaitWritten();
+        for (Long seatId : seatIds) {
+            assertThat(count("select count(*) from seats where id = ? and booked = true", seatId)).isEqualTo(1);
+            assertThat(count("select count(*) from bookings where seat_id = ?", seatId)).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void bookingTheDatabaseAlreadyHasIsKeptInUnwrittenBookings() throws IOException, InterruptedException {
+        Long seatId = seat("C1");
+        BookingWriteBehind writeBehind = nodes[owner].getBean(BookingWriteBehind.class);
+        long unwrittenBefore = writeBehind.unwritten();
+        // Indexed as free on the owner, then booked behind its back
+        nodes[owner].getBean(SeatAvailabilityIndex.class).availableSeats(event);
+        jdbc().update("update seats set booked = true where id = ?", seatId);
+
+        assertThat(book(following, owner, seatId, "Ann").statusCode()).isEqualTo(200);
+        awaitWritten();
+
+        assertThat(count("select count(*) from unwritten_bookings where seat_id = ? and customer_name = 'Ann'",
+                seatId)).isEqualTo(1);
+        assertThat(count("select count(*) from bookings where seat_id = ?", seatId)).isZero();
+        assertThat(writeBehind.unwritten()).isEqualTo(unwrittenBefore + 1);
+    }
+
+    @Test
+    void journalIsReplayedIntoTheDatabaseOnRestart() throws IOException, InterruptedException {
+        Long written = seat("D1");
+        Long bookedElsewhere = seat("D2");
+        Long lost = seat("D3");
+        assertThat(book(following, owner, written, "Ann").statusCode()).isEqualTo(200);
+        awaitWritten();
+        Long writtenId = jdbc().queryForObject("select id from bookings where seat_id = ?", Long.class, written);
+
+        // The owner goes down cleanly, then the journal gains what a crash
+        // would have left in it: one booking the database already has and
+        // two it doesn't, one of them for a seat booked elsewhere meanwhile
+        nodes[owner].close();
+        BookingJournal journal = new BookingJournal("journal", journal(owner).toString(), 67_108_864);
+        try {
+            assertThat(journal.recover()).isEmpty();
+            journal.append(List.of(booking(writtenId, written, "Ann"), booking(9_000_002L, bookedElsewhere, "Bob"),
+                    booking(9_000_003L, lost, "Cy")), position -> { });
+        } finally {
+            journal.close();
+        }
+        jdbc().update("update seats set booked = true where id = ?", bookedElsewhere);
+
+        nodes[owner] = start(owner);
+
+        assertThat(count("select count(*) from bookings where seat_id = ?", written)).isEqualTo(1);
+        assertThat(count("select count(*) from unwritten_bookings where id = 9000002 and seat_id = ?",
+                bookedElsewhere)).isEqualTo(1);
+        assertThat(count("select count(*) from bookings where id = 9000003 and seat_id = ?", lost)).isEqualTo(1);
+        assertThat(count("select count(*) from seats where id = ? and booked = true", lost)).isEqualTo(1);
+        // Loaded into the owner's index after the replay
+        assertThat(book(following, owner, lost, "Dee").statusCode()).isEqualTo(409);
+    }
+
+    private static Booking booking(long id, Long seatId, String customerName) {
+        Seat seat = new Seat();
+        seat.setId(seatId);
+        Booking booking = new Booking(customerName, seat);
+        booking.setId(id);
+        return booking;
+    }
+}
@@ -0,0 +1,247 @@
+package com.ticketing.service;
+
+import com.ticketing.dto.SeatView;
+import com.ticketing.exception.ConcurrentBookingException;
+import com.ticketing.exception.SeatAlreadyBookedException;
+import com.ticketing.repository.EventRepository;
+import com.ticketing.repository.SeatRepository;
+import com.ticketing.service.SeatAvailabilityIndex.SeatClaim;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SeatAvailabilityIndexTest {
+
+    private static final Long EVENT = 1L;
+
+    private EventRepository eventRepository;
+    private SeatRepository seatRepository;
+    private SeatAvailabilityIndex index;
+
+    @BeforeEach
+    void setUp() {
+        eventRepository = mock(EventRepository.class);
+        seatRepository = mock(SeatRepository.class);
+        when(eventRepository.existsByIdAndProvisioningFalse(EVENT)).thenReturn(true);
+        // One row, A1..A5, with A5 already booked
+        when(seatRepository.findViewsByEventId(eq(EVENT), any())).thenReturn(List.of(
+                seat(11, 1, false), seat(12, 2, false), seat(13, 3, false), seat(14, 4, false),
+                seat(15, 5, true)));
+        index = new SeatAvailabilityIndex(eventRepository, seatRepository, 1000);
+        index.load(EVENT);
+    }
+
+    private static SeatView seat(long id, int number, boolean booked) {
+        return new SeatView(id, "A" + number, null, "A", number, booked, false, 0L);
+    }
+
+    @Test
+    void confirmedClaimBooksTheSeat() {
+        SeatClaim claim = index.begin(11L);
+
+        assertThat(claim.isTracked()).isTrue();
+        assertThat(claim.eventId()).isEqualTo(EVENT);
+        assertThat(index.claimsInFlight(EVENT)).isEqualTo(1);
+        assertThat(index.availableSeats(EVENT)).isEqualTo(4);
+
+        claim.confirm();
+
+        assertThat(index.isBooked(11L)).isTrue();
+        assertThat(index.availableSeats(EVENT)).isEqualTo(3);
+        assertThat(index.version(EVENT)).isEqualTo(1);
+        assertThatThrownBy(() -> index.begin(11L)).isInstanceOf(SeatAlreadyBookedException.class);
+    }
+
+    @Test
+    void abortedClaimFreesTheSeat() {
+        index.begin(12L).abort();
+
+        assertThat(index.isBooked(12L)).isFalse();
+        assertThat(index.claimsInFlight(EVENT)).isZero();
+        assertThat(index.version(EVENT)).isZero();
+        assertThat(index.begin(12L).isTracked()).isTrue();
+    }
+
+    @Test
+    void bookedSeatIsRejectedWithoutAClaim() {
+        assertThatThrownBy(() -> index.begin(15L)).isInstanceOf(SeatAlreadyBookedException.class);
+        assertThat(index.claimsInFlight(EVENT)).isZero();
+    }
+
+    @Test
+    void unknownSeatIsLeftToTheDatabase() {
+        assertThat(index.begin(99L).isTracked()).isFalse();
+    }
+
+    @Test
+    void heldSeatTurnsIntoABooking() {
+        SeatClaim hold = index.begin(13L);
+        hold.hold();
+        assertThatThrownBy(() -> index.begin(13L)).isInstanceOf(SeatAlreadyBookedException.class);
+
+        index.beginConfirm(13L).confirm();
+
+        assertThat(index.isBooked(13L)).isTrue();
+    }
+
+    @Test
+    void releasedHoldFreesTheSeat() {
+        index.begin(14L).hold();
+
+        index.release(14L);
+
+        assertThat(index.begin(14L).isTracked()).isTrue();
+    }
+
+    @Test
+    void waitingRequestIsTurnedAwayOnceTheClaimBooksTheSeat() throws Exception {
+        SeatClaim claim = index.begin(11L);
+        CompletableFuture<SeatClaim> waiter = CompletableFuture.supplyAsync(() -> index.begin(11L));
+        awaitWaiting(1);
+
+        claim.confirm();
+
+        assertThatThrownBy(() -> waiter.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(SeatAlreadyBookedException.class);
+        assertThat(index.waitingClaims(EVENT)).isZero();
+    }
+
+    @Test
+    void waitingRequestTakesOverWhenTheClaimFails() throws Exception {
+        SeatClaim claim = index.begin(11L);
+        CompletableFuture<SeatClaim> waiter = CompletableFuture.supplyAsync(() -> index.begin(11L));
+        awaitWaiting(1);
+
+        claim.abort();
+
+        SeatClaim takenOver = waiter.get(5, TimeUnit.SECONDS);
+        assertThat(takenOver.seatId()).isEqualTo(11L);
+        takenOver.confirm();
+        assertThat(index.isBooked(11L)).isTrue();
+    }
+
+    @Test
+    void waitingRequestGivesUpAfterTheCoalesceWait() {
+        SeatAvailabilityIndex impatient = new SeatAvailabilityIndex(eventRepository, seatRepository, 50);
+        impatient.load(EVENT);
+        impatient.begin(11L);
+
+        assertThatThrownBy(() -> impatient.begin(11L)).isInstanceOf(ConcurrentBookingException.class);
+    }
+
+    @Test
+    void beginAllTakesAllOrNothing() {
+        SeatClaim other = index.begin(13L);
+
+        assertThatThrownBy(() -> index.beginAll(List.of(11L, 12L, 13L)))
+                .isInstanceOf(ConcurrentBookingException.class);
+        assertThat(index.claimsInFlight(EVENT)).isEqualTo(1);
+
+        other.abort();
+        List<SeatClaim> claims = index.beginAll(List.of(11L, 12L, 13L));
+        assertThat(claims).hasSize(3);
+        assertThat(index.claimsInFlight(EVENT)).isEqualTo(3);
+    }
+
+    @Test
+    void bestAvailablePicksTheBlockNearestTheMiddle() {
+        List<SeatClaim> claims = index.beginBestAvailable(EVENT, 2);
+
+        // Free run is A1..A4 (A5 is booked), so the middle pair is A2, A3
+        assertThat(claims).extracting(SeatClaim::seatId).containsExactly(12L, 13L);
+        assertThat(index.beginBestAvailable(EVENT, 3)).isEmpty();
+    }
+
+    @Test
+    void reloadKeepsTheLiveTable() {
+        index.begin(11L).confirm();
+
+        index.load(EVENT);
+
+        assertThat(index.isBooked(11L)).isTrue();
+        verify(seatRepository, times(1)).findViewsByEventId(eq(EVENT), any());
+    }
+
+    @Test
+    void concurrentLoadsShareOneReadWithoutHoldingUpOtherEvents() throws Exception {
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(eventRepository.existsByIdAndProvisioningFalse(2L)).thenReturn(true);
+        when(seatRepository.findViewsByEventId(eq(2L), any())).thenAnswer(invocation -> {
+            reading.countDown();
+            release.await();
+            return List.of(seat(21, 1, false));
+        });
+        when(eventRepository.existsByIdAndProvisioningFalse(3L)).thenReturn(true);
+        when(seatRepository.findViewsByEventId(eq(3L), any())).thenReturn(List.of(seat(31, 1, false)));
+        ExecutorService requests = Executors.newFixedThreadPool(2);
+        try {
+            Future<Integer> first = requests.submit(() -> index.totalSeats(2L));
+            assertThat(reading.await(5, TimeUnit.SECONDS)).isTrue();
+            Future<Integer> second = requests.submit(() -> index.totalSeats(2L));
+
+            // Event 2's read is still going; nothing else waits for it
+            assertThat(index.totalSeats(3L)).isEqualTo(1);
+            assertThat(index.begin(11L).isTracked()).isTrue();
+
+            release.countDown();
+            assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+            assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+        } finally {
+            requests.shutdownNow();
+        }
+        verify(seatRepository, times(1)).findViewsByEventId(eq(2L), any());
+    }
+
+    @Test
+    void availabilityIsADeltaWhileTheChangesAreLogged() {
+        index.begin(12L).confirm();
+        index.begin(14L).hold();
+
+        // type, from, to, count, then (ordinal, state) pairs
+        assertThat(index.encodeAvailability(EVENT, 0)).containsExactly(1, 0, 2, 2, 1, 1, 3, 2);
+        assertThat(index.encodeAvailability(EVENT, 2)).containsExactly(1, 2, 2, 0);
+    }
+
+    @Test
+    void availabilityFallsBackToASnapshot() {
+        index.begin(12L).confirm();
+
+        // type, version, seat count, then runs: A1 free, A2 booked, A3-A4 free, A5 booked
+        byte[] snapshot = {0, 1, 5, 1, 1, 2, 1};
+        assertThat(index.encodeAvailability(EVENT, -1)).containsExactly(snapshot);
+        assertThat(index.encodeAvailability(EVENT, 5)).containsExactly(snapshot);
+    }
+
+    @Test
+    void unknownEventIsNotIndexed() {
+        assertThat(index.totalSeats(2L)).isZero();
+        assertThat(index.encodeAvailability(2L, -1)).isNull();
+    }
+
+    private void awaitWaiting(long expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (index.waitingClaims(EVENT) < expected && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(index.waitingClaims(EVENT)).isEqualTo(expected);
+    }
+}
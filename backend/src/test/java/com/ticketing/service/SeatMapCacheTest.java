@@ -0,0 +1,207 @@
+package com.ticketing.service;
+
+import com.ticketing.dto.SeatView;
+import com.ticketing.entity.Seat;
+import com.ticketing.repository.SeatRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Events 1 to 3 have two seats each: event n has seats n*10+1 and n*10+2.
+ */
+class SeatMapCacheTest {
+
+    private final SeatRepository seatRepository = mock(SeatRepository.class);
+    private final SeatAvailabilityIndex availabilityIndex = mock(SeatAvailabilityIndex.class);
+    private final BookingWriteBehind writeBehind = mock(BookingWriteBehind.class);
+
+    @BeforeEach
+    void setUp() {
+        for (long eventId = 1; eventId <= 3; eventId++) {
+            when(availabilityIndex.totalSeats(eventId)).thenReturn(2);
+            stubSeats(eventId, seat(eventId * 10 + 1, false, 0), seat(eventId * 10 + 2, false, 0));
+            when(availabilityIndex.eventIdOf(eventId * 10 + 1)).thenReturn(eventId);
+            when(availabilityIndex.eventIdOf(eventId * 10 + 2)).thenReturn(eventId);
+        }
+    }
+
+    private static SeatView seat(long id, boolean booked, long version) {
+        return new SeatView(id, "A" + id, "Stalls", "A", (int) id, booked, false, version);
+    }
+
+    /**
+     * What the database holds for the event from now on.
+     */
+    private void stubSeats(long eventId, SeatView... seats) {
+        when(seatRepository.findViewsByEventId(eq(eventId), any(LocalDateTime.class)))
+                .thenAnswer(invocation -> new ArrayList<>(List.of(seats)));
+    }
+
+    private static Seat bookedSeat(long id, long version) {
+        Seat seat = new Seat();
+        seat.setId(id);
+        seat.setSeatNumber("A" + id);
+        seat.setSection("Stalls");
+        seat.setRowLabel("A");
+        seat.setNumber((int) id);
+        seat.setBooked(true);
+        seat.setVersion(version);
+        return seat;
+    }
+
+    private SeatMapCache cache(int maxEvents, long maxAgeMillis) {
+        return new SeatMapCache(seatRepository, availabilityIndex, writeBehind, maxEvents, maxAgeMillis);
+    }
+
+    @Test
+    void eventIsLoadedOnce() {
+        SeatMapCache cache = cache(64, 0);
+
+        assertThat(cache.getSeats(1L)).extracting(SeatView::id).containsExactly(11L, 12L);
+        long version = cache.version(1L);
+        assertThat(cache.getSeat(1L, 12L).id()).isEqualTo(12L);
+        assertThat(cache.getSeat(1L, 21L)).isNull();
+
+        assertThat(cache.version(1L)).isEqualTo(version);
+        verify(seatRepository, times(1)).findViewsByEventId(eq(1L), any(LocalDateTime.class));
+    }
+
+    @Test
+    void changesAreWrittenThrough() {
+        SeatMapCache cache = cache(64, 0);
+        long loaded = cache.version(1L);
+
+        cache.update(bookedSeat(11L, 1));
+
+        assertThat(cache.getSeat(1L, 11L).booked()).isTrue();
+        long booked = cache.version(1L);
+        assertThat(booked).isNotEqualTo(loaded);
+
+        cache.updateHeld(12L, true);
+
+        assertThat(cache.getSeat(1L, 12L).held()).isTrue();
+        assertThat(cache.version(1L)).isNotIn(loaded, booked);
+        verify(seatRepository, times(1)).findViewsByEventId(eq(1L), any(LocalDateTime.class));
+    }
+
+    @Test
+    void writtenThroughVersionMatchesAFreshLoad() {
+        SeatMapCache cache = cache(64, 0);
+        cache.version(1L);
+        cache.update(bookedSeat(11L, 1));
+        cache.updateHeld(12L, true);
+
+        SeatView held = new SeatView(12L, "A12", "Stalls", "A", 12, false, true, 1L);
+        stubSeats(1L, SeatView.from(bookedSeat(11L, 1)), held);
+
+        assertThat(cache(64, 0).version(1L)).isEqualTo(cache.version(1L));
+    }
+
+    @Test
+    void leastRecentlyReadEventIsEvicted() throws InterruptedException {
+        SeatMapCache cache = cache(2, 0);
+        cache.getSeats(1L);
+        Thread.sleep(1);
+        cache.getSeats(2L);
+        Thread.sleep(1);
+        cache.getSeats(1L);
+        Thread.sleep(1);
+
+        cache.getSeats(3L);
+
+        // Event 2 went; 1 and 3 are still cached
+        cache.getSeats(1L);
+        cache.getSeats(3L);
+        cache.getSeats(2L);
+        verify(seatRepository, times(1)).findViewsByEventId(eq(1L), any(LocalDateTime.class));
+        verify(seatRepository, times(2)).findViewsByEventId(eq(2L), any(LocalDateTime.class));
+        verify(seatRepository, times(1)).findViewsByEventId(eq(3L), any(LocalDateTime.class));
+    }
+
+    @Test
+    void evictedEventNoLongerTakesChanges() throws InterruptedException {
+        SeatMapCache cache = cache(1, 0);
+        cache.getSeats(1L);
+        Thread.sleep(1);
+        cache.getSeats(2L);
+
+        // Booked while evicted; the next load reads it from the database
+        cache.update(bookedSeat(11L, 1));
+        stubSeats(1L, SeatView.from(bookedSeat(11L, 1)), seat(12L, false, 0));
+
+        assertThat(cache.getSeat(1L, 11L).booked()).isTrue();
+        verify(seatRepository, times(2)).findViewsByEventId(eq(1L), any(LocalDateTime.class));
+    }
+
+    @Test
+    void bookingsByAnotherInstanceShowAfterMaxAge() throws InterruptedException {
+        SeatMapCache cache = cache(64, 20);
+        long before = cache.version(1L);
+
+        // Another instance booked seat 11 against the same database
+        stubSeats(1L, seat(11L, true, 1), seat(12L, false, 0));
+        assertThat(cache.getSeat(1L, 11L).booked()).isFalse();
+        Thread.sleep(40);
+
+        assertThat(cache.getSeat(1L, 11L).booked()).isTrue();
+        assertThat(cache.version(1L)).isNotEqualTo(before);
+        verify(seatRepository, times(2)).findViewsByEventId(eq(1L), any(LocalDateTime.class));
+    }
+
+    @Test
+    void mapsNeverExpireWhenEveryBookingGoesThroughThisInstance() throws InterruptedException {
+        // Partitioned or journal mode: each event is booked on its owner only
+        when(writeBehind.isEnabled()).thenReturn(true);
+        SeatMapCache cache = cache(64, 20);
+        cache.getSeats(1L);
+        Thread.sleep(40);
+
+        cache.getSeats(1L);
+
+        verify(seatRepository, times(1)).findViewsByEventId(eq(1L), any(LocalDateTime.class));
+    }
+
+    @Test
+    void bookingsNotYetWrittenBehindShowAsBooked() {
+        when(availabilityIndex.isBooked(12L)).thenReturn(true);
+
+        assertThat(cache(64, 0).getSeat(1L, 12L).booked()).isTrue();
+    }
+
+    @Test
+    void loadRacingABookingIsNotCached() {
+        // The index moves between the read and the check
+        when(availabilityIndex.version(1L)).thenReturn(1L, 2L, 2L, 2L);
+        SeatMapCache cache = cache(64, 0);
+
+        cache.getSeats(1L);
+        cache.getSeats(1L);
+        cache.getSeats(1L);
+
+        verify(seatRepository, times(2)).findViewsByEventId(eq(1L), any(LocalDateTime.class));
+    }
+
+    @Test
+    void eventWithoutSeatsIsNeverCached() {
+        SeatMapCache cache = cache(64, 0);
+
+        assertThat(cache.getSeats(9L)).isEmpty();
+        assertThat(cache.version(9L)).isZero();
+        assertThat(cache.getSeat(9L, 11L)).isNull();
+
+        verify(seatRepository, times(0)).findViewsByEventId(anyLong(), any(LocalDateTime.class));
+    }
+}
@@ -0,0 +1,164 @@
+package com.ticketing.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ticketing.dto.SeatUpdate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class SeatUpdatePublisherTest {
+
+    private static final long EVENT = 1L;
+
+    private SeatUpdatePublisher publisher;
+
+    @AfterEach
+    void tearDown() {
+        publisher.stop();
+    }
+
+    private SeatUpdatePublisher publisher(long flushDelayMs, int maxBacklog, int senderThreads, int senderQueue) {
+        publisher = new SeatUpdatePublisher(mock(SeatAvailabilityIndex.class), new ObjectMapper(),
+                flushDelayMs, maxBacklog, 10_000, senderThreads, senderQueue);
+        return publisher;
+    }
+
+    /**
+     * Records what is written to it; blocks each write while held.
+     */
+    private static final class Client extends SseEmitter {
+
+        final BlockingQueue<String> received = new LinkedBlockingQueue<>();
+        final CountDownLatch completed = new CountDownLatch(1);
+        final CountDownLatch writing = new CountDownLatch(1);
+        final CountDownLatch unblocked;
+
+        Client(boolean stuck) {
+            unblocked = new CountDownLatch(stuck ? 1 : 0);
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            writing.countDown();
+            try {
+                unblocked.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            StringBuilder text = new StringBuilder();
+            for (ResponseBodyEmitter.DataWithMediaType part : builder.build()) {
+                text.append(part.getData());
+            }
+            String event = text.toString();
+            received.add(event.substring(event.indexOf("data:") + 5).trim());
+        }
+
+        @Override
+        public synchronized void complete() {
+            completed.countDown();
+        }
+
+        String next() throws InterruptedException {
+            return received.poll(5, TimeUnit.SECONDS);
+        }
+
+        boolean isCompleted() throws InterruptedException {
+            return completed.await(5, TimeUnit.SECONDS);
+        }
+    }
+
+    private Client subscribe(boolean stuck) {
+        Client client = new Client(stuck);
+        publisher.subscribe(EVENT, client);
+        return client;
+    }
+
+    /**
+     * Publishes one change and waits for it to be flushed to client.
+     */
+    private void flushed(long seatId, Client client) throws InterruptedException {
+        publisher.publish(EVENT, new SeatUpdate(seatId, true, false));
+        assertThat(client.next()).contains("\"id\":" + seatId);
+    }
+
+    @Test
+    void burstIsSentAsOneBatchWithTheLatestChangePerSeat() throws InterruptedException {
+        publisher(200, 64, 4, 16);
+        Client client = subscribe(false);
+
+        publisher.publish(EVENT, new SeatUpdate(1L, false, true));
+        publisher.publish(EVENT, new SeatUpdate(2L, true, false));
+        publisher.publish(EVENT, new SeatUpdate(1L, true, false));
+
+        assertThat(client.next()).isEqualTo(
+                "[{\"id\":1,\"booked\":true,\"held\":false},{\"id\":2,\"booked\":true,\"held\":false}]");
+        assertThat(client.received.poll(400, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    @Test
+    void otherEventsAreNotSent() throws InterruptedException {
+        publisher(1, 64, 4, 16);
+        Client client = subscribe(false);
+
+        publisher.publish(2L, new SeatUpdate(99L, true, false));
+        flushed(1L, client);
+
+        assertThat(client.received).isEmpty();
+    }
+
+    @Test
+    void slowSubscriberIsDroppedWithoutHoldingUpTheOthers() throws InterruptedException {
+        publisher(1, 2, 4, 16);
+        Client slow = subscribe(true);
+        Client fast = subscribe(false);
+
+        // One batch being written to the slow client, two queued behind it
+        flushed(1L, fast);
+        assertThat(slow.writing.await(5, TimeUnit.SECONDS)).isTrue();
+        flushed(2L, fast);
+        flushed(3L, fast);
+        assertThat(slow.completed.getCount()).isEqualTo(1);
+
+        // Its backlog is full
+        flushed(4L, fast);
+        flushed(5L, fast);
+
+        slow.unblocked.countDown();
+        assertThat(slow.isCompleted()).isTrue();
+        // The write in progress finished; nothing after it was sent
+        assertThat(slow.next()).contains("\"id\":1");
+        assertThat(slow.received.poll(200, TimeUnit.MILLISECONDS)).isNull();
+        flushed(6L, fast);
+        assertThat(slow.received).isEmpty();
+    }
+
+    @Test
+    void subscriberFindingEverySenderBusyIsDropped() throws InterruptedException {
+        // One sender thread and room for one subscriber waiting for it
+        publisher(1, 64, 1, 1);
+        Client stuck = subscribe(true);
+        Client waiting = subscribe(false);
+        Client late = subscribe(false);
+
+        publisher.publish(EVENT, new SeatUpdate(1L, true, false));
+
+        assertThat(late.isCompleted()).isTrue();
+        assertThat(stuck.completed.getCount()).isEqualTo(1);
+        assertThat(waiting.completed.getCount()).isEqualTo(1);
+
+        // Once the sender is free the queued subscriber is served, the dropped one isn't
+        stuck.unblocked.countDown();
+        assertThat(stuck.next()).contains("\"id\":1");
+        assertThat(waiting.next()).contains("\"id\":1");
+        assertThat(late.received).isEmpty();
+    }
+}
@@ -0,0 +1,179 @@
+package com.ticketing.service;
+
+import com.ticketing.dto.QueueTicket;
+import com.ticketing.entity.Event;
+import com.ticketing.exception.NotAdmittedException;
+import com.ticketing.exception.ServiceBusyException;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class WaitingRoomTest {
+
+    private static final String SECRET = "a-secret-every-instance-shares";
+
+    private final EventCatalog eventCatalog = mock(EventCatalog.class);
+
+    private WaitingRoom waitingRoom(double admissionsPerSecond, int burst, int requestsPerTicket, long maxWaiting) {
+        when(eventCatalog.getEvent(1L)).thenReturn(new Event());
+        when(eventCatalog.getEvent(2L)).thenReturn(new Event());
+        return new WaitingRoom(true, admissionsPerSecond, Map.of(), burst, 30, requestsPerTicket, maxWaiting,
+                SECRET, eventCatalog);
+    }
+
+    /**
+     * A token as another instance with the same secret would sign it.
+     */
+    private static String token(String payload) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        return payload + "." + Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(mac.doFinal(payload.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static long inAnHour() {
+        return Instant.now().getEpochSecond() + 3600;
+    }
+
+    @Test
+    void ticketSignedWithTheSharedSecretIsAccepted() throws Exception {
+        WaitingRoom waitingRoom = waitingRoom(50, 10, 10, 1000);
+
+        waitingRoom.admit(1L, token("1.1." + inAnHour()));
+
+        assertThat(waitingRoom.status(1L, token("1.1." + inAnHour())).position()).isEqualTo(1);
+    }
+
+    @Test
+    void alteredTicketIsRejected() throws Exception {
+        WaitingRoom waitingRoom = waitingRoom(50, 10, 10, 1000);
+        String token = waitingRoom.join(1L, null).token();
+        String signature = token.substring(token.lastIndexOf('.'));
+
+        // A better position, keeping the signature
+        String moved = "1.0." + token.split("\\.")[2] + signature;
+        assertThatThrownBy(() -> waitingRoom.admit(1L, moved))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid queue token");
+        // Signed with another secret
+        String foreign = "1.1." + inAnHour() + ".bm90LXRoZS1yaWdodC1zaWduYXR1cmU";
+        assertThatThrownBy(() -> waitingRoom.admit(1L, foreign))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid queue token");
+        assertThatThrownBy(() -> waitingRoom.admit(1L, "garbage"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void ticketIsOnlyGoodForItsEvent() {
+        WaitingRoom waitingRoom = waitingRoom(50, 10, 10, 1000);
+        String token = waitingRoom.join(1L, null).token();
+
+        assertThatThrownBy(() -> waitingRoom.admit(2L, token))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("another event");
+    }
+
+    @Test
+    void expiredTicketIsRejected() throws Exception {
+        WaitingRoom waitingRoom = waitingRoom(50, 10, 10, 1000);
+        String expired = token("1.1." + (Instant.now().getEpochSecond() - 1));
+
+        assertThatThrownBy(() -> waitingRoom.admit(1L, expired))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("expired");
+        // Joining with it takes a new place
+        QueueTicket ticket = waitingRoom.join(1L, expired);
+        assertThat(ticket.token()).isNotEqualTo(expired);
+        waitingRoom.admit(1L, ticket.token());
+    }
+
+    @Test
+    void noTicketIsNotAdmitted() {
+        WaitingRoom waitingRoom = waitingRoom(50, 10, 10, 1000);
+
+        assertThatThrownBy(() -> waitingRoom.admit(1L, null)).isInstanceOf(NotAdmittedException.class);
+        assertThatThrownBy(() -> waitingRoom.join(9L, null)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void burstIsLetStraightInAndTheRestAtTheRate() throws InterruptedException {
+        WaitingRoom waitingRoom = waitingRoom(2, 2, 10, 1000);
+        QueueTicket first = waitingRoom.join(1L, null);
+        QueueTicket second = waitingRoom.join(1L, null);
+        QueueTicket third = waitingRoom.join(1L, null);
+
+        assertThat(first.admitted()).isTrue();
+        assertThat(second.admitted()).isTrue();
+        assertThat(third.admitted()).isFalse();
+        assertThat(third.retryAfterSeconds()).isEqualTo(1);
+        assertThatThrownBy(() -> waitingRoom.admit(1L, third.token()))
+                .isInstanceOf(NotAdmittedException.class)
+                .hasMessage("You are number 1 in line");
+
+        // Two a second: the third's turn comes within half a second
+        Thread.sleep(600);
+
+        waitingRoom.admit(1L, third.token());
+    }
+
+    @Test
+    void quietSpellDoesNotSaveUpAdmissions() throws InterruptedException {
+        WaitingRoom waitingRoom = waitingRoom(100, 1, 10, 1000);
+        waitingRoom.join(1L, null);
+        // Long enough for 20 admissions at the rate, but only burst are kept
+        Thread.sleep(200);
+
+        assertThat(waitingRoom.join(1L, null).admitted()).isTrue();
+        assertThat(waitingRoom.join(1L, null).admitted()).isFalse();
+    }
+
+    @Test
+    void admittedTicketIsGoodForALimitedNumberOfRequests() {
+        WaitingRoom waitingRoom = waitingRoom(50, 10, 2, 1000);
+        QueueTicket ticket = waitingRoom.join(1L, null);
+
+        waitingRoom.admit(1L, ticket.token());
+        waitingRoom.admit(1L, ticket.token());
+
+        assertThatThrownBy(() -> waitingRoom.admit(1L, ticket.token()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("used up");
+        // Back of the line with a new ticket
+        QueueTicket next = waitingRoom.join(1L, ticket.token());
+        assertThat(next.position()).isEqualTo(ticket.position() + 1);
+        waitingRoom.admit(1L, next.token());
+    }
+
+    @Test
+    void joiningAgainKeepsThePlace() {
+        WaitingRoom waitingRoom = waitingRoom(50, 0, 10, 1000);
+        QueueTicket ticket = waitingRoom.join(1L, null);
+
+        QueueTicket again = waitingRoom.join(1L, ticket.token());
+
+        assertThat(again.position()).isEqualTo(ticket.position());
+        assertThat(again.token()).isEqualTo(ticket.token());
+    }
+
+    @Test
+    void fullLineTurnsNewcomersAway() {
+        WaitingRoom waitingRoom = waitingRoom(0.001, 0, 10, 2);
+        waitingRoom.join(1L, null);
+        waitingRoom.join(1L, null);
+
+        assertThatThrownBy(() -> waitingRoom.join(1L, null)).isInstanceOf(ServiceBusyException.class);
+        // Lines are per event
+        assertThat(waitingRoom.join(2L, null).position()).isEqualTo(1);
+    }
+}
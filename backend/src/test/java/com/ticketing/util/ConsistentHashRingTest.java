@@ -0,0 +1,75 @@
+package com.ticketing.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ConsistentHashRingTest {
+
+    private static final List<String> NODES = List.of("http://a:8080", "http://b:8080", "http://c:8080");
+    private static final int KEYS = 30_000;
+
+    @Test
+    void everyInstanceAgreesOnTheOwner() {
+        ConsistentHashRing one = new ConsistentHashRing(NODES, 128);
+        ConsistentHashRing other = new ConsistentHashRing(NODES, 128);
+
+        for (long key = 1; key <= KEYS; key++) {
+            assertThat(other.nodeFor(key)).isEqualTo(one.nodeFor(key));
+        }
+    }
+
+    @Test
+    void sequentialIdsSpreadOverAllNodes() {
+        ConsistentHashRing ring = new ConsistentHashRing(NODES, 128);
+
+        Map<String, Integer> owned = new HashMap<>();
+        for (long key = 1; key <= KEYS; key++) {
+            owned.merge(ring.nodeFor(key), 1, Integer::sum);
+        }
+
+        assertThat(owned).containsOnlyKeys(NODES);
+        // A fair share is 10,000 each
+        assertThat(owned.values()).allSatisfy(count -> assertThat(count).isBetween(7_000, 13_000));
+    }
+
+    @Test
+    void addingANodeOnlyMovesKeysToIt() {
+        ConsistentHashRing before = new ConsistentHashRing(NODES, 128);
+        ConsistentHashRing after = new ConsistentHashRing(
+                List.of("http://a:8080", "http://b:8080", "http://c:8080", "http://d:8080"), 128);
+
+        int moved = 0;
+        for (long key = 1; key <= KEYS; key++) {
+            String owner = after.nodeFor(key);
+            if (!owner.equals(before.nodeFor(key))) {
+                assertThat(owner).isEqualTo("http://d:8080");
+                moved++;
+            }
+        }
+        // About a quarter of the keys, not a reshuffle
+        assertThat(moved).isBetween(KEYS / 8, KEYS * 3 / 8);
+    }
+
+    @Test
+    void singleNodeOwnsEverything() {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of("http://a:8080"), 1);
+
+        assertThat(ring.nodeFor(Long.MIN_VALUE)).isEqualTo("http://a:8080");
+        assertThat(ring.nodeFor(0)).isEqualTo("http://a:8080");
+        assertThat(ring.nodeFor(Long.MAX_VALUE)).isEqualTo("http://a:8080");
+    }
+
+    @Test
+    void rejectsAnEmptyRing() {
+        assertThatThrownBy(() -> new ConsistentHashRing(List.of(), 128))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new ConsistentHashRing(NODES, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
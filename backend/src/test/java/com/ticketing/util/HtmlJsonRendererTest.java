@@ -0,0 +1,59 @@
+package com.ticketing.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HtmlJsonRendererTest {
+
+    private static final String ATTACK = "</script><script>alert(1)</script>";
+
+    private static String render(String title, Object data) {
+        return new String(HtmlJsonRenderer.render(title, data), StandardCharsets.UTF_8);
+    }
+
+    private static int count(String page, String text) {
+        return page.split(Pattern.quote(text), -1).length - 1;
+    }
+
+    private static String json(String page) {
+        Matcher pre = Pattern.compile("<pre>(.*)</pre>", Pattern.DOTALL).matcher(page);
+        assertThat(pre.find()).isTrue();
+        return pre.group(1);
+    }
+
+    @Test
+    void scriptInACustomerNameStaysText() {
+        String page = render("Booking", Map.of("customerName", ATTACK));
+
+        // Only the page's own script element
+        assertThat(count(page, "<script")).isEqualTo(1);
+        assertThat(count(page, "</script>")).isEqualTo(1);
+        assertThat(json(page)).contains("&lt;/script&gt;&lt;script&gt;alert(1)&lt;/script&gt;");
+    }
+
+    @Test
+    void scriptInAnEventNameStaysText() {
+        String page = render("Event: " + ATTACK, Map.of("name", ATTACK));
+
+        assertThat(count(page, "<script")).isEqualTo(1);
+        assertThat(page).contains("<title>Event: &lt;/script&gt;&lt;script&gt;alert(1)&lt;/script&gt; - ");
+        assertThat(page).contains("<h1>Event: &lt;/script&gt;");
+    }
+
+    @Test
+    void escapedJsonReadsBackAsTheOriginal() throws Exception {
+        Map<String, String> data = Map.of("customerName", "Tom & \"Jerry\" <3");
+
+        String json = json(render("Booking", data))
+                .replace("&lt;", "<").replace("&gt;", ">").replace("&amp;", "&");
+
+        assertThat(new ObjectMapper().readValue(json, Map.class)).isEqualTo(data);
+    }
+}
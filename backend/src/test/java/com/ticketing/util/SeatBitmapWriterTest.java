@@ -0,0 +1,92 @@
+package com.ticketing.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SeatBitmapWriterTest {
+
+    @Test
+    void snapshotRunsAlternateStartingWithAvailable() {
+        SeatBitmapWriter out = new SeatBitmapWriter();
+        out.beginSnapshot(7, 6);
+        for (boolean available : new boolean[] {true, true, false, false, false, true}) {
+            out.seat(available);
+        }
+        out.endSnapshot();
+
+        // type, version, seat count, then runs of 2 available, 3 unavailable, 1 available
+        assertThat(read(out.toByteArray())).containsExactly(0L, 7L, 6L, 2L, 3L, 1L);
+    }
+
+    @Test
+    void snapshotStartingUnavailableOpensWithAnEmptyRun() {
+        SeatBitmapWriter out = new SeatBitmapWriter();
+        out.beginSnapshot(0, 3);
+        out.seat(false);
+        out.seat(false);
+        out.seat(true);
+        out.endSnapshot();
+
+        assertThat(read(out.toByteArray())).containsExactly(0L, 0L, 3L, 0L, 2L, 1L);
+    }
+
+    @Test
+    void largeSnapshotStaysSmall() {
+        SeatBitmapWriter out = new SeatBitmapWriter();
+        out.beginSnapshot(1, 60_000);
+        for (int i = 0; i < 60_000; i++) {
+            out.seat(i < 59_000);
+        }
+        out.endSnapshot();
+
+        byte[] bytes = out.toByteArray();
+        assertThat(bytes).hasSizeLessThan(16);
+        assertThat(read(bytes)).containsExactly(0L, 1L, 60_000L, 59_000L, 1_000L);
+    }
+
+    @Test
+    void deltaListsChangesInOrder() {
+        SeatBitmapWriter out = new SeatBitmapWriter();
+        out.beginDelta(40, 42, 2);
+        out.change(300, SeatBitmapWriter.BOOKED);
+        out.change(5, SeatBitmapWriter.HELD);
+
+        // Ordinals are varints, states a single byte each
+        assertThat(read(out.toByteArray())).containsExactly(1L, 40L, 42L, 2L, 300L, 1L, 5L, 2L);
+        assertThat(out.toByteArray()).hasSize(9);
+    }
+
+    @Test
+    void varintsUseSevenBitsPerByte() {
+        SeatBitmapWriter out = new SeatBitmapWriter();
+        out.beginDelta(127, 128, 0);
+
+        assertThat(out.toByteArray()).containsExactly(0x01, 0x7F, 0x80, 0x01, 0x00);
+    }
+
+    /**
+     * Reads the whole buffer as LEB128 varints; single-byte states decode
+     * the same way as long as they are below 0x80.
+     */
+    private static List<Long> read(byte[] bytes) {
+        ByteArrayInputStream in = new ByteArrayInputStream(bytes);
+        List<Long> values = new ArrayList<>();
+        while (in.available() > 0) {
+            long value = 0;
+            int shift = 0;
+            int b;
+            do {
+                b = in.read();
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            values.add(value);
+        }
+        return values;
+    }
+}
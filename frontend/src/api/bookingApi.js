@@ -1,10 +1,21 @@
 const API_BASE = 'http://localhost:8080/api';
 
+// Send and keep the backend's cookies: after a booking, its read-your-writes
+// cookie keeps our seat reads on the primary database, not a replica behind it
+const withCookies = { credentials: 'include' };
+
+// Waiting room ticket for the event being booked, sent with every booking request
+let queueToken = null;
+
+function queueHeaders() {
+    return queueToken ? { 'X-Queue-Token': queueToken } : {};
+}
+
 /**
  * Fetch all events
  */
 export async function getEvents() {
-    const response = await fetch(`${API_BASE}/events`);
+    const response = await fetch(`${API_BASE}/events`, withCookies);
     if (!response.ok) {
         throw new Error('Failed to fetch events');
     }
@@ -15,13 +26,72 @@ export async function getEvents() {
  * Fetch all seats for an event
  */
 export async function getSeats(eventId) {
-    const response = await fetch(`${API_BASE}/events/${eventId}/seats`);
+    const response = await fetch(`${API_BASE}/events/${eventId}/seats`, withCookies);
+    if (!response.ok) {
+        throw new Error('Failed to fetch seats');
+    }
+    return response.json();
+}
+
+/**
+ * Fetch one page of seats, for venues too large to load at once.
+ * Options: after (the previous page's nextCursor), limit, section, row,
+ * from / to (seat number range) and availableOnly.
+ * Resolves to { seats, nextCursor }; nextCursor is null on the last page.
+ */
+export async function getSeatPage(eventId, options = {}) {
+    const params = new URLSearchParams();
+    for (const [key, value] of Object.entries(options)) {
+        if (value !== undefined && value !== null) {
+            params.set(key, value);
+        }
+    }
+    const response = await fetch(`${API_BASE}/events/${eventId}/seats/page?${params}`, withCookies);
     if (!response.ok) {
         throw new Error('Failed to fetch seats');
     }
     return response.json();
 }
 
+/**
+ * Subscribe to live seat changes for an event (Server-Sent Events).
+ * onUpdate receives an array of { id, booked, held } to merge into the seat list.
+ * Returns a function that closes the subscription.
+ */
+export function subscribeToSeatUpdates(eventId, onUpdate) {
+    const source = new EventSource(`${API_BASE}/events/${eventId}/seats/updates`);
+    source.addEventListener('seats', (e) => onUpdate(JSON.parse(e.data)));
+    return () => source.close();
+}
+
+/**
+ * Join the event's waiting room and wait until it is our turn to book.
+ * onUpdate receives the ticket ({ position, admitted, retryAfterSeconds })
+ * each time it is checked. Resolves once admitted.
+ */
+export async function enterWaitingRoom(eventId, onUpdate) {
+    // A token that is still good keeps its place in line
+    let response = await fetch(`${API_BASE}/events/${eventId}/queue`,
+        { ...withCookies, method: 'POST', headers: queueHeaders() });
+    if (!response.ok) {
+        throw new Error('Failed to join the waiting room');
+    }
+    let ticket = await response.json();
+    queueToken = ticket.token;
+    onUpdate(ticket);
+
+    while (!ticket.admitted) {
+        await new Promise(resolve => setTimeout(resolve, ticket.retryAfterSeconds * 1000));
+        response = await fetch(`${API_BASE}/events/${eventId}/queue`, { ...withCookies, headers: queueHeaders() });
+        if (!response.ok) {
+            throw new Error('Lost our place in the waiting room');
+        }
+        ticket = await response.json();
+        onUpdate(ticket);
+    }
+    return ticket;
+}
+
 /**
  * Book a seat
  * Returns the booking on success, or throws an error with details on failure.
@@ -29,7 +99,7 @@ export async function getSeats(eventId) {
 export async function bookSeat(seatId, customerName) {
     const response = await fetch(
         `${API_BASE}/seats/${seatId}/book?customerName=${encodeURIComponent(customerName)}`,
-        { method: 'POST' }
+        { ...withCookies, method: 'POST', headers: queueHeaders() }
     );
 
     const data = await response.json();
@@ -45,6 +115,30 @@ export async function bookSeat(seatId, customerName) {
     return data;
 }
 
+/**
+ * Book several seats at once (all or nothing)
+ * Returns one booking per seat, or throws with details on which seats were taken.
+ */
+export async function bookSeats(seatIds, customerName) {
+    const params = new URLSearchParams({ seatIds: seatIds.join(','), customerName });
+    const response = await fetch(`${API_BASE}/seats/book?${params}`, {
+        ...withCookies,
+        method: 'POST',
+        headers: queueHeaders()
+    });
+
+    const data = await response.json();
+
+    if (!response.ok) {
+        const error = new Error(data.message || 'Booking failed');
+        error.status = response.status;
+        error.data = data;
+        throw error;
+    }
+
+    return data;
+}
+
 /**
  * Simulate concurrent booking - sends two requests simultaneously
  * This demonstrates the optimistic locking behavior
@@ -9,16 +9,11 @@ export default function EventCard({ event }) {
         day: 'numeric'
     });
 
-    // Calculate available seats from the seats array
-    const totalSeats = event.seats?.length || 0;
-    const bookedSeats = event.seats?.filter(s => s.booked).length || 0;
-    const availableSeats = totalSeats - bookedSeats;
-
     return (
         <Link to={`/event/${event.id}`} className="event-card">
             <div className="event-image">
                 <img src="/knight-seven-kingdoms.png" alt={event.name} className="event-image-img" />
-                <div className="event-badge">{availableSeats} seats left</div>
+                <div className="event-badge">{event.availableSeats} seats left</div>
             </div>
             <div className="event-content">
                 <h3 className="event-title">{event.name}</h3>
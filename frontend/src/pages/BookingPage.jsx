@@ -1,9 +1,15 @@
-import { useState, useEffect } from 'react';
+import { useState, useEffect, useRef } from 'react';
 import { useParams, Link } from 'react-router-dom';
 import SeatGrid from '../components/SeatGrid';
-import { getSeats, bookSeat, simulateConcurrentBooking } from '../api/bookingApi';
+import { getSeats, bookSeat, simulateConcurrentBooking, subscribeToSeatUpdates, enterWaitingRoom } from '../api/bookingApi';
 import './BookingPage.css';
 
+// Latest state per seat wins, so updates can be applied in the order they arrived
+function applyUpdates(seats, updates) {
+    const byId = new Map(updates.map(u => [u.id, u]));
+    return seats.map(s => byId.has(s.id) ? { ...s, ...byId.get(s.id) } : s);
+}
+
 export default function BookingPage() {
     const { eventId } = useParams();
     const [seats, setSeats] = useState([]);
@@ -12,25 +18,46 @@ export default function BookingPage() {
     const [notification, setNotification] = useState(null);
     const [bookingInProgress, setBookingInProgress] = useState(null);
     const [concurrentResult, setConcurrentResult] = useState(null);
+    const [queue, setQueue] = useState(null);
+    // Updates that arrive while the seat list is being fetched, applied once it is in
+    const buffered = useRef(null);
 
     useEffect(() => {
+        // Subscribe first so no change between the fetch and the subscription is lost
+        const unsubscribe = subscribeToSeatUpdates(eventId, (updates) => {
+            if (buffered.current) {
+                buffered.current.push(...updates);
+            } else {
+                setSeats(current => applyUpdates(current, updates));
+            }
+        });
         fetchSeats();
+        enterWaitingRoom(eventId, setQueue).catch(err => {
+            setNotification({ type: 'error', message: err.message });
+        });
+        return unsubscribe;
     }, [eventId]);
 
     const fetchSeats = async () => {
+        buffered.current = [];
         try {
             setLoading(true);
             const data = await getSeats(eventId);
-            setSeats(data);
+            setSeats(applyUpdates(data, buffered.current));
             setError(null);
         } catch (err) {
             setError('Failed to load seats. Make sure the backend is running.');
         } finally {
+            buffered.current = null;
             setLoading(false);
         }
     };
 
     const handleBookSeat = async (seat) => {
+        if (!queue?.admitted) {
+            setNotification({ type: 'info', message: 'Please wait for your turn in the waiting room.' });
+            return;
+        }
         const customerName = prompt('Enter your name to book this seat:');
         if (!customerName) return;
 
@@ -43,7 +70,6 @@ export default function BookingPage() {
                 type: 'success',
                 message: `Seat ${seat.seatNumber} booked successfully for ${customerName}!`
             });
-            fetchSeats();
         } catch (err) {
             setNotification({
                 type: 'error',
@@ -90,8 +116,6 @@ export default function BookingPage() {
                 type: 'success',
                 message: 'Race condition test complete! See results below.'
             });
-
-            fetchSeats();
         } catch (err) {
             setNotification({
                 type: 'error',
@@ -141,6 +165,13 @@ export default function BookingPage() {
                 </div>
             </div>
 
+            {queue && !queue.admitted && (
+                <div className="notification info">
+                    You're in the waiting room - number {queue.position} in line.
+                    About {queue.retryAfterSeconds}s until you can book.
+                </div>
+            )}
+
             {notification && (
                 <div className={`notification ${notification.type}`}>
                     {notification.message}
@@ -166,7 +197,7 @@ export default function BookingPage() {
                         <button
                             className="demo-btn"
                             onClick={handleSimulateConcurrent}
-                            disabled={bookingInProgress || availableCount === 0}
+                            disabled={bookingInProgress || availableCount === 0 || !queue?.admitted}
                         >
                             {bookingInProgress ? 'Testing...' : 'Run Race Condition Test'}
                         </button>
@@ -191,9 +222,10 @@ export default function BookingPage() {
                                     </div>
                                 </div>
                                 <p className="explanation">
-                                    <strong>What happened:</strong> Both requests read the same seat version.
-                                    The first UPDATE succeeded and incremented the version.
-                                    The second UPDATE failed because the version no longer matched.
+                                    <strong>What happened:</strong> The first request claimed the seat and
+                                    booked it with a single conditional UPDATE. The second request found the
+                                    seat mid-booking, waited for the outcome, and was turned away without
+                                    touching the database.
                                 </p>
                             </div>
                         )}